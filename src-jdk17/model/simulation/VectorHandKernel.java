@@ -0,0 +1,80 @@
+package model.simulation;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import model.interfaces.GameEngine;
+
+/**
+ * <pre>Lock-step HandKernel.LaneKernel written with the JDK 16+ Vector API (jdk.incubator.vector).
+ *
+ * Eight lanes are played per vector, each step loads eight card scores as bytes, widens them to
+ * ints and applies the draw-until-BUST_LEVEL rule with all-ones/all-zeros lane masks instead of
+ * branches. Lanes past the last multiple of eight are played by HandKernel.drawScalar.
+ *
+ * Lives in the src-jdk17 source root, which is compiled for JDK 17 with
+ * --add-modules jdk.incubator.vector and loaded by HandKernel through reflection, so the rest of the
+ * project still builds and runs on Java 11. Run with --add-modules jdk.incubator.vector to use it.</pre>
+ */
+public final class VectorHandKernel implements HandKernel.LaneKernel
+{
+    private static final int BUST_LEVEL = GameEngine.BUST_LEVEL;
+    private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_64;
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_256;
+    private static final int WIDTH = INTS.length();
+
+    /**
+     * Called by HandKernel through reflection.
+     *
+     * @throws UnsupportedOperationException if the CPU has no 256 bit vectors, where the scalar kernel is faster
+     */
+    public VectorHandKernel() throws UnsupportedOperationException
+    {
+        if (IntVector.SPECIES_PREFERRED.vectorBitSize() < INTS.vectorBitSize())
+            throw new UnsupportedOperationException("No 256 bit vectors");
+    }
+
+    @Override
+    public void draw(byte[] scores, int lanes, int steps, int[] totals, int[] cards, int[] busts)
+    {
+        int vectorLanes = lanes - lanes % WIDTH;
+        IntVector bustLevel = IntVector.broadcast(INTS, BUST_LEVEL);
+
+        for (int lane = 0; lane < vectorLanes; lane += WIDTH)
+        {
+            IntVector total = IntVector.zero(INTS);
+            IntVector count = IntVector.zero(INTS);
+            IntVector bust = IntVector.zero(INTS);
+
+            for (int step = 0, base = lane; step < steps; step++, base += lanes)
+            {
+                // -1 while the hand is below the bust level and has not bust, 0 once it has finished
+                IntVector drawing = total.sub(bustLevel).lanewise(VectorOperators.ASHR, 31).and(bust.not());
+
+                // every lane of this vector has finished
+                if (!drawing.compare(VectorOperators.NE, 0).anyTrue())
+                    break;
+
+                IntVector score = (IntVector) ByteVector.fromArray(BYTES, scores, base)
+                        .convertShape(VectorOperators.B2I, INTS, 0);
+                IntVector next = total.add(score.and(drawing));
+
+                // -1 where the card takes the hand over the bust level, only possible while drawing
+                IntVector over = bustLevel.sub(next).lanewise(VectorOperators.ASHR, 31);
+
+                total = next.add(total.sub(next).and(over));
+                count = count.sub(drawing);
+                bust = bust.or(over);
+            }
+
+            total.intoArray(totals, lane);
+            count.intoArray(cards, lane);
+            bust.intoArray(busts, lane);
+        }
+
+        if (vectorLanes < lanes)
+            HandKernel.drawScalar(scores, lanes, steps, totals, cards, busts, vectorLanes);
+    }
+}
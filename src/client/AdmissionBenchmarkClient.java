@@ -0,0 +1,132 @@
+package client;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import server.AdmissionController;
+import server.Table;
+import server.TableCommand;
+import server.TableServer;
+
+/**
+ * Benchmark for admission control under a bot traffic spike.
+ *
+ * Seats one real player and several bots at every table. The bots request deals as fast as they can
+ * while the real player requests one deal per table every REAL_INTERVAL ms. Runs once with and
+ * once without an AdmissionController and reports the real player's latency, how many of the real
+ * player's requests were still queued at the end and the controller's counters.
+ *
+ * Usage: AdmissionBenchmarkClient [tables=20] [bots=4] [seconds=3]
+ */
+public class AdmissionBenchmarkClient
+{
+    private static final int INITIAL_POINTS = 100000;
+    private static final int BET = 100;
+    private static final int DELAY = 1;
+    private static final int REAL_INTERVAL = 50;
+
+    public static void main(String[] args) throws InterruptedException
+    {
+        int tables = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int bots = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+
+        // the run without admission control goes last since its backlog cannot be drained in reasonable time
+        run("admission control", new AdmissionController(20, 5, 150, 20, 16), tables, bots, seconds);
+        run("no admission control", null, tables, bots, seconds);
+    }
+
+    private static void run(String name, AdmissionController admission, int tables, int bots, int seconds)
+            throws InterruptedException
+    {
+        TableServer server = new TableServer(TableServer.newDefaultExecutor(), admission);
+        List<CompletableFuture<Boolean>> setup = new ArrayList<>();
+
+        for (int table = 0; table < tables; table++)
+        {
+            server.openTable(table);
+            setup.add(server.submit(table, TableCommand.join(realId(table), "Real " + table, INITIAL_POINTS)));
+            setup.add(server.submit(table, TableCommand.bet(realId(table), BET)));
+
+            for (int bot = 0; bot < bots; bot++)
+            {
+                setup.add(server.submit(table, TableCommand.join(botId(table, bot), "Bot " + bot, INITIAL_POINTS)));
+                setup.add(server.submit(table, TableCommand.bet(botId(table, bot), BET)));
+            }
+        }
+        CompletableFuture.allOf(setup.toArray(new CompletableFuture<?>[0])).join();
+
+        long end = System.nanoTime() + seconds * 1000000000L;
+        AtomicLong botRequests = new AtomicLong();
+        Thread botThread = new Thread(() ->
+        {
+            while (System.nanoTime() < end)
+            {
+                for (int table = 0; table < tables; table++)
+                {
+                    for (int bot = 0; bot < bots; bot++)
+                    {
+                        server.submit(table, TableCommand.deal(botId(table, bot), DELAY));
+                        botRequests.incrementAndGet();
+                    }
+                }
+                Thread.yield();
+            }
+        });
+        botThread.start();
+
+        LatencyHistogram latencies = new LatencyHistogram();
+        AtomicLong rejected = new AtomicLong();
+        long requests = 0;
+        List<CompletableFuture<Boolean>> realRequests = new ArrayList<>();
+
+        while (System.nanoTime() < end)
+        {
+            for (int table = 0; table < tables; table++)
+            {
+                long start = System.nanoTime();
+                realRequests.add(server.submit(table, TableCommand.deal(realId(table), DELAY)).whenComplete(
+                        (dealt, failure) ->
+                        {
+                            if (failure instanceof RejectedExecutionException)
+                                rejected.incrementAndGet();
+                            else
+                                latencies.record(System.nanoTime() - start);
+                        }));
+                requests++;
+            }
+            Thread.sleep(REAL_INTERVAL);
+        }
+        botThread.join();
+
+        long queued = realRequests.stream().filter(request -> !request.isDone()).count();
+        int backlog = server.getTables().stream().mapToInt(Table::getQueueDepth).sum();
+        System.out.printf("%s: bot requests=%d, real requests=%d, real rejected=%d, real still queued=%d, "
+                        + "commands queued at end=%d, real latency %s%n", name, botRequests.get(), requests,
+                rejected.get(), queued, backlog, latencies);
+        if (admission != null)
+            System.out.println("  " + admission);
+
+        // wait for a short backlog so no deal is interrupted, a long one is left to the daemon threads
+        for (int wait = 0; wait < 100 && backlog > 0; wait++)
+        {
+            Thread.sleep(10);
+            backlog = server.getTables().stream().mapToInt(Table::getQueueDepth).sum();
+        }
+        if (backlog == 0)
+            server.shutdown();
+    }
+
+    private static String realId(int table)
+    {
+        return "real-" + table;
+    }
+
+    private static String botId(int table, int bot)
+    {
+        return "bot-" + table + "-" + bot;
+    }
+}
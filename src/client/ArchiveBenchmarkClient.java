@@ -0,0 +1,183 @@
+package client;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+
+import model.GameEngineImpl;
+import model.SimplePlayer;
+import model.archive.ArchiveScanner;
+import model.archive.ArchiveSegment;
+import model.archive.ArchiveWriter;
+import model.history.RoundRecorder;
+import model.interfaces.GameEngine;
+import model.interfaces.Player;
+import model.interfaces.PlayingCard;
+import view.interfaces.GameEngineCallback;
+
+/**
+ * Compares the columnar round archive with the text log of the same rounds.
+ *
+ * Plays rounds with two players, writing every round both to an ArchiveWriter and to a text
+ * file in the format of GameEngineCallbackImpl. Then reports the size of each and the time
+ * taken to compute the house bust rate from each, followed by further archive aggregates.
+ *
+ * Usage: ArchiveBenchmarkClient [rounds=200000] [directory=archive]
+ */
+public class ArchiveBenchmarkClient
+{
+    private static final int INITIAL_POINTS = 1000000;
+    private static final int BET = 100;
+
+    public static void main(String[] args) throws IOException
+    {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+        Path directory = Paths.get(args.length > 1 ? args[1] : "archive");
+        Path log = Files.createDirectories(directory).resolve("rounds.log");
+
+        try (ArchiveWriter writer = new ArchiveWriter(directory);
+             BufferedWriter text = Files.newBufferedWriter(log, StandardCharsets.UTF_8))
+        {
+            GameEngine engine = new GameEngineImpl();
+            engine.addGameEngineCallback(new RoundRecorder(0, writer));
+            engine.addGameEngineCallback(new TextLogCallback(text));
+
+            Player one = new SimplePlayer("1", "Bot One", INITIAL_POINTS);
+            Player two = new SimplePlayer("2", "Bot Two", INITIAL_POINTS);
+            engine.addPlayer(one);
+            engine.addPlayer(two);
+
+            for (int round = 0; round < rounds; round++)
+            {
+                engine.placeBet(one, BET);
+                engine.placeBet(two, BET);
+                engine.dealPlayer(one, 0);
+                engine.dealPlayer(two, 0);
+                engine.dealHouse(0);
+            }
+        }
+
+        try (ArchiveScanner scanner = new ArchiveScanner(directory))
+        {
+            long archiveSize = 0;
+            for (ArchiveSegment segment : scanner.getSegments())
+                archiveSize += Files.size(segment.getPath());
+
+            System.out.printf("rounds=%d, segments=%d, archive=%dKB (%.1f bytes/round), text=%dKB (%.1f bytes/round)%n",
+                    scanner.getRoundCount(), scanner.getSegments().size(), archiveSize >> 10,
+                    archiveSize / (double) scanner.getRoundCount(), Files.size(log) >> 10,
+                    Files.size(log) / (double) scanner.getRoundCount());
+
+            long start = System.nanoTime();
+            double archiveRate = scanner.getHouseBustRate();
+            double archiveMillis = (System.nanoTime() - start) / 1e6;
+
+            start = System.nanoTime();
+            double textRate = scanHouseBustRate(log);
+            double textMillis = (System.nanoTime() - start) / 1e6;
+
+            System.out.printf("house bust rate: archive=%.4f in %.1fms reading %dKB, text=%.4f in %.1fms%n",
+                    archiveRate, archiveMillis, scanner.getBytesRead() >> 10, textRate, textMillis);
+
+            start = System.nanoTime();
+            double winRate = scanner.getHouseWinRate();
+            Map<PlayingCard.Value, Double> bustRates = scanner.getBustRateByCardValue();
+            Map<String, Long> balances = scanner.getFinalBalances();
+            System.out.printf("house win rate=%.4f, bust rate by card value=%s, final balances=%s (%.1fms)%n",
+                    winRate, bustRates, balances, (System.nanoTime() - start) / 1e6);
+        }
+    }
+
+    /**
+     * Utility method to compute the house bust rate the way it would be from the text log.
+     */
+    private static double scanHouseBustRate(Path log) throws IOException
+    {
+        long rounds = 0;
+        long busts = 0;
+
+        try (BufferedReader reader = Files.newBufferedReader(log, StandardCharsets.UTF_8))
+        {
+            String line;
+            while ((line = reader.readLine()) != null)
+            {
+                if (line.startsWith("House, final result="))
+                    rounds++;
+                else if (line.endsWith("HOUSE BUSTED!"))
+                    busts++;
+            }
+        }
+        return rounds == 0 ? 0 : (double) busts / rounds;
+    }
+
+    /**
+     * Writes the same messages as GameEngineCallbackImpl, one per line without the logger's headers.
+     */
+    private static class TextLogCallback implements GameEngineCallback
+    {
+        private final BufferedWriter out;
+
+        private TextLogCallback(BufferedWriter out)
+        {
+            this.out = out;
+        }
+
+        @Override
+        public void nextCard(Player player, PlayingCard card, GameEngine engine)
+        {
+            write(String.format("Card Dealt to %s .. %s", player.getPlayerName(), card));
+        }
+
+        @Override
+        public void bustCard(Player player, PlayingCard card, GameEngine engine)
+        {
+            write(String.format("Card Dealt to %s .. %s ... YOU BUSTED!", player.getPlayerName(), card));
+        }
+
+        @Override
+        public void result(Player player, int result, GameEngine engine)
+        {
+            write(String.format("%s, final result=%d", player.getPlayerName(), result));
+        }
+
+        @Override
+        public void nextHouseCard(PlayingCard card, GameEngine engine)
+        {
+            write(String.format("Card Dealt to House .. %s", card));
+        }
+
+        @Override
+        public void houseBustCard(PlayingCard card, GameEngine engine)
+        {
+            write(String.format("Card Dealt to House .. %s ... HOUSE BUSTED!", card));
+        }
+
+        @Override
+        public void houseResult(int result, GameEngine engine)
+        {
+            write(String.format("House, final result=%d", result));
+            write("Final Player Results");
+            for (Player player : engine.getAllPlayers())
+                write(player.toString());
+        }
+
+        private void write(String line)
+        {
+            try
+            {
+                out.write(line);
+                out.newLine();
+            }
+            catch (IOException exception)
+            {
+                throw new UncheckedIOException(exception);
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package client;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Behaviour of a synthetic player used by the SoakTestClient.
+ *
+ * A profile sets the points a bot joins with, its bets as a fraction of its current points, how long
+ * it takes to react before each bet and how likely it is to leave the table after a round.
+ */
+public class BotProfile
+{
+    public static final BotProfile CAUTIOUS = new BotProfile("cautious", 10000, 0.01, 0.03, 200, 1000, 0.01);
+    public static final BotProfile AVERAGE = new BotProfile("average", 10000, 0.02, 0.1, 50, 500, 0.03);
+    public static final BotProfile HIGH_ROLLER = new BotProfile("high roller", 100000, 0.2, 0.5, 20, 200, 0.02);
+    public static final BotProfile HIT_AND_RUN = new BotProfile("hit and run", 5000, 0.05, 0.2, 0, 50, 0.3);
+
+    public static final List<BotProfile> DEFAULTS = Collections.unmodifiableList(
+            Arrays.asList(CAUTIOUS, AVERAGE, HIGH_ROLLER, HIT_AND_RUN));
+
+    private final String name;
+    private final int initialPoints;
+    private final double minBetFraction;
+    private final double maxBetFraction;
+    private final int minReactionMillis;
+    private final int maxReactionMillis;
+    private final double leaveChance;
+
+    /**
+     * @param name - the name of the profile
+     * @param initialPoints - the points a bot joins with
+     * @param minBetFraction - the smallest bet as a fraction of the bot's points
+     * @param maxBetFraction - the largest bet as a fraction of the bot's points
+     * @param minReactionMillis - the shortest time the bot waits before betting
+     * @param maxReactionMillis - the longest time the bot waits before betting
+     * @param leaveChance - the chance the bot leaves after a round
+     */
+    public BotProfile(String name, int initialPoints, double minBetFraction, double maxBetFraction,
+                      int minReactionMillis, int maxReactionMillis, double leaveChance)
+    {
+        if (initialPoints <= 0 || minBetFraction <= 0 || maxBetFraction < minBetFraction || maxBetFraction > 1
+                || minReactionMillis < 0 || maxReactionMillis < minReactionMillis || leaveChance < 0 || leaveChance > 1)
+            throw new IllegalArgumentException();
+
+        this.name = name;
+        this.initialPoints = initialPoints;
+        this.minBetFraction = minBetFraction;
+        this.maxBetFraction = maxBetFraction;
+        this.minReactionMillis = minReactionMillis;
+        this.maxReactionMillis = maxReactionMillis;
+        this.leaveChance = leaveChance;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public int getInitialPoints()
+    {
+        return initialPoints;
+    }
+
+    /**
+     * @param points - the bot's current points
+     * @param random - the source of randomness
+     * @return a bet between 1 and the points, or 0 if the bot has no points left
+     */
+    public int betFor(int points, SplittableRandom random)
+    {
+        if (points <= 0)
+            return 0;
+
+        double fraction = minBetFraction + random.nextDouble() * (maxBetFraction - minBetFraction);
+        return (int) Math.max(1, Math.min(points, points * fraction));
+    }
+
+    /**
+     * @param random - the source of randomness
+     * @return the time in milliseconds the bot waits before acting
+     */
+    public int reactionMillis(SplittableRandom random)
+    {
+        return minReactionMillis + random.nextInt(maxReactionMillis - minReactionMillis + 1);
+    }
+
+    /**
+     * @param random - the source of randomness
+     * @return true if the bot leaves the table after this round
+     */
+    public boolean leaves(SplittableRandom random)
+    {
+        return random.nextDouble() < leaveChance;
+    }
+
+    @Override
+    public String toString()
+    {
+        return name;
+    }
+}
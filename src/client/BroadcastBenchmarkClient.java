@@ -0,0 +1,156 @@
+package client;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import model.GameEngineImpl;
+import model.SimplePlayer;
+import model.interfaces.GameEngine;
+import model.interfaces.Player;
+import model.interfaces.PlayingCard;
+import server.SpectatorBroadcast;
+import server.WireEventDecoder;
+import view.interfaces.GameEngineCallback;
+
+/**
+ * Benchmark and churn check for the SpectatorBroadcast.
+ *
+ * Plays rounds on one table whose seats are taken by new players as others leave, so far more
+ * than the 255 wire seats worth of players pass through the table. After every round each
+ * spectator decodes the frames it is due. After a discarded warm up run, runs with one spectator
+ * and with many, reporting the dealer's time per round, the number of distinct players and the
+ * spectators whose decoded results do not match the hands dealt.
+ *
+ * Usage: BroadcastBenchmarkClient [spectators=1000] [rounds=2000]
+ */
+public class BroadcastBenchmarkClient
+{
+    private static final int INITIAL_POINTS = 1000;
+    private static final int BET = 10;
+    private static final int SEATS = 4;
+    private static final int CAPACITY = 1024;
+
+    public static void main(String[] args)
+    {
+        int spectators = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+
+        // discarded run so neither measured run pays for JIT compilation
+        run(1, rounds, false);
+        run(1, rounds, true);
+        run(spectators, rounds, true);
+    }
+
+    private static void run(int spectatorCount, int rounds, boolean report)
+    {
+        GameEngine engine = new GameEngineImpl();
+        SpectatorBroadcast broadcast = new SpectatorBroadcast(1, CAPACITY);
+        engine.addGameEngineCallback(broadcast);
+
+        List<SpectatorBroadcast.Spectator> spectators = new ArrayList<>();
+        List<ResultCounter> counters = new ArrayList<>();
+        List<WireEventDecoder> decoders = new ArrayList<>();
+        for (int index = 0; index < spectatorCount; index++)
+        {
+            ResultCounter counter = new ResultCounter();
+            spectators.add(broadcast.subscribe());
+            counters.add(counter);
+            decoders.add(new WireEventDecoder(counter));
+        }
+
+        Random random = new Random(1);
+        List<Player> seated = new ArrayList<>();
+        int players = 0;
+        long hands = 0;
+        long dealing = 0;
+
+        for (int round = 0; round < rounds; round++)
+        {
+            while (seated.size() < SEATS)
+            {
+                Player player = new SimplePlayer(Integer.toString(players), "Player " + players, INITIAL_POINTS);
+                engine.addPlayer(player);
+                seated.add(player);
+                players++;
+            }
+
+            long start = System.nanoTime();
+            for (Player player : seated)
+            {
+                engine.placeBet(player, BET);
+                engine.dealPlayer(player, 0);
+                hands++;
+            }
+            engine.dealHouse(0);
+            dealing += System.nanoTime() - start;
+
+            // a third of the players leave, as do the broke
+            for (int index = seated.size() - 1; index >= 0; index--)
+            {
+                if (random.nextInt(3) == 0 || seated.get(index).getPoints() < BET)
+                    engine.removePlayer(seated.remove(index));
+            }
+
+            for (int index = 0; index < spectatorCount; index++)
+            {
+                ByteBuffer frame;
+                while ((frame = spectators.get(index).poll()) != null)
+                {
+                    frame.getInt();
+                    decoders.get(index).decode(frame);
+                }
+            }
+        }
+
+        int mismatches = 0;
+        for (ResultCounter counter : counters)
+        {
+            if (counter.results != hands)
+                mismatches++;
+        }
+        if (report)
+            System.out.printf("spectators=%d, players=%d, dealer time/round=%.1fus, frames=%d, "
+                    + "mismatched spectators=%d%n", spectatorCount, players, dealing / 1e3 / rounds, broadcast.getPublishedCount(), mismatches);
+    }
+
+    /**
+     * Counts the player results a spectator decodes.
+     */
+    private static class ResultCounter implements GameEngineCallback
+    {
+        private long results;
+
+        @Override
+        public void nextCard(Player player, PlayingCard card, GameEngine engine)
+        {
+        }
+
+        @Override
+        public void bustCard(Player player, PlayingCard card, GameEngine engine)
+        {
+        }
+
+        @Override
+        public void result(Player player, int result, GameEngine engine)
+        {
+            results++;
+        }
+
+        @Override
+        public void nextHouseCard(PlayingCard card, GameEngine engine)
+        {
+        }
+
+        @Override
+        public void houseBustCard(PlayingCard card, GameEngine engine)
+        {
+        }
+
+        @Override
+        public void houseResult(int result, GameEngine engine)
+        {
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package client;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import model.EnginePool;
+import model.GameEngineImpl;
+import model.GameEvent;
+import model.SimplePlayer;
+import model.interfaces.GameEngine;
+import model.interfaces.Player;
+import model.interfaces.PlayingCard;
+import view.interfaces.GameEngineCallback;
+
+/**
+ * Benchmark for table startup with and without an EnginePool.
+ *
+ * Opens tables one after another and measures the time to first card, from asking for an engine to
+ * the first card reaching a callback, for a player who joins, bets and is dealt straight away. Runs
+ * with new engines on a cold JVM, times EnginePool.warmUp, then runs with new engines and with pooled
+ * engines, reporting latency percentiles and the garbage collections during each run. Those runs close
+ * every table straight after its first round, so finally a surge opens every table before any closes,
+ * which drains a pool smaller than the number of tables, once with refilling off and once with it on.
+ *
+ * Usage: EnginePoolBenchmarkClient [tables=10000] [poolSize=1000]
+ */
+public class EnginePoolBenchmarkClient
+{
+    private static final int INITIAL_POINTS = 1000;
+    private static final int BET = 100;
+
+    public static void main(String[] args)
+    {
+        int tables = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        int poolSize = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+
+        run("cold, new engines", tables, 1, GameEngineImpl::new, engine -> { });
+
+        long start = System.nanoTime();
+        EnginePool.warmUp(EnginePool.DEFAULT_WARM_UP_ROUNDS);
+        System.out.printf("warm up: %d rounds in %.1fms%n", EnginePool.DEFAULT_WARM_UP_ROUNDS,
+                (System.nanoTime() - start) / 1e6);
+
+        run("warm, new engines", tables, 1, GameEngineImpl::new, engine -> { });
+
+        start = System.nanoTime();
+        EnginePool pool = new EnginePool(poolSize);
+        System.out.printf("pool of %d engines built in %.1fms%n", poolSize, (System.nanoTime() - start) / 1e6);
+
+        LatencyHistogram releases = new LatencyHistogram();
+        run("warm, pooled engines", tables, 1, pool::acquire, engine ->
+        {
+            long released = System.nanoTime();
+            pool.release(engine);
+            releases.record(System.nanoTime() - released);
+        });
+        System.out.printf("  pool hits=%d, misses=%d, release (off the startup path) %s%n",
+                pool.getHitCount(), pool.getMissCount(), releases);
+
+        // every table stays open until the last has opened
+        EnginePool surge = new EnginePool(poolSize, 0);
+        run("surge, no refill", tables, tables, surge::acquire, surge::release);
+        System.out.printf("  pool hits=%d, misses=%d%n", surge.getHitCount(), surge.getMissCount());
+
+        surge = new EnginePool(poolSize);
+        run("surge, refill", tables, tables, surge::acquire, surge::release);
+        System.out.printf("  pool hits=%d, misses=%d, refilled=%d%n", surge.getHitCount(), surge.getMissCount(),
+                surge.getRefilledCount());
+    }
+
+    /**
+     * Utility method to open tables one after another and time their first card.
+     *
+     * @param open - the most tables open at once, the oldest is closed once a table opens beyond it
+     */
+    private static void run(String name, int tables, int open, Supplier<GameEngineImpl> engines,
+                            Consumer<GameEngineImpl> close)
+    {
+        Deque<GameEngineImpl> opened = new ArrayDeque<>();
+        LatencyHistogram latencies = new LatencyHistogram();
+        FirstCardCallback callback = new FirstCardCallback();
+        long firstTable = 0;
+        long collections = collectionCount();
+        long collectionMillis = collectionTime();
+
+        for (int table = 0; table < tables; table++)
+        {
+            long start = System.nanoTime();
+            GameEngineImpl engine = engines.get();
+            Player player = new SimplePlayer(Integer.toString(table), "Player " + table, INITIAL_POINTS);
+
+            callback.firstCard = 0;
+            engine.addGameEngineCallback(callback, EnumSet.of(GameEvent.Type.NEXT_CARD, GameEvent.Type.BUST_CARD));
+            engine.addPlayer(player);
+            engine.placeBet(player, BET);
+            engine.dealPlayer(player, 0);
+
+            long latency = callback.firstCard - start;
+            latencies.record(latency);
+            if (table == 0)
+                firstTable = latency;
+
+            engine.dealHouse(0);
+            opened.add(engine);
+            if (opened.size() > open)
+                close.accept(opened.poll());
+        }
+        while (!opened.isEmpty())
+            close.accept(opened.poll());
+
+        System.out.printf("%-20s first table=%dus, time to first card %s, GCs=%d (%dms)%n", name, firstTable / 1000,
+                latencies, collectionCount() - collections, collectionTime() - collectionMillis);
+    }
+
+    private static long collectionCount()
+    {
+        long count = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans())
+            count += Math.max(0, collector.getCollectionCount());
+        return count;
+    }
+
+    private static long collectionTime()
+    {
+        long millis = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans())
+            millis += Math.max(0, collector.getCollectionTime());
+        return millis;
+    }
+
+    /**
+     * Records when the first card of a deal arrives.
+     */
+    private static class FirstCardCallback implements GameEngineCallback
+    {
+        private long firstCard;
+
+        @Override
+        public void nextCard(Player player, PlayingCard card, GameEngine engine)
+        {
+            if (firstCard == 0)
+                firstCard = System.nanoTime();
+        }
+
+        @Override
+        public void bustCard(Player player, PlayingCard card, GameEngine engine)
+        {
+            nextCard(player, card, engine);
+        }
+
+        @Override
+        public void result(Player player, int result, GameEngine engine)
+        {
+        }
+
+        @Override
+        public void nextHouseCard(PlayingCard card, GameEngine engine)
+        {
+        }
+
+        @Override
+        public void houseBustCard(PlayingCard card, GameEngine engine)
+        {
+        }
+
+        @Override
+        public void houseResult(int result, GameEngine engine)
+        {
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package client;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Random;
+
+import model.GameEngineImpl;
+import model.SimplePlayer;
+import model.history.RoundHistoryStore;
+import model.history.RoundRecord;
+import model.history.RoundRecorder;
+import model.interfaces.GameEngine;
+import model.interfaces.Player;
+
+/**
+ * Benchmark for the RoundHistoryStore.
+ *
+ * Plays rounds on a single engine with a RoundRecorder feeding the store, three players drawn
+ * at random from the pool bet in each round. Then reopens the store and times the lookups of
+ * the last rounds of random players and of the last rounds in which the house busted.
+ *
+ * Usage: HistoryBenchmarkClient [rounds=1000000] [players=100] [limit=500] [directory=history]
+ */
+public class HistoryBenchmarkClient
+{
+    private static final int INITIAL_POINTS = 1000000000;
+    private static final int BET = 100;
+    private static final int PLAYERS_PER_ROUND = 3;
+    private static final int QUERIES = 200;
+
+    public static void main(String[] args) throws IOException
+    {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        int players = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int limit = args.length > 2 ? Integer.parseInt(args[2]) : 500;
+        Path directory = Paths.get(args.length > 3 ? args[3] : "history");
+        Random random = new Random();
+
+        try (RoundHistoryStore store = new RoundHistoryStore(directory))
+        {
+            GameEngine engine = new GameEngineImpl();
+            engine.addGameEngineCallback(new RoundRecorder(0, store));
+            Player[] pool = new Player[players];
+
+            for (int index = 0; index < players; index++)
+            {
+                pool[index] = new SimplePlayer(playerId(index), "Bot " + index, INITIAL_POINTS);
+                engine.addPlayer(pool[index]);
+            }
+
+            long start = System.nanoTime();
+            for (int round = 0; round < rounds; round++)
+            {
+                for (int seat = 0; seat < PLAYERS_PER_ROUND; seat++)
+                    engine.placeBet(pool[random.nextInt(players)], BET);
+                for (Player player : pool)
+                    engine.dealPlayer(player, 0);
+                engine.dealHouse(0);
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            System.out.printf("appended %d rounds in %.2fs (%.0f rounds/s), history holds %d rounds%n",
+                    rounds, seconds, rounds / seconds, store.getRoundCount());
+        }
+
+        long start = System.nanoTime();
+        try (RoundHistoryStore store = new RoundHistoryStore(directory))
+        {
+            System.out.printf("reopened in %.1fms with %d index segments, data=%dMB%n",
+                    (System.nanoTime() - start) / 1e6, store.getSegmentCount(),
+                    Files.size(directory.resolve("rounds.dat")) >> 20);
+
+            LatencyHistogram playerQueries = new LatencyHistogram();
+            long found = 0;
+            for (int query = 0; query < QUERIES; query++)
+            {
+                long submitted = System.nanoTime();
+                found += store.getLastRounds(playerId(random.nextInt(players)), limit).size();
+                playerQueries.record(System.nanoTime() - submitted);
+            }
+            System.out.printf("last %d rounds of a player: %d rounds/query, %s%n",
+                    limit, found / QUERIES, playerQueries);
+
+            LatencyHistogram bustQueries = new LatencyHistogram();
+            List<RoundRecord> busts = null;
+            for (int query = 0; query < QUERIES; query++)
+            {
+                long submitted = System.nanoTime();
+                busts = store.getLastRounds(RoundRecord.Outcome.HOUSE_BUST, limit);
+                bustQueries.record(System.nanoTime() - submitted);
+            }
+            System.out.printf("last %d house busts: %d rounds/query, %s%n", limit, busts.size(), bustQueries);
+
+            if (!busts.isEmpty())
+                System.out.println(busts.get(0));
+        }
+    }
+
+    private static String playerId(int index)
+    {
+        return "P" + index;
+    }
+}
@@ -0,0 +1,110 @@
+package client;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed size, lock free histogram of latencies in microseconds used by the load generating clients.
+ *
+ * Values are grouped into power of two ranges each split into 16 linear sub buckets,
+ * so any reported percentile is within ~6% of the recorded value.
+ */
+public class LatencyHistogram
+{
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray((64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * @param nanos - the latency to record in nanoseconds
+     */
+    public void record(long nanos)
+    {
+        long micros = Math.max(0, nanos / 1000);
+
+        buckets.incrementAndGet(indexOf(micros));
+        count.incrementAndGet();
+        max.accumulateAndGet(micros, Math::max);
+    }
+
+    public long getCount()
+    {
+        return count.get();
+    }
+
+    public long getMaxMicros()
+    {
+        return max.get();
+    }
+
+    /**
+     * @param percentile - the percentile to report between 0 and 100
+     * @return the upper bound in microseconds of the bucket containing the percentile
+     */
+    public long getPercentileMicros(double percentile)
+    {
+        long total = count.get();
+        long target = (long) Math.ceil(total * percentile / 100.0);
+        long seen = 0;
+
+        for (int index = 0; index < buckets.length(); index++)
+        {
+            seen += buckets.get(index);
+            if (seen >= Math.max(1, target))
+                return Math.min(upperBoundOf(index), max.get());
+        }
+        return max.get();
+    }
+
+    public void reset()
+    {
+        for (int index = 0; index < buckets.length(); index++)
+            buckets.set(index, 0);
+
+        count.set(0);
+        max.set(0);
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("count=%d, p50=%dus, p90=%dus, p99=%dus, p99.9=%dus, max=%dus", getCount(),
+                getPercentileMicros(50), getPercentileMicros(90), getPercentileMicros(99),
+                getPercentileMicros(99.9), getMaxMicros());
+    }
+
+    /**
+     * Utility method to map a value onto its bucket.
+     *
+     * @param value - the value in microseconds
+     * @return the index of the bucket the value belongs to
+     */
+    private static int indexOf(long value)
+    {
+        if (value < SUB_BUCKETS)
+            return (int) value;
+
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Utility method to map a bucket back onto the largest value it holds.
+     *
+     * @param index - the index of the bucket
+     * @return the largest value in microseconds that falls into the bucket
+     */
+    private static long upperBoundOf(int index)
+    {
+        if (index < SUB_BUCKETS)
+            return index;
+
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = index % SUB_BUCKETS;
+        return ((SUB_BUCKETS + subBucket + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+}
@@ -0,0 +1,165 @@
+package client;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import model.GameEngineImpl;
+import model.SimplePlayer;
+import model.interfaces.GameEngine;
+import model.interfaces.Player;
+import model.stats.Leaderboard;
+
+/**
+ * Benchmark for the live Leaderboard.
+ *
+ * Seats four players at every table, all tables sharing one Leaderboard, and plays rounds on every
+ * table while reader threads poll the top 10 and the rank of random players. Reports the cost of
+ * settling a round, the read rate and query times, compares them with sorting every player per query
+ * and checks the leaderboard against the sorted players.
+ *
+ * Usage: LeaderboardBenchmarkClient [tables=25000] [rounds=10] [readers=2]
+ */
+public class LeaderboardBenchmarkClient
+{
+    private static final int PLAYERS = 4;
+    private static final int INITIAL_POINTS = 100000;
+    private static final int MAX_BET = 1000;
+    private static final int TOP = 10;
+    private static final int QUERIES = 100;
+    private static final int READ_INTERVAL = 1;
+
+    private static final Comparator<Player> BY_POINTS = Comparator.comparingInt(Player::getPoints).reversed()
+            .thenComparing(Player::getPlayerId);
+
+    public static void main(String[] args) throws InterruptedException
+    {
+        int tables = args.length > 0 ? Integer.parseInt(args[0]) : 25000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int readers = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+
+        Leaderboard leaderboard = new Leaderboard();
+        List<GameEngine> engines = new ArrayList<>();
+        List<String> playerIds = new ArrayList<>();
+
+        for (int table = 0; table < tables; table++)
+        {
+            GameEngineImpl engine = new GameEngineImpl();
+            engine.addGameEngineCallback(leaderboard, Leaderboard.EVENTS);
+
+            for (int seat = 0; seat < PLAYERS; seat++)
+            {
+                String id = table + "-" + seat;
+                engine.addPlayer(new SimplePlayer(id, "Bot " + id, INITIAL_POINTS));
+                playerIds.add(id);
+            }
+            leaderboard.updateAll(engine.getAllPlayers());
+            engines.add(engine);
+        }
+
+        // readers query throughout, while rounds settle
+        AtomicLong reads = new AtomicLong();
+        LatencyHistogram readLatencies = new LatencyHistogram();
+        Thread[] threads = new Thread[readers];
+        for (int reader = 0; reader < readers; reader++)
+        {
+            Random random = new Random(reader);
+            threads[reader] = new Thread(() ->
+            {
+                try
+                {
+                    while (true)
+                    {
+                        long start = System.nanoTime();
+                        leaderboard.getTop(TOP);
+                        leaderboard.getRank(playerIds.get(random.nextInt(playerIds.size())));
+                        readLatencies.record(System.nanoTime() - start);
+                        reads.incrementAndGet();
+
+                        // viewers poll, readers spinning flat out would starve dealing on a small machine
+                        Thread.sleep(READ_INTERVAL);
+                    }
+                }
+                catch (InterruptedException exception)
+                {
+                    // benchmark finished
+                }
+            });
+            threads[reader].setDaemon(true);
+            threads[reader].start();
+        }
+
+        Random random = new Random(42);
+        long start = System.nanoTime();
+        for (int round = 0; round < rounds; round++)
+        {
+            for (GameEngine engine : engines)
+            {
+                for (Player player : engine.getAllPlayers())
+                    engine.placeBet(player, 1 + random.nextInt(MAX_BET));
+                for (Player player : engine.getAllPlayers())
+                    engine.dealPlayer(player, 0);
+                engine.dealHouse(0);
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        for (Thread thread : threads)
+            thread.interrupt();
+        for (Thread thread : threads)
+            thread.join();
+
+        System.out.printf("%d players, %d table rounds in %.2fs (%.1fus/round incl. leaderboard update), "
+                        + "%d concurrent reads (%.0f/s), read latency %s%n", playerIds.size(), (long) tables * rounds,
+                seconds, seconds * 1e6 / tables / rounds, reads.get(), reads.get() / seconds, readLatencies);
+
+        // query cost in isolation against sorting every player
+        start = System.nanoTime();
+        List<Player> sorted = null;
+        for (int query = 0; query < QUERIES; query++)
+            sorted = sortAll(engines);
+        double sortMicros = (System.nanoTime() - start) / 1e3 / QUERIES;
+
+        start = System.nanoTime();
+        for (int query = 0; query < QUERIES * 1000; query++)
+            leaderboard.getTop(TOP);
+        double topMicros = (System.nanoTime() - start) / 1e3 / QUERIES / 1000;
+
+        start = System.nanoTime();
+        for (int query = 0; query < QUERIES * 1000; query++)
+            leaderboard.getRank(playerIds.get(random.nextInt(playerIds.size())));
+        double rankMicros = (System.nanoTime() - start) / 1e3 / QUERIES / 1000;
+
+        System.out.printf("sort all players=%.1fus, top %d=%.2fus, rank of player=%.2fus%n",
+                sortMicros, TOP, topMicros, rankMicros);
+
+        // the leaderboard must agree with a full sort
+        int mismatches = 0;
+        List<Leaderboard.Entry> top = leaderboard.getTop(1000);
+        for (int position = 0; position < top.size(); position++)
+        {
+            if (!top.get(position).getPlayerId().equals(sorted.get(position).getPlayerId()))
+                mismatches++;
+        }
+        for (int sample = 0; sample < 1000; sample++)
+        {
+            int position = random.nextInt(sorted.size());
+            if (leaderboard.getRank(sorted.get(position).getPlayerId()) != position + 1)
+                mismatches++;
+        }
+        System.out.printf("leader: %s, mismatches against full sort: %d%n", top.get(0), mismatches);
+    }
+
+    private static List<Player> sortAll(List<GameEngine> engines)
+    {
+        List<Player> players = new ArrayList<>();
+
+        for (GameEngine engine : engines)
+            players.addAll(engine.getAllPlayers());
+
+        players.sort(BY_POINTS);
+        return players;
+    }
+}
@@ -0,0 +1,120 @@
+package client;
+
+import java.util.concurrent.CompletableFuture;
+
+import server.Table;
+import server.TableCommand;
+import server.TableServer;
+import view.ConsoleTableRenderer;
+
+/**
+ * Load generating client for the TableServer runtime.
+ *
+ * Opens many tables, seats two players at each and plays a number of rounds on every table
+ * concurrently, then reports the command throughput and latency percentiles.
+ *
+ * Usage: LoadTestClient [tables=1000] [rounds=10] [delay=10] [render]
+ *
+ * Passing render as the fourth argument draws the live tables with a ConsoleTableRenderer.
+ */
+public class LoadTestClient
+{
+    private static final int INITIAL_POINTS = 100000;
+    private static final int BET = 100;
+
+    public static void main(String[] args)
+    {
+        int tables = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int delay = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        ConsoleTableRenderer renderer = args.length > 3 && args[3].equals("render") ?
+                new ConsoleTableRenderer(System.out, 10, 10, true) : null;
+
+        TableServer server = new TableServer();
+        if (renderer != null)
+            server.addCloseListener(renderer::forget);
+        LatencyHistogram latencies = new LatencyHistogram();
+        CompletableFuture<?>[] sessions = new CompletableFuture<?>[tables];
+
+        long start = System.nanoTime();
+
+        // every table plays its rounds independently, driven only by command completions
+        for (int index = 0; index < tables; index++)
+        {
+            final int id = index;
+            Table table = server.openTable(id);
+            if (renderer != null)
+                table.call(engine ->
+                {
+                    engine.addGameEngineCallback(renderer);
+                    return true;
+                });
+
+            sessions[id] = seatPlayers(server, id, latencies)
+                    .thenCompose(ignored -> playRounds(server, id, rounds, delay, latencies));
+        }
+        CompletableFuture.allOf(sessions).join();
+
+        if (renderer != null)
+            renderer.close();
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long commands = latencies.getCount();
+
+        System.out.printf("tables=%d, rounds/table=%d, delay=%dms%n", tables, rounds, delay);
+        System.out.printf("elapsed=%.2fs, commands=%d, commands/s=%.0f, rounds/s=%.0f%n",
+                seconds, commands, commands / seconds, tables * (double) rounds / seconds);
+        System.out.printf("command latency: %s%n", latencies);
+
+        server.shutdown();
+    }
+
+    /**
+     * Utility method to add the two players used on every table.
+     */
+    private static CompletableFuture<Boolean> seatPlayers(TableServer server, int table, LatencyHistogram latencies)
+    {
+        return timed(server, table, TableCommand.join(playerId(table, 1), "Bot One", INITIAL_POINTS), latencies)
+                .thenCompose(ignored -> timed(server, table,
+                        TableCommand.join(playerId(table, 2), "Bot Two", INITIAL_POINTS), latencies));
+    }
+
+    /**
+     * Utility method to play the remaining rounds on a table one after another.
+     *
+     * @return a future completed once the final round has been dealt
+     */
+    private static CompletableFuture<Boolean> playRounds(TableServer server, int table, int remaining, int delay,
+                                                         LatencyHistogram latencies)
+    {
+        if (remaining == 0)
+            return CompletableFuture.completedFuture(true);
+
+        String one = playerId(table, 1);
+        String two = playerId(table, 2);
+
+        return timed(server, table, TableCommand.bet(one, BET), latencies)
+                .thenCompose(ignored -> timed(server, table, TableCommand.bet(two, BET), latencies))
+                .thenCompose(ignored -> timed(server, table, TableCommand.deal(one, delay), latencies))
+                .thenCompose(ignored -> timed(server, table, TableCommand.deal(two, delay), latencies))
+                .thenCompose(ignored -> timed(server, table, TableCommand.dealHouse(delay), latencies))
+                .thenCompose(ignored -> playRounds(server, table, remaining - 1, delay, latencies));
+    }
+
+    /**
+     * Utility method to submit a command and record its latency once it completes.
+     */
+    private static CompletableFuture<Boolean> timed(TableServer server, int table, TableCommand command,
+                                                    LatencyHistogram latencies)
+    {
+        long submitted = System.nanoTime();
+
+        return server.submit(table, command)
+                .whenComplete((result, exception) -> latencies.record(System.nanoTime() - submitted));
+    }
+
+    private static String playerId(int table, int seat)
+    {
+        return table + "-" + seat;
+    }
+}
@@ -0,0 +1,103 @@
+package client;
+
+import java.util.concurrent.CompletableFuture;
+
+import model.EngineCheckpoint;
+import model.GameEngineImpl;
+import model.interfaces.GameEngine;
+import model.interfaces.Player;
+import server.Table;
+import server.TableCommand;
+import server.TableServer;
+
+/**
+ * Benchmark for moving live tables between servers.
+ *
+ * Opens many tables on one server and leaves every one mid-round, with both players' bets placed
+ * and the first player dealt. Times checkpoint and restore of a single engine, then moves every
+ * table to a second server and finishes the rounds there, checking that no card was dealt twice.
+ *
+ * Usage: MigrationBenchmarkClient [tables=10000]
+ */
+public class MigrationBenchmarkClient
+{
+    private static final int INITIAL_POINTS = 100000;
+    private static final int BET = 100;
+    private static final int REPEATS = 100000;
+
+    public static void main(String[] args)
+    {
+        int tables = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        TableServer source = new TableServer();
+        TableServer target = new TableServer();
+
+        CompletableFuture<?>[] rounds = new CompletableFuture<?>[tables];
+        for (int id = 0; id < tables; id++)
+        {
+            source.openTable(id);
+            source.submit(id, TableCommand.join("1", "Bot One", INITIAL_POINTS));
+            source.submit(id, TableCommand.join("2", "Bot Two", INITIAL_POINTS));
+            source.submit(id, TableCommand.bet("1", BET));
+            source.submit(id, TableCommand.bet("2", BET));
+            rounds[id] = source.submit(id, TableCommand.deal("1", 0));
+        }
+        CompletableFuture.allOf(rounds).join();
+
+        // time a single engine's checkpoint and restore in isolation
+        GameEngineImpl sample = (GameEngineImpl) source.getTable(0).getEngine();
+        byte[] checkpoint = EngineCheckpoint.checkpoint(sample);
+        long start = System.nanoTime();
+        for (int repeat = 0; repeat < REPEATS; repeat++)
+            checkpoint = EngineCheckpoint.checkpoint(sample);
+        double checkpointMicros = (System.nanoTime() - start) / 1e3 / REPEATS;
+
+        start = System.nanoTime();
+        for (int repeat = 0; repeat < REPEATS; repeat++)
+            EngineCheckpoint.restore(checkpoint, descriptor -> null);
+        double restoreMicros = (System.nanoTime() - start) / 1e3 / REPEATS;
+
+        System.out.printf("checkpoint=%d bytes, phase=%s, checkpoint=%.2fus, restore=%.2fus%n",
+                checkpoint.length, EngineCheckpoint.readPhase(checkpoint), checkpointMicros, restoreMicros);
+
+        // move every table while its round is in progress
+        start = System.nanoTime();
+        CompletableFuture<?>[] moves = new CompletableFuture<?>[tables];
+        for (int id = 0; id < tables; id++)
+            moves[id] = source.migrateTable(id, target);
+        CompletableFuture.allOf(moves).join();
+        double millis = (System.nanoTime() - start) / 1e6;
+
+        System.out.printf("moved %d tables in %.1fms (%.1fus/table), source now hosts %d tables%n",
+                tables, millis, millis * 1e3 / tables, source.getTables().size());
+
+        // finish the rounds on the target and check the deck carried on where it left off
+        int duplicates = 0;
+        for (int id = 0; id < tables; id++)
+        {
+            Table table = target.getTable(id);
+            table.submit(TableCommand.deal("2", 0));
+            duplicates += table.call(engine ->
+            {
+                GameEngineImpl moved = (GameEngineImpl) engine;
+                int one = moved.getHand(engine.getPlayer("1")).getMask();
+                int two = moved.getHand(engine.getPlayer("2")).getMask();
+                return (one & two) != 0 || (one | two) != moved.getDealtCards().getMask() ? 1 : 0;
+            }).join();
+            rounds[id] = table.submit(TableCommand.dealHouse(0));
+        }
+        CompletableFuture.allOf(rounds).join();
+
+        long settled = 0;
+        for (int id = 0; id < tables; id++)
+        {
+            GameEngine engine = target.getTable(id).getEngine();
+            for (Player player : engine.getAllPlayers())
+                settled += player.getPoints() != INITIAL_POINTS || player.getResult() > 0 ? 1 : 0;
+        }
+        System.out.printf("rounds finished on target: %d players settled, %d tables with a card dealt twice%n",
+                settled, duplicates);
+
+        source.shutdown();
+        target.shutdown();
+    }
+}
@@ -0,0 +1,116 @@
+package client;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import model.GameEngineImpl;
+import model.SimplePlayer;
+import model.interfaces.GameEngine;
+import model.interfaces.Player;
+import server.BackupNode;
+import server.Replicator;
+
+/**
+ * Benchmark for primary/backup replication.
+ *
+ * Plays rounds on several tables, each on its own thread with a Replicator shipping to one
+ * BackupNode over a link with simulated latency. For each configuration reports the round rate,
+ * the number of batches and the lag when the last round completes, then kills the primary at
+ * that moment, promotes the backup and counts the players whose balances differ.
+ *
+ * Usage: ReplicationBenchmarkClient [tables=16] [rounds=2000] [latencyMicros=500]
+ */
+public class ReplicationBenchmarkClient
+{
+    private static final int INITIAL_POINTS = 1000000;
+    private static final int BET = 100;
+    private static final int PLAYERS = 2;
+
+    public static void main(String[] args) throws InterruptedException
+    {
+        int tables = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        int latency = args.length > 2 ? Integer.parseInt(args[2]) : 500;
+
+        System.out.printf("tables=%d, rounds/table=%d, latency=%dus%n", tables, rounds, latency);
+
+        run("async, unbatched", tables, rounds, latency, Replicator.Mode.ASYNC, 1, 1);
+        run("async, batched", tables, rounds, latency, Replicator.Mode.ASYNC, 64, 8);
+        run("sync", tables, rounds, latency, Replicator.Mode.SYNC, 64, 8);
+    }
+
+    private static void run(String name, int tables, int rounds, int latency, Replicator.Mode mode, int maxBatch,
+                            int maxInFlight) throws InterruptedException
+    {
+        BackupNode backup = new BackupNode(latency, TimeUnit.MICROSECONDS);
+        GameEngine[] engines = new GameEngine[tables];
+        Replicator[] replicators = new Replicator[tables];
+        Thread[] threads = new Thread[tables];
+
+        for (int table = 0; table < tables; table++)
+        {
+            engines[table] = new GameEngineImpl();
+            replicators[table] = new Replicator(table, backup, mode, maxBatch, maxInFlight);
+            ((GameEngineImpl) engines[table]).addGameEngineCallback(replicators[table], Replicator.EVENTS);
+
+            for (int seat = 0; seat < PLAYERS; seat++)
+                engines[table].addPlayer(new SimplePlayer(table + "-" + seat, "Bot " + seat, INITIAL_POINTS));
+
+            GameEngine engine = engines[table];
+            Replicator replicator = replicators[table];
+            threads[table] = new Thread(() -> playRounds(engine, replicator, rounds));
+        }
+
+        long start = System.nanoTime();
+        for (Thread thread : threads)
+            thread.start();
+        for (Thread thread : threads)
+            thread.join();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long lag = 0;
+        long batches = 0;
+        long shipped = 0;
+        for (Replicator replicator : replicators)
+        {
+            lag += replicator.getLag();
+            batches += replicator.getBatchCount();
+            shipped += replicator.getShippedSequence();
+        }
+
+        // the primary dies here, the backup takes over with whatever it has received
+        Map<Integer, GameEngine> promoted = backup.promote();
+        int differing = 0;
+
+        for (int table = 0; table < tables; table++)
+        {
+            for (Player player : engines[table].getAllPlayers())
+            {
+                Player backupPlayer = promoted.get(table).getPlayer(player.getPlayerId());
+                if (backupPlayer == null || backupPlayer.getPoints() != player.getPoints())
+                    differing++;
+            }
+        }
+
+        System.out.printf("%-17s rounds/s=%.0f, batches=%d (%.1f updates/batch), lag at failover=%d rounds, "
+                        + "differing balances after failover=%d of %d, inconsistencies=%d%n",
+                name, (double) tables * rounds / seconds, batches, (double) shipped / batches, lag,
+                differing, tables * PLAYERS, backup.getInconsistencyCount());
+    }
+
+    private static void playRounds(GameEngine engine, Replicator replicator, int rounds)
+    {
+        for (int round = 0; round < rounds; round++)
+        {
+            // no new round is started once the backup can no longer follow
+            if (replicator.isFailed())
+                return;
+
+            for (Player player : engine.getAllPlayers())
+                engine.placeBet(player, BET);
+            for (Player player : engine.getAllPlayers())
+                engine.dealPlayer(player, 0);
+            engine.dealHouse(0);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package client;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import server.ShardedTableService;
+import server.TableCommand;
+import server.TableServer;
+
+/**
+ * Throughput benchmark for the ShardedTableService.
+ *
+ * Runs the same workload against 1, 2, ... maxNodes in-process nodes, each node a TableServer
+ * with its own fixed pool of threadsPerNode threads standing in for a separate machine, and
+ * reports the round rate and the speedup over a single node. Scaling is only near-linear while
+ * there are at least as many cores as node threads. Finally adds and removes a node under the
+ * same players to show how many are moved, first while no rounds are played and then again while
+ * every player keeps playing rounds, checking that no round is lost to a move. A discarded single
+ * node pass runs first so the baseline does not include JIT compilation.
+ *
+ * Usage: ShardBenchmarkClient [players=20000] [rounds=10] [maxNodes=4] [threadsPerNode=1]
+ */
+public class ShardBenchmarkClient
+{
+    private static final int INITIAL_POINTS = 1000000;
+    private static final int BET = 100;
+
+    public static void main(String[] args)
+    {
+        int players = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int maxNodes = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        int threadsPerNode = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+        double baseline = 0;
+
+        System.out.printf("players=%d, rounds/player=%d, threads/node=%d, cores=%d%n",
+                players, rounds, threadsPerNode, Runtime.getRuntime().availableProcessors());
+
+        // discarded pass so the single node baseline is not paying for compilation
+        List<ExecutorService> warmUp = new ArrayList<>();
+        ShardedTableService warmUpService = new ShardedTableService();
+        addNode(warmUpService, 0, threadsPerNode, warmUp);
+        measure(warmUpService, players, rounds);
+        for (ExecutorService executor : warmUp)
+            executor.shutdownNow();
+
+        for (int nodeCount = 1; nodeCount <= maxNodes; nodeCount++)
+        {
+            ShardedTableService service = new ShardedTableService();
+            List<ExecutorService> executors = new ArrayList<>();
+
+            for (int node = 0; node < nodeCount; node++)
+                addNode(service, node, threadsPerNode, executors);
+            double rate = measure(service, players, rounds);
+
+            if (nodeCount == 1)
+                baseline = rate;
+            System.out.printf("nodes=%d, rounds/s=%.0f, speedup=%.2f, players/node=%s%n",
+                    nodeCount, rate, rate / baseline, service.getPlayerCounts().values());
+
+            if (nodeCount == maxNodes)
+            {
+                long rebalanceStart = System.nanoTime();
+                int moved = addNode(service, nodeCount, threadsPerNode, executors);
+                System.out.printf("adding node-%d moved %d players (%.1f%%) in %.1fms%n", nodeCount, moved,
+                        100.0 * moved / players, (System.nanoTime() - rebalanceStart) / 1e6);
+
+                long before = service.getMovedCount();
+                rebalanceStart = System.nanoTime();
+                service.removeNode("node-0");
+                System.out.printf("removing node-0 moved %d players in %.1fms, players/node=%s%n",
+                        service.getMovedCount() - before, (System.nanoTime() - rebalanceStart) / 1e6,
+                        service.getPlayerCounts());
+
+                // the same again while rounds are being played, continuations on the table threads call back in
+                CompletableFuture<Integer>[] sessions = startRounds(service, players, rounds);
+                before = service.getMovedCount();
+                rebalanceStart = System.nanoTime();
+                addNode(service, nodeCount + 1, threadsPerNode, executors);
+                service.removeNode("node-1");
+                double rebalanceMillis = (System.nanoTime() - rebalanceStart) / 1e6;
+
+                int played = 0;
+                for (CompletableFuture<Integer> session : sessions)
+                    played += session.join();
+                System.out.printf("under load adding node-%d and removing node-1 moved %d players in %.1fms, "
+                                + "rounds played=%d of %d, players/node=%s%n", nodeCount + 1,
+                        service.getMovedCount() - before, rebalanceMillis, played, players * rounds,
+                        service.getPlayerCounts());
+            }
+
+            for (ExecutorService executor : executors)
+                executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Utility method to join the players and play their rounds.
+     *
+     * @return the rounds played per second
+     */
+    private static double measure(ShardedTableService service, int players, int rounds)
+    {
+        joinPlayers(service, players);
+
+        long start = System.nanoTime();
+        CompletableFuture.allOf(startRounds(service, players, rounds)).join();
+        return (double) players * rounds / ((System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * Utility method to start every player's rounds.
+     *
+     * @return a future per player completed with the number of rounds the player played
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static CompletableFuture<Integer>[] startRounds(ShardedTableService service, int players, int rounds)
+    {
+        CompletableFuture<Integer>[] sessions = new CompletableFuture[players];
+        for (int player = 0; player < players; player++)
+            sessions[player] = playRounds(service, playerId(player), rounds, 0);
+        return sessions;
+    }
+
+    private static int addNode(ShardedTableService service, int node, int threads, List<ExecutorService> executors)
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable ->
+        {
+            Thread thread = new Thread(runnable, "node-" + node);
+            thread.setDaemon(true);
+            return thread;
+        });
+        executors.add(executor);
+        return service.addNode("node-" + node, new TableServer(executor));
+    }
+
+    private static void joinPlayers(ShardedTableService service, int players)
+    {
+        CompletableFuture<?>[] joins = new CompletableFuture<?>[players];
+
+        for (int player = 0; player < players; player++)
+            joins[player] = service.submit(TableCommand.join(playerId(player), "Bot " + player, INITIAL_POINTS));
+
+        CompletableFuture.allOf(joins).join();
+    }
+
+    /**
+     * Utility method to play a player's rounds one after another.
+     *
+     * @return a future completed with the number of rounds played, a round is not played if its player is not found
+     */
+    private static CompletableFuture<Integer> playRounds(ShardedTableService service, String playerId, int remaining,
+                                                         int played)
+    {
+        if (remaining == 0)
+            return CompletableFuture.completedFuture(played);
+
+        return service.playRound(playerId, BET, 0)
+                .thenCompose(result -> playRounds(service, playerId, remaining - 1, result ? played + 1 : played));
+    }
+
+    private static String playerId(int player)
+    {
+        return "P" + player;
+    }
+}
@@ -0,0 +1,118 @@
+package client;
+
+import java.util.Random;
+
+import model.GameEngineImpl;
+import model.SimplePlayer;
+import model.interfaces.GameEngine;
+import model.interfaces.Player;
+import model.simulation.BatchHandSimulator;
+import model.simulation.SimulationResult;
+
+/**
+ * Benchmark for batch simulation of rounds for house edge analysis.
+ *
+ * Plays rounds of one player against the house through GameEngineImpl, then plays the same number
+ * of rounds from pre-generated decks through the scalar HandKernel and, when available, the Vector
+ * API kernel, checking the two kernels agree on every deck. Each kernel is run several times and the
+ * fastest run reported. The Vector API kernel needs the src-jdk17 classes on the class path and the
+ * JVM option --add-modules jdk.incubator.vector.
+ *
+ * Usage: SimulationBenchmarkClient [rounds=2000000] [lanes=1024]
+ */
+public class SimulationBenchmarkClient
+{
+    private static final int INITIAL_POINTS = 1000000000;
+    private static final int MAX_ENGINE_ROUNDS = 200000;
+    private static final int RUNS = 5;
+    private static final long SEED = 42;
+
+    public static void main(String[] args)
+    {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 2000000;
+        int lanes = args.length > 1 ? Integer.parseInt(args[1]) : BatchHandSimulator.DEFAULT_LANES;
+        int batches = (rounds + lanes - 1) / lanes;
+
+        runEngine(Math.min(rounds, MAX_ENGINE_ROUNDS));
+
+        BatchHandSimulator scalar = new BatchHandSimulator(lanes, false);
+        BatchHandSimulator vector = new BatchHandSimulator(lanes, true);
+        Random random = new Random(SEED);
+
+        long start = System.nanoTime();
+        byte[][] decks = new byte[batches][];
+        for (int batch = 0; batch < batches; batch++)
+            decks[batch] = scalar.generateDecks(random);
+        report("deck generation", (long) batches * lanes, System.nanoTime() - start, null);
+
+        SimulationResult scalarResult = runKernel("scalar kernel", scalar, decks);
+
+        if (!vector.isVectorized())
+        {
+            System.out.println("vector kernel unavailable, run JDK 16+ with --add-modules jdk.incubator.vector");
+            return;
+        }
+        SimulationResult vectorResult = runKernel("vector kernel", vector, decks);
+
+        // the kernels must agree batch by batch, not just in total
+        int mismatches = 0;
+        for (byte[] deck : decks)
+        {
+            if (!scalar.play(deck).toString().equals(vector.play(deck).toString()))
+                mismatches++;
+        }
+        System.out.printf("kernels agree: %s (%d mismatched batches), totals equal: %s%n", mismatches == 0,
+                mismatches, scalarResult.toString().equals(vectorResult.toString()));
+    }
+
+    private static void runEngine(int rounds)
+    {
+        GameEngine engine = new GameEngineImpl();
+        Player player = new SimplePlayer("1", "Bot", INITIAL_POINTS);
+        engine.addPlayer(player);
+
+        long playerWins = 0;
+        long houseWins = 0;
+        long start = System.nanoTime();
+
+        for (int round = 0; round < rounds; round++)
+        {
+            int points = player.getPoints();
+            engine.placeBet(player, 1);
+            engine.dealPlayer(player, 0);
+            engine.dealHouse(0);
+
+            playerWins += player.getPoints() > points ? 1 : 0;
+            houseWins += player.getPoints() < points ? 1 : 0;
+        }
+        report("GameEngineImpl", rounds, System.nanoTime() - start,
+                new SimulationResult(rounds, playerWins, houseWins, 0, 0));
+    }
+
+    private static SimulationResult runKernel(String name, BatchHandSimulator simulator, byte[][] decks)
+    {
+        SimulationResult result = null;
+        long best = Long.MAX_VALUE;
+
+        for (int run = 0; run < RUNS; run++)
+        {
+            result = new SimulationResult(0, 0, 0, 0, 0);
+            long start = System.nanoTime();
+
+            for (byte[] deck : decks)
+                result = result.add(simulator.play(deck));
+
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        report(name, result.getRounds(), best, result);
+        return result;
+    }
+
+    private static void report(String name, long rounds, long nanos, SimulationResult result)
+    {
+        System.out.printf("%-17s %9d rounds in %7.1fms, %7.1fns/round, %6.1fM rounds/s%s%n", name, rounds,
+                nanos / 1e6, (double) nanos / rounds, rounds * 1e3 / nanos,
+                result == null ? "" : String.format(", house edge=%.4f +/- %.4f",
+                        result.getHouseEdge(), result.getStandardError()));
+    }
+}
@@ -0,0 +1,450 @@
+package client;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import model.interfaces.Player;
+import model.stats.Leaderboard;
+import server.Table;
+import server.TableCommand;
+import server.TableServer;
+import server.WireEventEncoder;
+import view.ConsoleTableRenderer;
+
+/**
+ * Soak test driving many tables with scripted bot players for as long as required.
+ *
+ * Every table has a number of seats filled by bots following a BotProfile picked at random. Each round
+ * bots may leave (or must, once broke) and empty seats may be taken by new bots, so players keep joining
+ * and leaving the engines. Seated bots wait their reaction time, look up their points and bet a fraction
+ * of them, then are dealt in turn before the house. Every report interval prints throughput, command
+ * latency percentiles, live players, the heap used after the last collection and its growth since the
+ * first report, and the collections, collection time and longest pause in the interval, so leaks show up
+ * as steady heap growth and scaling cliffs as latency or pause jumps between reports.
+ *
+ * With consumers every table also feeds a WireEventEncoder whose frames are counted and dropped, a
+ * shared ConsoleTableRenderer drawing to nowhere and a shared Leaderboard, so state those callbacks keep
+ * per player is soaked by the same churn. At the end every table is closed and the final report prints
+ * the frames sent and the players still ranked, which should be none.
+ *
+ * Usage: SoakTestClient [tables=200] [seats=4] [minutes=60] [reportSeconds=10] [delay=0] [consumers]
+ */
+public class SoakTestClient
+{
+    private static final double JOIN_CHANCE = 0.5;
+
+    private final TableServer server = new TableServer();
+    private final int delay;
+    private final long end;
+    private final AtomicReference<LatencyHistogram> latencies = new AtomicReference<>(new LatencyHistogram());
+    private final AtomicLong rounds = new AtomicLong();
+    private final AtomicLong joins = new AtomicLong();
+    private final AtomicLong leaves = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicInteger players = new AtomicInteger();
+    private final AtomicLong longestPause = new AtomicLong();
+    private final AtomicInteger nextBot = new AtomicInteger();
+    private final LongAdder frames = new LongAdder();
+
+    private SoakTestClient(int delay, long end)
+    {
+        this.delay = delay;
+        this.end = end;
+    }
+
+    public static void main(String[] args)
+    {
+        int tables = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int seats = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        double minutes = args.length > 2 ? Double.parseDouble(args[2]) : 60;
+        int reportSeconds = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+        int delay = args.length > 4 ? Integer.parseInt(args[4]) : 0;
+        boolean consumers = args.length > 5 && args[5].equals("consumers");
+
+        SoakTestClient client = new SoakTestClient(delay, System.nanoTime() + (long) (minutes * 60e9));
+        client.listenForPauses();
+
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(runnable ->
+        {
+            Thread thread = new Thread(runnable, "soak-report");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Report report = client.new Report();
+        reporter.scheduleAtFixedRate(report, reportSeconds, reportSeconds, TimeUnit.SECONDS);
+
+        ConsoleTableRenderer renderer = null;
+        Leaderboard leaderboard = null;
+        if (consumers)
+        {
+            renderer = new ConsoleTableRenderer(new PrintStream(OutputStream.nullOutputStream()), 20, 10, false);
+            leaderboard = new Leaderboard();
+            client.server.addCloseListener(renderer::forget);
+            client.server.addCloseListener(leaderboard::forget);
+            client.server.addMoveListener(leaderboard::moved);
+        }
+
+        List<Table> opened = new ArrayList<>();
+        List<CompletableFuture<Void>> done = new ArrayList<>();
+        for (int table = 0; table < tables; table++)
+        {
+            opened.add(client.server.openTable(table));
+            if (consumers)
+                client.attachConsumers(opened.get(table), renderer, leaderboard).join();
+            done.add(client.new TableDriver(opened.get(table), seats, new SplittableRandom(table)).start());
+        }
+        CompletableFuture.allOf(done.toArray(new CompletableFuture<?>[0])).join();
+
+        reporter.shutdownNow();
+        report.run();
+        System.out.printf("done: rounds=%d, joins=%d, leaves=%d, failed commands=%d%n", client.rounds.get(),
+                client.joins.get(), client.leaves.get(), client.failures.get());
+        if (consumers)
+        {
+            // an action queued after the close is refused once the close listeners have run
+            for (Table table : opened)
+            {
+                client.server.closeTable(table.getId());
+                table.call(engine -> null).handle((ignored, failure) -> null).join();
+            }
+            renderer.close();
+            System.out.printf("consumers: wire frames=%d, ranked players after closing=%d%n", client.frames.sum(),
+                    leaderboard.size());
+        }
+        client.server.shutdown();
+    }
+
+    /**
+     * Utility method to register a wire encoder, the renderer and the leaderboard with a table's engine.
+     *
+     * @param table - the table to attach the consumers to
+     * @param renderer - the renderer shared by every table
+     * @param leaderboard - the leaderboard shared by every table
+     * @return a future completed once the callbacks are registered
+     */
+    private CompletableFuture<Void> attachConsumers(Table table, ConsoleTableRenderer renderer, Leaderboard leaderboard)
+    {
+        WireEventEncoder encoder = new WireEventEncoder(table.getId(), frame -> frames.increment());
+
+        return table.call(engine ->
+        {
+            engine.addGameEngineCallback(encoder);
+            engine.addGameEngineCallback(renderer);
+            engine.addGameEngineCallback(leaderboard);
+            return null;
+        });
+    }
+
+    /**
+     * Utility method to queue a command and record its latency, counting failed commands.
+     *
+     * @param table - the table the command is for
+     * @param command - the command to queue
+     * @return the future of the command
+     */
+    private CompletableFuture<Boolean> timed(Table table, TableCommand command)
+    {
+        long start = System.nanoTime();
+        return table.submit(command).whenComplete((result, failure) -> record(start, result, failure));
+    }
+
+    /**
+     * Utility method to look up a bot's points on its table, as a player checking the balance before betting.
+     *
+     * @param table - the table the bot is seated at
+     * @param bot - the bot
+     * @return the future of the bot's points, 0 if the bot is no longer at the table
+     */
+    private CompletableFuture<Integer> points(Table table, Bot bot)
+    {
+        long start = System.nanoTime();
+        return table.call(engine ->
+        {
+            Player player = engine.getPlayer(bot.id);
+            return player == null ? 0 : player.getPoints();
+        }).whenComplete((points, failure) -> record(start, true, failure));
+    }
+
+    private void record(long start, Boolean result, Throwable failure)
+    {
+        latencies.get().record(System.nanoTime() - start);
+        if (failure != null || !result)
+            failures.incrementAndGet();
+    }
+
+    /**
+     * Records the longest collector pause, collectors running concurrently with the application are skipped.
+     */
+    private void listenForPauses()
+    {
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans())
+        {
+            if (!(collector instanceof NotificationEmitter) || collector.getName().contains("Concurrent"))
+                continue;
+
+            ((NotificationEmitter) collector).addNotificationListener((Notification notification, Object handback) ->
+            {
+                if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType()))
+                    return;
+
+                long pause = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData())
+                        .getGcInfo().getDuration();
+                longestPause.accumulateAndGet(pause, Math::max);
+            }, null, null);
+        }
+    }
+
+    /**
+     * A seated bot, only touched by its table's round so no synchronisation is needed.
+     */
+    private static class Bot
+    {
+        private final String id;
+        private final BotProfile profile;
+        private int bet;
+
+        private Bot(String id, BotProfile profile)
+        {
+            this.id = id;
+            this.profile = profile;
+        }
+    }
+
+    /**
+     * Plays rounds on one table until the end of the test. Each round starts the next one when it completes
+     * instead of composing futures, so a table holds the same few objects however long the test runs.
+     */
+    private class TableDriver
+    {
+        private final Table table;
+        private final Bot[] seats;
+        private final SplittableRandom random;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        private TableDriver(Table table, int seats, SplittableRandom random)
+        {
+            this.table = table;
+            this.seats = new Bot[seats];
+            this.random = random;
+        }
+
+        private CompletableFuture<Void> start()
+        {
+            playRound();
+            return done;
+        }
+
+        private void playRound()
+        {
+            seat().thenCompose(ignored -> bet()).thenCompose(ignored -> deal())
+                    .thenCompose(ignored -> timed(table, TableCommand.dealHouse(delay)))
+                    .whenComplete((ignored, failure) ->
+                    {
+                        rounds.incrementAndGet();
+                        if (failure != null)
+                            failures.incrementAndGet();
+
+                        if (System.nanoTime() < end)
+                            playRound();
+                        else
+                            leaveAll().whenComplete((left, leaveFailure) -> done.complete(null));
+                    });
+        }
+
+        /**
+         * Utility method to let bots leave when broke or by chance, and new bots take empty seats.
+         */
+        private CompletableFuture<Void> seat()
+        {
+            List<CompletableFuture<Boolean>> changes = new ArrayList<>();
+
+            for (int seat = 0; seat < seats.length; seat++)
+            {
+                Bot bot = seats[seat];
+
+                if (bot != null && (bot.bet < 0 || bot.profile.leaves(random)))
+                {
+                    changes.add(leave(bot));
+                    seats[seat] = null;
+                }
+                else if (bot == null && random.nextDouble() < JOIN_CHANCE)
+                {
+                    BotProfile profile = BotProfile.DEFAULTS.get(random.nextInt(BotProfile.DEFAULTS.size()));
+                    bot = new Bot("bot-" + nextBot.incrementAndGet(), profile);
+                    changes.add(timed(table, TableCommand.join(bot.id, profile.getName(), profile.getInitialPoints())));
+                    seats[seat] = bot;
+                    joins.incrementAndGet();
+                    players.incrementAndGet();
+                }
+            }
+            return CompletableFuture.allOf(changes.toArray(new CompletableFuture<?>[0]));
+        }
+
+        /**
+         * Utility method to have every seated bot react, check its points and bet, all at the same time.
+         */
+        private CompletableFuture<Void> bet()
+        {
+            List<CompletableFuture<Boolean>> bets = new ArrayList<>();
+
+            for (Bot bot : seats)
+            {
+                if (bot == null)
+                    continue;
+
+                // sampled here since the callbacks below run on other threads
+                SplittableRandom betRandom = random.split();
+                bets.add(CompletableFuture.runAsync(() -> { },
+                        CompletableFuture.delayedExecutor(bot.profile.reactionMillis(random), TimeUnit.MILLISECONDS))
+                        .thenCompose(ignored -> points(table, bot))
+                        .thenCompose(points ->
+                        {
+                            bot.bet = bot.profile.betFor(points, betRandom);
+
+                            // a broke bot leaves at the start of the next round
+                            if (bot.bet == 0)
+                            {
+                                bot.bet = -1;
+                                return CompletableFuture.completedFuture(false);
+                            }
+                            return timed(table, TableCommand.bet(bot.id, bot.bet));
+                        }));
+            }
+            return CompletableFuture.allOf(bets.toArray(new CompletableFuture<?>[0]));
+        }
+
+        /**
+         * Utility method to deal every bot with a bet in seat order.
+         */
+        private CompletableFuture<Boolean> deal()
+        {
+            CompletableFuture<Boolean> dealt = CompletableFuture.completedFuture(true);
+
+            for (Bot bot : seats)
+            {
+                if (bot != null && bot.bet > 0)
+                    dealt = dealt.thenCompose(ignored -> timed(table, TableCommand.deal(bot.id, delay)));
+            }
+            return dealt;
+        }
+
+        private CompletableFuture<Void> leaveAll()
+        {
+            List<CompletableFuture<Boolean>> left = new ArrayList<>();
+
+            for (int seat = 0; seat < seats.length; seat++)
+            {
+                if (seats[seat] != null)
+                    left.add(leave(seats[seat]));
+                seats[seat] = null;
+            }
+            return CompletableFuture.allOf(left.toArray(new CompletableFuture<?>[0]));
+        }
+
+        private CompletableFuture<Boolean> leave(Bot bot)
+        {
+            leaves.incrementAndGet();
+            players.decrementAndGet();
+            return timed(table, TableCommand.leave(bot.id));
+        }
+    }
+
+    /**
+     * Prints the throughput, latency, heap and collector figures of the interval since the previous report.
+     */
+    private class Report implements Runnable
+    {
+        private final long start = System.nanoTime();
+        private long last = start;
+        private long lastRounds;
+        private long lastCollections;
+        private long lastCollectionMillis;
+        private long firstHeap = -1;
+
+        private Report()
+        {
+            lastCollections = collectionCount();
+            lastCollectionMillis = collectionTime();
+        }
+
+        @Override
+        public void run()
+        {
+            long now = System.nanoTime();
+            double seconds = Math.max(1e-9, (now - last) / 1e9);
+            LatencyHistogram interval = latencies.getAndSet(new LatencyHistogram());
+            long roundCount = rounds.get();
+            long collections = collectionCount();
+            long collectionMillis = collectionTime();
+            long heap = heapAfterCollection();
+
+            if (firstHeap < 0)
+                firstHeap = heap;
+
+            System.out.printf("[%6.0fs] rounds/s=%.0f, commands/s=%.0f, latency %s, players=%d, "
+                            + "heap after GC=%.1fMB (%+.1fMB), GCs=%d (%dms), longest pause=%dms%n",
+                    (now - start) / 1e9, (roundCount - lastRounds) / seconds, interval.getCount() / seconds, interval,
+                    players.get(), heap / 1048576.0, (heap - firstHeap) / 1048576.0, collections - lastCollections,
+                    collectionMillis - lastCollectionMillis, longestPause.getAndSet(0));
+
+            last = now;
+            lastRounds = roundCount;
+            lastCollections = collections;
+            lastCollectionMillis = collectionMillis;
+        }
+
+        /**
+         * Utility method to sum the heap in use just after the last collection of every heap pool, which only
+         * grows over time if something keeps objects alive.
+         */
+        private long heapAfterCollection()
+        {
+            long used = 0;
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+            {
+                MemoryUsage usage = pool.getType() == MemoryType.HEAP ? pool.getCollectionUsage() : null;
+                if (usage != null)
+                    used += usage.getUsed();
+            }
+            return used;
+        }
+
+        private long collectionCount()
+        {
+            long count = 0;
+            for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans())
+                count += Math.max(0, collector.getCollectionCount());
+            return count;
+        }
+
+        private long collectionTime()
+        {
+            long millis = 0;
+            for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans())
+                millis += Math.max(0, collector.getCollectionTime());
+            return millis;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package client;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import model.DrawingStrategy;
+import model.GameEngineImpl;
+import model.SimplePlayer;
+import model.interfaces.GameEngine;
+import model.interfaces.Player;
+import model.simulation.StrategyOptimizer;
+
+/**
+ * Searches stop thresholds, bust chance limits and bet sizes for the strongest player against the house.
+ *
+ * Prints the surviving candidates with 95% confidence intervals of their profit per session, the
+ * number pruned and the time taken, then plays the best candidate's strategy through GameEngineImpl
+ * to check the engine gives the same edge.
+ *
+ * Usage: StrategyOptimizerClient [sessions=20000] [rounds=100] [maxBet=100] [threads=cores]
+ */
+public class StrategyOptimizerClient
+{
+    private static final int INITIAL_POINTS = 1000;
+    private static final int ENGINE_ROUNDS = 200000;
+    private static final double[] BET_FRACTIONS = {0.01, 0.05, 0.2};
+    private static final long SEED = 42;
+
+    public static void main(String[] args) throws InterruptedException
+    {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int maxBet = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        List<StrategyOptimizer.Candidate> candidates = new ArrayList<>();
+        for (double fraction : BET_FRACTIONS)
+        {
+            for (int threshold = 30; threshold <= GameEngine.BUST_LEVEL; threshold++)
+                candidates.add(new StrategyOptimizer.Candidate(String.format("stop at %d, bet %.0f%%",
+                        threshold, fraction * 100), DrawingStrategy.stopAt(threshold), fraction));
+
+            for (int percent = 10; percent <= 50; percent += 10)
+                candidates.add(new StrategyOptimizer.Candidate(String.format("bust chance <= %d%%, bet %.0f%%",
+                        percent, fraction * 100), DrawingStrategy.limitBustChance(percent / 100.0), fraction));
+        }
+
+        StrategyOptimizer optimizer = new StrategyOptimizer(INITIAL_POINTS, maxBet, rounds, 1000, threads);
+        long start = System.nanoTime();
+        List<StrategyOptimizer.Evaluation> evaluations = optimizer.optimize(candidates, sessions, SEED);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long played = 0;
+        int pruned = 0;
+        for (StrategyOptimizer.Evaluation evaluation : evaluations)
+        {
+            played += evaluation.getSessions();
+            pruned += evaluation.isPruned() ? 1 : 0;
+            if (!evaluation.isPruned())
+                System.out.println(evaluation);
+        }
+        System.out.printf("%d candidates, %d pruned, %d of %d sessions played in %.1fs on %d threads%n",
+                candidates.size(), pruned, played, (long) candidates.size() * sessions, seconds, threads);
+
+        StrategyOptimizer.Evaluation best = evaluations.get(0);
+        System.out.printf("best: %s, engine player edge=%.4f, optimizer player edge=%.4f%n", best.getCandidate(),
+                engineEdge(best.getCandidate().getStrategy()), best.getPlayerEdge());
+    }
+
+    private static double engineEdge(DrawingStrategy strategy)
+    {
+        GameEngineImpl engine = new GameEngineImpl();
+        Player player = new SimplePlayer("1", "Bot", ENGINE_ROUNDS);
+        engine.addPlayer(player);
+        engine.setDrawingStrategy(player, strategy);
+
+        for (int round = 0; round < ENGINE_ROUNDS; round++)
+        {
+            engine.placeBet(player, 1);
+            engine.dealPlayer(player, 0);
+            engine.dealHouse(0);
+        }
+        return (double) (player.getPoints() - ENGINE_ROUNDS) / ENGINE_ROUNDS;
+    }
+}
@@ -0,0 +1,199 @@
+package client;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.function.BooleanSupplier;
+
+import model.interfaces.GameEngine;
+import model.interfaces.Player;
+import model.interfaces.PlayingCard;
+import server.NioTableServer;
+import server.TableCommand;
+import server.TableServer;
+import server.WireEventDecoder;
+import server.WireProtocol;
+import view.interfaces.GameEngineCallback;
+
+/**
+ * Loopback benchmark for the binary WireProtocol.
+ *
+ * Starts an NioTableServer on the loopback interface, then plays rounds on many tables over a
+ * single connection with every round's commands for a table batched in one frame. Reports the
+ * message rate and the bytes per round, alongside the size the same events take as log text.
+ *
+ * Usage: WireBenchmarkClient [tables=100] [rounds=200]
+ */
+public class WireBenchmarkClient
+{
+    private static final int INITIAL_POINTS = 1000000;
+    private static final int BET = 100;
+
+    public static void main(String[] args) throws IOException, InterruptedException
+    {
+        int tables = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+        TableServer server = new TableServer();
+        for (int table = 0; table < tables; table++)
+            server.openTable(table);
+
+        NioTableServer front = new NioTableServer(server, new InetSocketAddress("127.0.0.1", 0));
+        Thread selector = new Thread(front, "selector");
+        selector.start();
+
+        TextSizeCallback text = new TextSizeCallback();
+        WireEventDecoder decoder = new WireEventDecoder(text);
+        ByteBuffer output = ByteBuffer.allocate(WireProtocol.MAX_FRAME_SIZE);
+        ByteBuffer input = ByteBuffer.allocate(4 * WireProtocol.MAX_FRAME_SIZE);
+
+        try (SocketChannel channel = SocketChannel.open(front.getAddress()))
+        {
+            channel.socket().setTcpNoDelay(true);
+
+            // subscribe and seat two players at every table
+            for (int table = 0; table < tables; table++)
+            {
+                beginFrame(output, table, 3);
+                output.put(WireProtocol.SUBSCRIBE);
+                WireProtocol.putCommand(output, TableCommand.join(table + "-1", "Bot One", INITIAL_POINTS));
+                WireProtocol.putCommand(output, TableCommand.join(table + "-2", "Bot Two", INITIAL_POINTS));
+                endFrame(output, channel);
+            }
+            long bytes = await(channel, input, decoder, () -> decoder.getReplyCount() >= 3L * tables);
+
+            long startEvents = decoder.getEventCount();
+            long startBytes = bytes;
+            long start = System.nanoTime();
+
+            for (int round = 0; round < rounds; round++)
+            {
+                // one frame per table holding the whole round
+                for (int table = 0; table < tables; table++)
+                {
+                    beginFrame(output, table, 5);
+                    WireProtocol.putCommand(output, TableCommand.bet(table + "-1", BET));
+                    WireProtocol.putCommand(output, TableCommand.bet(table + "-2", BET));
+                    WireProtocol.putCommand(output, TableCommand.deal(table + "-1", 0));
+                    WireProtocol.putCommand(output, TableCommand.deal(table + "-2", 0));
+                    WireProtocol.putCommand(output, TableCommand.dealHouse(0));
+                    endFrame(output, channel);
+                }
+
+                long target = (long) tables * (round + 1);
+                bytes += await(channel, input, decoder, () -> text.houseResults >= target);
+            }
+
+            double seconds = (System.nanoTime() - start) / 1e9;
+            long events = decoder.getEventCount() - startEvents;
+            long played = (long) tables * rounds;
+
+            System.out.printf("tables=%d, rounds/table=%d, elapsed=%.2fs%n", tables, rounds, seconds);
+            System.out.printf("events=%d, events/s=%.0f, rounds/s=%.0f, errors=%d%n",
+                    events, events / seconds, played / seconds, decoder.getErrorCount());
+            System.out.printf("binary bytes/round=%.1f, log text bytes/round=%.1f%n",
+                    (bytes - startBytes) / (double) played, text.bytes / (double) played);
+        }
+        finally
+        {
+            front.close();
+            selector.join();
+            server.shutdown();
+        }
+    }
+
+    /**
+     * Utility method to start a command frame, leaving room for the length prefix.
+     */
+    private static void beginFrame(ByteBuffer output, int table, int commands)
+    {
+        output.clear();
+        output.putInt(0).putInt(table).put((byte) commands);
+    }
+
+    /**
+     * Utility method to fill in the length prefix and send the frame.
+     */
+    private static void endFrame(ByteBuffer output, SocketChannel channel) throws IOException
+    {
+        output.putInt(0, output.position() - Integer.BYTES);
+        output.flip();
+        while (output.hasRemaining())
+            channel.write(output);
+    }
+
+    /**
+     * Utility method to decode incoming frames until the condition holds.
+     *
+     * @return the number of bytes read
+     */
+    private static long await(SocketChannel channel, ByteBuffer input, WireEventDecoder decoder,
+                              BooleanSupplier done) throws IOException
+    {
+        long bytes = 0;
+
+        while (!done.getAsBoolean())
+        {
+            int read = channel.read(input);
+            if (read < 0)
+                throw new IOException("Connection closed");
+            bytes += read;
+
+            input.flip();
+            ByteBuffer frame;
+            while ((frame = WireProtocol.nextFrame(input)) != null)
+                decoder.decode(frame);
+            input.compact();
+        }
+        return bytes;
+    }
+
+    /**
+     * Counts the bytes the same events would take as the console log lines written by GameEngineCallbackImpl.
+     */
+    private static class TextSizeCallback implements GameEngineCallback
+    {
+        private long bytes;
+        private long houseResults;
+
+        @Override
+        public void nextCard(Player player, PlayingCard card, GameEngine engine)
+        {
+            bytes += String.format("Card Dealt to %s .. %s", player.getPlayerName(), card).length();
+        }
+
+        @Override
+        public void bustCard(Player player, PlayingCard card, GameEngine engine)
+        {
+            bytes += String.format("Card Dealt to %s .. %s ... YOU BUSTED!", player.getPlayerName(), card).length();
+        }
+
+        @Override
+        public void result(Player player, int result, GameEngine engine)
+        {
+            bytes += String.format("%s, final result=%d", player.getPlayerName(), result).length();
+        }
+
+        @Override
+        public void nextHouseCard(PlayingCard card, GameEngine engine)
+        {
+            bytes += String.format("Card Dealt to House .. %s", card).length();
+        }
+
+        @Override
+        public void houseBustCard(PlayingCard card, GameEngine engine)
+        {
+            bytes += String.format("Card Dealt to House .. %s ... HOUSE BUSTED!", card).length();
+        }
+
+        @Override
+        public void houseResult(int result, GameEngine engine)
+        {
+            bytes += String.format("House, final result=%d", result).length();
+            for (Player player : engine.getAllPlayers())
+                bytes += player.toString().length() + 1;
+            houseResults++;
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package model;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import model.interfaces.PlayingCard;
+
+/**
+ * <pre>A set of cards from the half deck stored as a single int bitmask.
+ *
+ * Since the half deck has only PlayingCard.DECK_SIZE (28) cards, bit n represents the card with
+ * ordinal n (suit ordinal * 7 + value ordinal). Add, remove and contains are single bit operations,
+ * size is a popcount and the total score is summed a suit at a time from a precomputed table.</pre>
+ */
+public final class CardSet implements Iterable<PlayingCard>
+{
+    private static final int VALUES = PlayingCard.Value.values().length;
+    private static final int SUITS = PlayingCard.Suit.values().length;
+    private static final int SUIT_MASK = (1 << VALUES) - 1;
+    private static final int FULL_MASK = (1 << PlayingCard.DECK_SIZE) - 1;
+    private static final int SUIT_STARTS = suitStarts();
+
+    // one canonical immutable card per ordinal
+    private static final PlayingCard[] CARDS = new PlayingCard[PlayingCard.DECK_SIZE];
+
+    // total score of every combination of face values within a single suit
+    private static final int[] SUIT_SCORES = new int[1 << VALUES];
+
+    static
+    {
+        for (PlayingCard.Suit suit : PlayingCard.Suit.values())
+        {
+            for (PlayingCard.Value value : PlayingCard.Value.values())
+                CARDS[suit.ordinal() * VALUES + value.ordinal()] =
+                        new PlayingCardImpl(suit, value, PlayingCardImpl.scoreOf(value));
+        }
+
+        for (int values = 1; values < SUIT_SCORES.length; values++)
+        {
+            int lowest = Integer.numberOfTrailingZeros(values);
+            SUIT_SCORES[values] = SUIT_SCORES[values & (values - 1)] + CARDS[lowest].getScore();
+        }
+    }
+
+    private int mask;
+
+    /**
+     * Creates an empty set.
+     */
+    public CardSet()
+    {
+    }
+
+    /**
+     * @param mask - the bitmask of card ordinals as returned by {@link #getMask()}
+     */
+    public CardSet(int mask)
+    {
+        if ((mask & ~FULL_MASK) != 0)
+            throw new IllegalArgumentException();
+
+        this.mask = mask;
+    }
+
+    /**
+     * @return a new set holding every card of the half deck
+     */
+    public static CardSet fullDeck()
+    {
+        return new CardSet(FULL_MASK);
+    }
+
+    /**
+     * @param card - any PlayingCard implementation
+     * @return the card's stable ordinal between 0 and DECK_SIZE - 1
+     */
+    public static int ordinal(PlayingCard card)
+    {
+        return card.getSuit().ordinal() * VALUES + card.getValue().ordinal();
+    }
+
+    /**
+     * @param ordinal - a card ordinal between 0 and DECK_SIZE - 1
+     * @return the shared immutable card with the ordinal
+     * @throws IllegalArgumentException if the ordinal does not identify a card
+     */
+    public static PlayingCard card(int ordinal) throws IllegalArgumentException
+    {
+        if (ordinal < 0 || ordinal >= CARDS.length)
+            throw new IllegalArgumentException("Invalid card ordinal: " + ordinal);
+
+        return CARDS[ordinal];
+    }
+
+    /**
+     * @param mask - a bitmask of card ordinals
+     * @return the total score of the cards in the mask
+     */
+    public static int scoreOf(int mask)
+    {
+        int score = 0;
+
+        for (int suit = 0; suit < SUITS; suit++)
+            score += SUIT_SCORES[(mask >>> (suit * VALUES)) & SUIT_MASK];
+
+        return score;
+    }
+
+    /**
+     * @param card - the card to add
+     * @return true if the card was not already in the set
+     */
+    public boolean add(PlayingCard card)
+    {
+        int bit = 1 << ordinal(card);
+        boolean added = (mask & bit) == 0;
+
+        mask |= bit;
+        return added;
+    }
+
+    /**
+     * @param card - the card to remove
+     * @return true if the card was in the set
+     */
+    public boolean remove(PlayingCard card)
+    {
+        int bit = 1 << ordinal(card);
+        boolean removed = (mask & bit) != 0;
+
+        mask &= ~bit;
+        return removed;
+    }
+
+    public boolean contains(PlayingCard card)
+    {
+        return (mask & (1 << ordinal(card))) != 0;
+    }
+
+    /**
+     * @param cards - the cards to add
+     */
+    public void addAll(CardSet cards)
+    {
+        mask |= cards.mask;
+    }
+
+    /**
+     * @param cards - the cards to remove
+     */
+    public void removeAll(CardSet cards)
+    {
+        mask &= ~cards.mask;
+    }
+
+    public void clear()
+    {
+        mask = 0;
+    }
+
+    public int size()
+    {
+        return Integer.bitCount(mask);
+    }
+
+    public boolean isEmpty()
+    {
+        return mask == 0;
+    }
+
+    /**
+     * @param value - a face value
+     * @return the number of cards in the set with the face value
+     */
+    public int count(PlayingCard.Value value)
+    {
+        return Integer.bitCount(mask & (SUIT_STARTS << value.ordinal()));
+    }
+
+    /**
+     * @return the total score of the cards in the set
+     */
+    public int getScore()
+    {
+        return scoreOf(mask);
+    }
+
+    /**
+     * @return a new set holding the half deck cards that are not in this set
+     */
+    public CardSet complement()
+    {
+        return new CardSet(~mask & FULL_MASK);
+    }
+
+    /**
+     * @return the bitmask of card ordinals in the set
+     */
+    public int getMask()
+    {
+        return mask;
+    }
+
+    /**
+     * Utility method to build the mask of the first ordinal of every suit.
+     *
+     * @return a mask with the lowest face value of each suit set
+     */
+    private static int suitStarts()
+    {
+        int starts = 0;
+
+        for (int suit = 0; suit < SUITS; suit++)
+            starts |= 1 << (suit * VALUES);
+
+        return starts;
+    }
+
+    @Override
+    public Iterator<PlayingCard> iterator()
+    {
+        return new Iterator<PlayingCard>()
+        {
+            private int remaining = mask;
+
+            @Override
+            public boolean hasNext()
+            {
+                return remaining != 0;
+            }
+
+            @Override
+            public PlayingCard next()
+            {
+                if (remaining == 0)
+                    throw new NoSuchElementException();
+
+                // take the lowest ordinal still to be visited
+                PlayingCard card = CARDS[Integer.numberOfTrailingZeros(remaining)];
+                remaining &= remaining - 1;
+                return card;
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object cards)
+    {
+        return cards instanceof CardSet && mask == ((CardSet) cards).mask;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return mask;
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder cards = new StringBuilder("[");
+
+        for (PlayingCard card : this)
+        {
+            if (cards.length() > 1)
+                cards.append(", ");
+            cards.append(card.getValue()).append(" of ").append(card.getSuit());
+        }
+        return cards.append("]").toString();
+    }
+}
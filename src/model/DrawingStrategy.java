@@ -0,0 +1,63 @@
+package model;
+
+import model.interfaces.GameEngine;
+import model.interfaces.PlayingCard;
+
+/**
+ * <pre>Decides whether a player draws another card, consulted by GameEngineImpl.dealPlayer before every card.
+ *
+ * The engine never deals past GameEngine.BUST_LEVEL whatever the strategy answers. Cards are passed as
+ * CardSet bitmasks, the seen cards being every card dealt from the current deck so far, including
+ * the player's own hand and other players' hands.</pre>
+ */
+public interface DrawingStrategy
+{
+    /**
+     * The engine's original rule, draw until reaching GameEngine.BUST_LEVEL.
+     */
+    DrawingStrategy DRAW_TO_BUST_LEVEL = (points, handMask, seenMask) -> true;
+
+    /**
+     * @param points - the player's points so far
+     * @param handMask - the cards in the player's hand
+     * @param seenMask - the cards dealt from the current deck so far
+     * @return true to draw another card
+     */
+    boolean shouldDraw(int points, int handMask, int seenMask);
+
+    /**
+     * @param threshold - the points at which the player stops drawing
+     * @return a strategy drawing while the player's points are below the threshold
+     */
+    static DrawingStrategy stopAt(int threshold)
+    {
+        return (points, handMask, seenMask) -> points < threshold;
+    }
+
+    /**
+     * Counts the cards remaining in the deck, i.e. those not seen, and only draws while few enough of
+     * them would take the player over the bust level.
+     *
+     * @param maxBustChance - the highest chance of busting on the next card the player accepts
+     * @return a strategy deciding on the cards seen so far
+     */
+    static DrawingStrategy limitBustChance(double maxBustChance)
+    {
+        return (points, handMask, seenMask) ->
+        {
+            CardSet remaining = new CardSet(seenMask).complement();
+            int busting = 0;
+
+            // an exhausted deck is replaced by a full one
+            if (remaining.isEmpty())
+                remaining = CardSet.fullDeck();
+
+            for (PlayingCard card : remaining)
+            {
+                if (points + card.getScore() > GameEngine.BUST_LEVEL)
+                    busting++;
+            }
+            return busting <= maxBustChance * remaining.size();
+        };
+    }
+}
@@ -0,0 +1,277 @@
+package model;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import model.interfaces.Player;
+import model.interfaces.PlayingCard;
+import view.interfaces.GameEngineCallback;
+
+/**
+ * <pre>Compact binary checkpoint of a live GameEngineImpl, restorable on another engine mid-round.
+ *
+ * A checkpoint holds the remaining deck in order, the cards dealt so far, every seated player with
+ * their points, bet, result and hand, the round phase and a descriptor of every registered callback.
+ * Callbacks are objects and cannot be copied, on restore each descriptor is passed to a resolver
+ * which supplies the callback to register, e.g. the same instance when moving within a process.
+ *
+ * Layout: int MAGIC, byte phase, byte deck size and the deck's card ordinals, int dealt cards mask,
+ * int house hand mask, short player count and per player string id, string name, int points,
+ * int bet, int result, int hand mask, then short callback count and per callback string class
+ * name and byte event mask. Strings are a short length followed by UTF-8 bytes.
+ *
+ * Players are restored as SimplePlayers.</pre>
+ */
+public final class EngineCheckpoint
+{
+    private static final int MAGIC = 0x43484B31;
+    private static final GameEvent.Type[] EVENT_TYPES = GameEvent.Type.values();
+
+    public enum Phase
+    {
+        BETWEEN_ROUNDS, BETTING, DEALING
+    }
+
+    private EngineCheckpoint()
+    {
+    }
+
+    /**
+     * @param engine - the engine to checkpoint, it must not be dealing on another thread
+     * @return the checkpoint
+     */
+    public static byte[] checkpoint(GameEngineImpl engine)
+    {
+        List<GameEngineCallback> callbacks = engine.getCallbacks();
+        int size = 4 + 1 + 1 + PlayingCard.DECK_SIZE + 4 + 4 + 2 + 2;
+
+        for (Player player : engine.getAllPlayers())
+            size += 4 + (player.getPlayerId().length() + player.getPlayerName().length()) * 3 + 16;
+        for (GameEngineCallback callback : callbacks)
+            size += 2 + callback.getClass().getName().length() * 3 + 1;
+
+        ByteBuffer snapshot = ByteBuffer.allocate(size);
+        snapshot.putInt(MAGIC);
+        snapshot.put((byte) phaseOf(engine).ordinal());
+
+        Deque<PlayingCard> deck = engine.getDeck();
+        snapshot.put((byte) deck.size());
+        for (PlayingCard card : deck)
+            snapshot.put((byte) CardSet.ordinal(card));
+
+        snapshot.putInt(engine.getDealtCards().getMask());
+        snapshot.putInt(engine.getHouseHand().getMask());
+
+        snapshot.putShort((short) engine.getAllPlayers().size());
+        for (Player player : engine.getAllPlayers())
+        {
+            putString(snapshot, player.getPlayerId());
+            putString(snapshot, player.getPlayerName());
+            snapshot.putInt(player.getPoints());
+            snapshot.putInt(player.getBet());
+            snapshot.putInt(player.getResult());
+            snapshot.putInt(engine.getHand(player).getMask());
+        }
+
+        snapshot.putShort((short) callbacks.size());
+        for (GameEngineCallback callback : callbacks)
+        {
+            int events = 0;
+            for (GameEvent.Type type : engine.getEvents(callback))
+                events |= 1 << type.ordinal();
+
+            putString(snapshot, callback.getClass().getName());
+            snapshot.put((byte) events);
+        }
+
+        byte[] checkpoint = new byte[snapshot.position()];
+        System.arraycopy(snapshot.array(), 0, checkpoint, 0, checkpoint.length);
+        return checkpoint;
+    }
+
+    /**
+     * @param checkpoint - a checkpoint created by {@link #checkpoint(GameEngineImpl)}
+     * @param resolver - supplies the callback for each descriptor, or null to leave it out
+     * @return a new engine in the checkpointed state, ready to continue the round
+     * @throws IllegalArgumentException if the checkpoint is not valid
+     */
+    public static GameEngineImpl restore(byte[] checkpoint, Function<CallbackDescriptor, GameEngineCallback> resolver)
+            throws IllegalArgumentException
+    {
+        return restore(checkpoint, resolver, new GameEngineImpl());
+    }
+
+    /**
+     * @param checkpoint - a checkpoint created by {@link #checkpoint(GameEngineImpl)}
+     * @param resolver - supplies the callback for each descriptor, or null to leave it out
+     * @param engine - a new or reset engine to restore into, e.g. one acquired from an EnginePool
+     * @return the engine, now in the checkpointed state and ready to continue the round
+     * @throws IllegalArgumentException if the checkpoint is not valid or the engine already has players
+     */
+    public static GameEngineImpl restore(byte[] checkpoint, Function<CallbackDescriptor, GameEngineCallback> resolver,
+                                         GameEngineImpl engine) throws IllegalArgumentException
+    {
+        if (!engine.getAllPlayers().isEmpty())
+            throw new IllegalArgumentException("Engine is in use");
+
+        try
+        {
+            ByteBuffer snapshot = ByteBuffer.wrap(checkpoint);
+            if (snapshot.getInt() != MAGIC)
+                throw new IllegalArgumentException("Not an engine checkpoint");
+
+            snapshot.get();
+
+            Deque<PlayingCard> deck = new LinkedList<>();
+            for (int count = snapshot.get(); count > 0; count--)
+                deck.add(CardSet.card(snapshot.get()));
+
+            int dealtMask = snapshot.getInt();
+            int houseMask = snapshot.getInt();
+            Map<String, CardSet> hands = new HashMap<>();
+
+            for (int count = snapshot.getShort(); count > 0; count--)
+            {
+                SimplePlayer player = new SimplePlayer(getString(snapshot), getString(snapshot), snapshot.getInt());
+                int bet = snapshot.getInt();
+                int result = snapshot.getInt();
+                int handMask = snapshot.getInt();
+
+                // a bet in progress was within the points when placed and points only change at settlement
+                if (bet > 0 && !player.setBet(bet))
+                    throw new IllegalArgumentException("Invalid bet for player " + player.getPlayerId());
+                player.setResult(result);
+                engine.addPlayer(player);
+
+                if (handMask != 0)
+                    hands.put(player.getPlayerId(), new CardSet(handMask));
+            }
+            engine.restoreDeal(deck, dealtMask, houseMask, hands);
+
+            for (int index = 0, count = snapshot.getShort(); index < count; index++)
+            {
+                CallbackDescriptor descriptor = new CallbackDescriptor(index, getString(snapshot), snapshot.get());
+                GameEngineCallback callback = resolver.apply(descriptor);
+
+                if (callback != null)
+                    engine.addGameEngineCallback(callback, descriptor.getEvents());
+            }
+            return engine;
+        }
+        catch (BufferUnderflowException exception)
+        {
+            throw new IllegalArgumentException("Truncated engine checkpoint", exception);
+        }
+    }
+
+    /**
+     * @param checkpoint - a checkpoint created by {@link #checkpoint(GameEngineImpl)}
+     * @return the round phase the engine was in
+     */
+    public static Phase readPhase(byte[] checkpoint)
+    {
+        return Phase.values()[checkpoint[4]];
+    }
+
+    /**
+     * @param engine - an engine
+     * @return the phase of the engine's current round
+     */
+    public static Phase phaseOf(GameEngineImpl engine)
+    {
+        boolean betting = false;
+
+        for (Player player : engine.getAllPlayers())
+        {
+            if (!engine.getHand(player).isEmpty())
+                return Phase.DEALING;
+            betting |= player.getBet() > 0;
+        }
+        return betting ? Phase.BETTING : Phase.BETWEEN_ROUNDS;
+    }
+
+    /**
+     * Resolver that registers the source engine's own callback instances on the restored engine,
+     * for moving an engine within the same process.
+     *
+     * @param source - the engine the checkpoint was taken from
+     * @return the resolver
+     */
+    public static Function<CallbackDescriptor, GameEngineCallback> sameInstances(GameEngineImpl source)
+    {
+        List<GameEngineCallback> callbacks = source.getCallbacks();
+
+        return descriptor -> descriptor.getIndex() < callbacks.size()
+                && callbacks.get(descriptor.getIndex()).getClass().getName().equals(descriptor.getClassName()) ?
+                callbacks.get(descriptor.getIndex()) : null;
+    }
+
+    private static void putString(ByteBuffer buffer, String value)
+    {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer)
+    {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Describes a callback registered with a checkpointed engine.
+     */
+    public static class CallbackDescriptor
+    {
+        private final int index;
+        private final String className;
+        private final Set<GameEvent.Type> events;
+
+        private CallbackDescriptor(int index, String className, int eventMask)
+        {
+            this.index = index;
+            this.className = className;
+
+            Set<GameEvent.Type> types = EnumSet.noneOf(GameEvent.Type.class);
+            for (GameEvent.Type type : EVENT_TYPES)
+            {
+                if ((eventMask & (1 << type.ordinal())) != 0)
+                    types.add(type);
+            }
+            this.events = Collections.unmodifiableSet(types);
+        }
+
+        /**
+         * @return the position of the callback in the order callbacks were added
+         */
+        public int getIndex()
+        {
+            return index;
+        }
+
+        public String getClassName()
+        {
+            return className;
+        }
+
+        /**
+         * @return the types of event the callback was registered for
+         */
+        public Set<GameEvent.Type> getEvents()
+        {
+            return events;
+        }
+    }
+}
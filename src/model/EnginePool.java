@@ -0,0 +1,245 @@
+package model;
+
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import model.interfaces.GameEngine;
+import model.interfaces.Player;
+import model.interfaces.PlayingCard;
+import view.interfaces.GameEngineCallback;
+
+/**
+ * <pre>Pool of clean GameEngineImpl instances so opening a table does not build an engine on the spot.
+ *
+ * Engines are built when the pool is created and reset when released, so the deck shuffle and the
+ * collections are ready before the next table asks for an engine. {@link #warmUp(int)} plays rounds on
+ * scratch engines first so the deal, dispatch, settle and reset paths are already compiled by the JIT when
+ * the first real round is dealt. The pool is safe to use from any thread, released engines must no
+ * longer be used by their previous owner.
+ *
+ * Once an acquire leaves fewer than lowWatermark engines idle, or finds none, a background thread builds
+ * engines until the pool is full again, so a surge of tables opened before any closes is served from the
+ * pool for as long as the refill keeps up rather than only until the first capacity engines are gone.
+ * The thread exits once the pool is full, a lowWatermark of 0 turns refilling off.</pre>
+ */
+public class EnginePool
+{
+    public static final int DEFAULT_WARM_UP_ROUNDS = 20000;
+
+    private final int capacity;
+    private final int lowWatermark;
+    private final Deque<GameEngineImpl> idle = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder refilled = new LongAdder();
+    private final AtomicBoolean refilling = new AtomicBoolean();
+
+    /**
+     * @param capacity - the number of engines built up front and the most kept idle, refilled in the
+     *                   background once fewer than a quarter of them are idle
+     */
+    public EnginePool(int capacity)
+    {
+        this(capacity, capacity / 4);
+    }
+
+    /**
+     * @param capacity - the number of engines built up front and the most kept idle
+     * @param lowWatermark - the number of idle engines below which the pool is refilled in the background,
+     *                       or 0 to build engines only when they are acquired from an empty pool
+     */
+    public EnginePool(int capacity, int lowWatermark)
+    {
+        if (capacity < 0 || lowWatermark < 0 || lowWatermark > capacity)
+            throw new IllegalArgumentException();
+
+        this.capacity = capacity;
+        this.lowWatermark = lowWatermark;
+
+        for (int count = 0; count < capacity; count++)
+            idle.push(new GameEngineImpl());
+        idleCount.set(capacity);
+    }
+
+    /**
+     * @return a clean engine, built now if the pool is empty
+     */
+    public GameEngineImpl acquire()
+    {
+        GameEngineImpl engine = idle.poll();
+
+        if (engine == null)
+        {
+            misses.increment();
+            startRefill();
+            return new GameEngineImpl();
+        }
+        if (idleCount.decrementAndGet() < lowWatermark)
+            startRefill();
+        hits.increment();
+        return engine;
+    }
+
+    /**
+     * Resets the engine and keeps it for the next acquire unless the pool is full.
+     *
+     * @param engine - an engine no longer used by its table
+     */
+    public void release(GameEngineImpl engine)
+    {
+        engine.reset();
+
+        if (idleCount.incrementAndGet() <= capacity)
+            idle.push(engine);
+        else
+            idleCount.decrementAndGet();
+    }
+
+    public int getIdleCount()
+    {
+        return idleCount.get();
+    }
+
+    /**
+     * @return the number of acquires served from the pool
+     */
+    public long getHitCount()
+    {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of acquires that had to build an engine
+     */
+    public long getMissCount()
+    {
+        return misses.sum();
+    }
+
+    /**
+     * @return the number of engines built in the background
+     */
+    public long getRefilledCount()
+    {
+        return refilled.sum();
+    }
+
+    /**
+     * Utility method to start the refill thread unless refilling is off or it is already running.
+     */
+    private void startRefill()
+    {
+        if (lowWatermark == 0 || !refilling.compareAndSet(false, true))
+            return;
+
+        Thread thread = new Thread(this::refill, "engine-pool-refill");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Utility method run on the refill thread to build engines until the pool is full.
+     */
+    private void refill()
+    {
+        do
+        {
+            try
+            {
+                while (idleCount.get() < capacity)
+                {
+                    GameEngineImpl engine = new GameEngineImpl();
+
+                    // releases may have filled the pool while the engine was built
+                    if (idleCount.incrementAndGet() > capacity)
+                    {
+                        idleCount.decrementAndGet();
+                        break;
+                    }
+                    idle.push(engine);
+                    refilled.increment();
+                }
+            }
+            finally
+            {
+                refilling.set(false);
+            }
+
+            // re-check in case an acquire went below the watermark after the last check but before the flag was cleared
+        } while (idleCount.get() < lowWatermark && refilling.compareAndSet(false, true));
+    }
+
+    /**
+     * Utility method to play rounds on scratch engines from a scratch pool, with a callback registered for
+     * every event, so the JIT compiles the paths of a real round before one is dealt.
+     *
+     * @param rounds - the number of rounds to play
+     */
+    public static void warmUp(int rounds)
+    {
+        EnginePool scratch = new EnginePool(1);
+        GameEngineImpl engine = scratch.acquire();
+        Player first = new SimplePlayer("1", "Warm Up", Integer.MAX_VALUE / 2);
+        Player second = new SimplePlayer("2", "Warm Up", Integer.MAX_VALUE / 2);
+        engine.addGameEngineCallback(new WarmUpCallback());
+
+        for (int round = 0; round < rounds; round++)
+        {
+            engine.addPlayer(first);
+            engine.addPlayer(second);
+            engine.placeBet(first, 1);
+            engine.placeBet(second, 1);
+            engine.dealPlayer(first, 0);
+            engine.dealPlayer(second, 0);
+            engine.dealHouse(0);
+
+            // as if the table closed and another opened, so the release, reset and acquire paths are compiled too
+            if (round % 10 == 0)
+            {
+                scratch.release(engine);
+                engine = scratch.acquire();
+                engine.addGameEngineCallback(new WarmUpCallback());
+            }
+        }
+    }
+
+    /**
+     * Callback that does nothing, so warming up exercises event dispatch without side effects.
+     */
+    private static class WarmUpCallback implements GameEngineCallback
+    {
+        @Override
+        public void nextCard(Player player, PlayingCard card, GameEngine engine)
+        {
+        }
+
+        @Override
+        public void bustCard(Player player, PlayingCard card, GameEngine engine)
+        {
+        }
+
+        @Override
+        public void result(Player player, int result, GameEngine engine)
+        {
+        }
+
+        @Override
+        public void nextHouseCard(PlayingCard card, GameEngine engine)
+        {
+        }
+
+        @Override
+        public void houseBustCard(PlayingCard card, GameEngine engine)
+        {
+        }
+
+        @Override
+        public void houseResult(int result, GameEngine engine)
+        {
+        }
+    }
+}
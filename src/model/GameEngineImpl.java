@@ -3,6 +3,11 @@ package model;
 import java.util.List;
 import java.util.LinkedList;
 import java.util.Map;
+import java.util.HashMap;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.ArrayList;
 import java.util.TreeMap;
 import java.util.Deque;
 import java.util.Collection;
@@ -19,11 +24,20 @@ public class GameEngineImpl implements GameEngine
     private Deque<PlayingCard> deck;
     private Map<String, Player> players = new TreeMap<>();
     private List<GameEngineCallback> callbacks = new LinkedList<>();
+    private Map<GameEvent.Type, List<GameEngineCallback>> listeners = new EnumMap<>(GameEvent.Type.class);
+    private CardSet dealtCards = new CardSet();
+    private Map<String, CardSet> hands = new HashMap<>();
+    private CardSet houseHand = new CardSet();
+    private Map<String, DrawingStrategy> strategies = new HashMap<>();
 
     public GameEngineImpl()
     {
         // Initialise the deck of cards
         this.deck = getShuffledHalfDeck();
+
+        // separate dispatch list per event type so events are only delivered to interested callbacks
+        for (GameEvent.Type type : GameEvent.Type.values())
+            listeners.put(type, new ArrayList<>());
     }
 
     @Override
@@ -38,11 +52,15 @@ public class GameEngineImpl implements GameEngine
 
         PlayingCard card;
         int playerPoints = 0;
+        CardSet hand = new CardSet();
+        hands.put(player.getPlayerId(), hand);
+        DrawingStrategy strategy = getDrawingStrategy(player);
 
-        while (playerPoints < BUST_LEVEL)
+        while (playerPoints < BUST_LEVEL && strategy.shouldDraw(playerPoints, hand.getMask(), dealtCards.getMask()))
         {
             // get a card from the top of the deck
-            card = dealCard(delay);
+            card = dealCard(delay, hand);
+            hand.add(card);
             playerPoints += card.getScore();
 
             // log the events of this round
@@ -60,7 +78,7 @@ public class GameEngineImpl implements GameEngine
         player.setResult(playerPoints);
 
         // log the player's results of the round
-        for (GameEngineCallback callback : callbacks)
+        for (GameEngineCallback callback : listeners.get(GameEvent.Type.RESULT))
             callback.result(player, playerPoints, this);
     }
 
@@ -72,11 +90,13 @@ public class GameEngineImpl implements GameEngine
 
         PlayingCard card;
         int housePoints = 0;
+        houseHand.clear();
 
         while (housePoints < BUST_LEVEL)
         {
             // get a card from the top of the deck
-            card = dealCard(delay);
+            card = dealCard(delay, houseHand);
+            houseHand.add(card);
             housePoints += card.getScore();
 
             // log the events of this round
@@ -95,24 +115,28 @@ public class GameEngineImpl implements GameEngine
             applyWinLoss(player, housePoints);
 
         // log final results once round ends
-        for (GameEngineCallback callback : callbacks)
+        for (GameEngineCallback callback : listeners.get(GameEvent.Type.HOUSE_RESULT))
             callback.houseResult(housePoints, this);
 
         // reset players' previous bet for next round
         for (Player player : players.values())
             player.resetBet();
 
-        // reset the deck of cards once round ends
+        // reset the deck of cards and the hands once round ends
+        hands.clear();
+        houseHand.clear();
         deck = getShuffledHalfDeck();
+        dealtCards.clear();
     }
 
     /**
      * Utility method to deal a card from the deck.
      *
      * @param delay - the delay in between dealing a card
+     * @param hand - the hand the card is dealt into
      * @return a PlayingCard removed from the top of the deck
      */
-    private PlayingCard dealCard(int delay)
+    private PlayingCard dealCard(int delay, CardSet hand)
     {
         PlayingCard card = null;
 
@@ -120,6 +144,7 @@ public class GameEngineImpl implements GameEngine
         {
             Thread.sleep(delay);
             card = deck.pop();
+            dealtCards.add(card);
         }
         catch (InterruptedException exception)
         {
@@ -127,9 +152,13 @@ public class GameEngineImpl implements GameEngine
         }
         catch (NoSuchElementException exception)
         {
-            // Get a new deck if the current deck runs out of cards
+            // Get a new deck if the current deck runs out of cards, without the cards of the hand being dealt so
+            // no hand holds a card twice, cards in other hands of this round may come up again as from a 2nd deck
             deck = getShuffledHalfDeck();
+            deck.removeIf(hand::contains);
+            dealtCards = new CardSet(hand.getMask());
             card = deck.pop();
+            dealtCards.add(card);
         }
 
         return card;
@@ -143,13 +172,16 @@ public class GameEngineImpl implements GameEngine
      */
     private void logPlayer(Player player, PlayingCard card, int playerPoints)
     {
-        for (GameEngineCallback callback : callbacks)
+        if (playerPoints > BUST_LEVEL)
         {
-            if (playerPoints > BUST_LEVEL)
-                // log the details of the card that caused the bust
+            // log the details of the card that caused the bust
+            for (GameEngineCallback callback : listeners.get(GameEvent.Type.BUST_CARD))
                 callback.bustCard(player, card, this);
-            else
-                // log the details of the dealt card
+        }
+        else
+        {
+            // log the details of the dealt card
+            for (GameEngineCallback callback : listeners.get(GameEvent.Type.NEXT_CARD))
                 callback.nextCard(player, card, this);
         }
     }
@@ -162,13 +194,16 @@ public class GameEngineImpl implements GameEngine
      */
     private void logHouse(PlayingCard card, int housePoints)
     {
-        for (GameEngineCallback callback : callbacks)
+        if (housePoints > BUST_LEVEL)
         {
-            if (housePoints > BUST_LEVEL)
-                // log the details of the card that caused the bust
+            // log the details of the card that caused the bust
+            for (GameEngineCallback callback : listeners.get(GameEvent.Type.HOUSE_BUST_CARD))
                 callback.houseBustCard(card, this);
-            else
-                // log the details of the dealt card
+        }
+        else
+        {
+            // log the details of the dealt card
+            for (GameEngineCallback callback : listeners.get(GameEvent.Type.NEXT_HOUSE_CARD))
                 callback.nextHouseCard(card, this);
         }
     }
@@ -207,6 +242,7 @@ public class GameEngineImpl implements GameEngine
         if (players.containsKey(player.getPlayerId()))
         {
             players.remove(player.getPlayerId());
+            strategies.remove(player.getPlayerId());
             return true;
         }
         return false;
@@ -221,8 +257,23 @@ public class GameEngineImpl implements GameEngine
     @Override
     public void addGameEngineCallback(GameEngineCallback gameEngineCallback)
     {
-        // add game engine callback
+        // add game engine callback for every type of event
+        addGameEngineCallback(gameEngineCallback, EnumSet.allOf(GameEvent.Type.class));
+    }
+
+    /**
+     * Registers a callback for only the given types of event, the callback's other methods are never called.
+     * Callbacks are still called in the order they were added.
+     *
+     * @param gameEngineCallback - the callback to add
+     * @param events - the types of event the callback consumes
+     */
+    public void addGameEngineCallback(GameEngineCallback gameEngineCallback, Set<GameEvent.Type> events)
+    {
         callbacks.add(gameEngineCallback);
+
+        for (GameEvent.Type type : events)
+            listeners.get(type).add(gameEngineCallback);
     }
 
     @Override
@@ -232,6 +283,8 @@ public class GameEngineImpl implements GameEngine
         if (callbacks.contains(gameEngineCallback))
         {
             callbacks.remove(gameEngineCallback);
+            for (List<GameEngineCallback> typeListeners : listeners.values())
+                typeListeners.remove(gameEngineCallback);
             return true;
         }
         return false;
@@ -244,6 +297,126 @@ public class GameEngineImpl implements GameEngine
         return Collections.unmodifiableCollection(players.values());
     }
 
+    /**
+     * Sets how a player decides whether to draw another card, kept until the player is removed.
+     * Strategies are objects and are not included in an EngineCheckpoint.
+     *
+     * @param player - the player the strategy is for
+     * @param strategy - the strategy, or null to restore DrawingStrategy.DRAW_TO_BUST_LEVEL
+     */
+    public void setDrawingStrategy(Player player, DrawingStrategy strategy)
+    {
+        if (strategy == null || strategy == DrawingStrategy.DRAW_TO_BUST_LEVEL)
+            strategies.remove(player.getPlayerId());
+        else
+            strategies.put(player.getPlayerId(), strategy);
+    }
+
+    /**
+     * @param player - a player
+     * @return the player's strategy, DrawingStrategy.DRAW_TO_BUST_LEVEL unless another was set
+     */
+    public DrawingStrategy getDrawingStrategy(Player player)
+    {
+        return strategies.getOrDefault(player.getPlayerId(), DrawingStrategy.DRAW_TO_BUST_LEVEL);
+    }
+
+    /**
+     * @return the cards dealt from the current deck so far, the remaining deck is its complement
+     */
+    public CardSet getDealtCards()
+    {
+        return new CardSet(dealtCards.getMask());
+    }
+
+    /**
+     * @param player - the player whose hand to retrieve
+     * @return the cards dealt to the player this round, empty if the player has not been dealt
+     */
+    public CardSet getHand(Player player)
+    {
+        CardSet hand = hands.get(player.getPlayerId());
+        return hand == null ? new CardSet() : new CardSet(hand.getMask());
+    }
+
+    /**
+     * @return the cards dealt to the house this round
+     */
+    public CardSet getHouseHand()
+    {
+        return new CardSet(houseHand.getMask());
+    }
+
+    /**
+     * Returns the engine to the state of a new engine in place, reusing its collections, so it can be
+     * handed to another table. Players are removed with their bets reset, since a round the table did
+     * not finish is void, and every callback and drawing strategy is removed. A fresh deck is shuffled.
+     */
+    public void reset()
+    {
+        for (Player player : players.values())
+            player.resetBet();
+
+        players.clear();
+        callbacks.clear();
+        for (List<GameEngineCallback> typeListeners : listeners.values())
+            typeListeners.clear();
+        strategies.clear();
+
+        hands.clear();
+        houseHand.clear();
+        dealtCards.clear();
+        deck = getShuffledHalfDeck();
+    }
+
+    /**
+     * @return the remaining deck, top card first, for EngineCheckpoint
+     */
+    Deque<PlayingCard> getDeck()
+    {
+        return deck;
+    }
+
+    /**
+     * @return the callbacks in the order they were added, for EngineCheckpoint
+     */
+    List<GameEngineCallback> getCallbacks()
+    {
+        return Collections.unmodifiableList(callbacks);
+    }
+
+    /**
+     * @param gameEngineCallback - a registered callback
+     * @return the types of event the callback was registered for, for EngineCheckpoint
+     */
+    Set<GameEvent.Type> getEvents(GameEngineCallback gameEngineCallback)
+    {
+        Set<GameEvent.Type> events = EnumSet.noneOf(GameEvent.Type.class);
+
+        for (Map.Entry<GameEvent.Type, List<GameEngineCallback>> typeListeners : listeners.entrySet())
+        {
+            if (typeListeners.getValue().contains(gameEngineCallback))
+                events.add(typeListeners.getKey());
+        }
+        return events;
+    }
+
+    /**
+     * Replaces the deck and the cards dealt so far, used by EngineCheckpoint to resume a round.
+     *
+     * @param deck - the remaining deck, top card first
+     * @param dealtMask - the cards dealt from the deck so far
+     * @param houseMask - the cards dealt to the house this round
+     * @param playerHands - the cards dealt to each player this round by player id
+     */
+    void restoreDeal(Deque<PlayingCard> deck, int dealtMask, int houseMask, Map<String, CardSet> playerHands)
+    {
+        this.deck = deck;
+        dealtCards = new CardSet(dealtMask);
+        houseHand = new CardSet(houseMask);
+        hands = new HashMap<>(playerHands);
+    }
+
     @Override
     public Deque<PlayingCard> getShuffledHalfDeck()
     {
@@ -255,21 +428,7 @@ public class GameEngineImpl implements GameEngine
             for (PlayingCard.Value value : PlayingCard.Value.values())
             {
                 // points for ace = 11, king, queen, jack = 10, rest of their face value
-                switch (value)
-                {
-                    case ACE:
-                        deck.add(new PlayingCardImpl(suit, value, 11));
-                        break;
-                    case EIGHT:
-                        deck.add(new PlayingCardImpl(suit, value, 8));
-                        break;
-                    case NINE:
-                        deck.add(new PlayingCardImpl(suit, value, 9));
-                        break;
-                    default:
-                        deck.add(new PlayingCardImpl(suit, value, 10));
-                        break;
-                }
+                deck.add(new PlayingCardImpl(suit, value, PlayingCardImpl.scoreOf(value)));
             }
         }
 
@@ -0,0 +1,133 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import model.interfaces.GameEngine;
+import model.interfaces.Player;
+import model.interfaces.PlayingCard;
+
+/**
+ * An immutable record of a single GameEngineCallback notification, for consumers that receive
+ * the engine's events as a stream rather than as direct method calls.
+ *
+ * Players are copied (see SimplePlayer.copyOf) as they are at the time of the call, so an event
+ * handled later still shows the points, bet and result the player had when it was raised.
+ */
+public class GameEvent
+{
+    public enum Type
+    {
+        NEXT_CARD, BUST_CARD, RESULT, NEXT_HOUSE_CARD, HOUSE_BUST_CARD, HOUSE_RESULT
+    }
+
+    private final Type type;
+    private final Player player;
+    private final PlayingCard card;
+    private final int result;
+    private final Collection<Player> players;
+    private final GameEngine engine;
+
+    private GameEvent(Type type, Player player, PlayingCard card, int result, Collection<Player> players,
+                      GameEngine engine)
+    {
+        this.type = type;
+        this.player = player;
+        this.card = card;
+        this.result = result;
+        this.players = players;
+        this.engine = engine;
+    }
+
+    public static GameEvent nextCard(Player player, PlayingCard card, GameEngine engine)
+    {
+        return new GameEvent(Type.NEXT_CARD, SimplePlayer.copyOf(player), card, 0, Collections.emptyList(), engine);
+    }
+
+    public static GameEvent bustCard(Player player, PlayingCard card, GameEngine engine)
+    {
+        return new GameEvent(Type.BUST_CARD, SimplePlayer.copyOf(player), card, 0, Collections.emptyList(), engine);
+    }
+
+    public static GameEvent result(Player player, int result, GameEngine engine)
+    {
+        return new GameEvent(Type.RESULT, SimplePlayer.copyOf(player), null, result, Collections.emptyList(), engine);
+    }
+
+    public static GameEvent nextHouseCard(PlayingCard card, GameEngine engine)
+    {
+        return new GameEvent(Type.NEXT_HOUSE_CARD, null, card, 0, Collections.emptyList(), engine);
+    }
+
+    public static GameEvent houseBustCard(PlayingCard card, GameEngine engine)
+    {
+        return new GameEvent(Type.HOUSE_BUST_CARD, null, card, 0, Collections.emptyList(), engine);
+    }
+
+    /**
+     * The players are copied settled but with their bets not yet reset.
+     */
+    public static GameEvent houseResult(int result, GameEngine engine)
+    {
+        List<Player> players = new ArrayList<>(engine.getAllPlayers().size());
+
+        for (Player player : engine.getAllPlayers())
+            players.add(SimplePlayer.copyOf(player));
+
+        return new GameEvent(Type.HOUSE_RESULT, null, null, result, Collections.unmodifiableList(players), engine);
+    }
+
+    public Type getType()
+    {
+        return type;
+    }
+
+    /**
+     * @return a copy of the player the event is about, or null for house events
+     */
+    public Player getPlayer()
+    {
+        return player;
+    }
+
+    /**
+     * @return the dealt card, or null for result events
+     */
+    public PlayingCard getCard()
+    {
+        return card;
+    }
+
+    /**
+     * @return the final result for RESULT and HOUSE_RESULT events, otherwise 0
+     */
+    public int getResult()
+    {
+        return result;
+    }
+
+    /**
+     * @return copies of all players at the end of the round for HOUSE_RESULT events, otherwise empty
+     */
+    public Collection<Player> getPlayers()
+    {
+        return players;
+    }
+
+    /**
+     * @return the engine that raised the event
+     */
+    public GameEngine getEngine()
+    {
+        return engine;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("Event: type=%s, player=%s, card=%s, result=%d",
+                type, player == null ? "House" : player.getPlayerName(), card, result);
+    }
+}
@@ -60,8 +60,38 @@ public class PlayingCardImpl implements PlayingCard
     @Override
     public int hashCode()
     {
-        // hashcode generated based on the card's suit and face value attributes
-        return SUIT.hashCode() + VALUE.hashCode();
+        // the ordinal is unique per suit and face value and stable across runs
+        return getOrdinal();
+    }
+
+    /**
+     * @return the card's position in a sorted half deck, between 0 and DECK_SIZE - 1
+     * @see CardSet#ordinal(PlayingCard)
+     */
+    public int getOrdinal()
+    {
+        return CardSet.ordinal(this);
+    }
+
+    /**
+     * Utility method to look up the score of a face value.
+     *
+     * @param value - enum constant of type Value
+     * @return the points for the value, ace = 11, king, queen, jack = 10, rest of their face value
+     */
+    public static int scoreOf(PlayingCard.Value value)
+    {
+        switch (value)
+        {
+            case ACE:
+                return 11;
+            case EIGHT:
+                return 8;
+            case NINE:
+                return 9;
+            default:
+                return 10;
+        }
     }
 
     /**
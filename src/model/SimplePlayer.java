@@ -20,6 +20,22 @@ public class SimplePlayer implements Player
         this.initialPoints = initialPoints;
     }
 
+    /**
+     * Utility method to take a detached snapshot of a player.
+     *
+     * @param player - the player to copy
+     * @return a new SimplePlayer with the same id, name, points, bet and result
+     */
+    public static SimplePlayer copyOf(Player player)
+    {
+        SimplePlayer copy = new SimplePlayer(player.getPlayerId(), player.getPlayerName(), player.getPoints());
+
+        // copied directly since a settled bet may exceed the player's remaining points
+        copy.bet = player.getBet();
+        copy.result = player.getResult();
+        return copy;
+    }
+
     @Override
     public String getPlayerName()
     {
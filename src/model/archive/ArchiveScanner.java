@@ -0,0 +1,228 @@
+package model.archive;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import model.CardSet;
+import model.interfaces.PlayingCard;
+
+/**
+ * <pre>Computes aggregates over every segment of an archive directory.
+ *
+ * Each aggregate decodes only the columns it needs, e.g. the house bust rate reads a single bit
+ * per round, so a scan touches a small fraction of the archive. {@link #getBytesRead()} reports
+ * how much was actually read.</pre>
+ *
+ * @see ArchiveWriter
+ */
+public class ArchiveScanner implements Closeable
+{
+    private static final PlayingCard.Value[] VALUES = PlayingCard.Value.values();
+
+    private final List<ArchiveSegment> segments = new ArrayList<>();
+
+    /**
+     * @param directory - a directory written by an ArchiveWriter
+     * @throws IOException if a segment cannot be opened
+     */
+    public ArchiveScanner(Path directory) throws IOException
+    {
+        try
+        {
+            for (Path path : segmentPaths(directory))
+                segments.add(ArchiveSegment.open(path));
+        }
+        catch (IOException exception)
+        {
+            close();
+            throw exception;
+        }
+    }
+
+    /**
+     * @return the segments in the order they were written
+     */
+    public List<ArchiveSegment> getSegments()
+    {
+        return Collections.unmodifiableList(segments);
+    }
+
+    public long getRoundCount()
+    {
+        long rounds = 0;
+
+        for (ArchiveSegment segment : segments)
+            rounds += segment.getRoundCount();
+
+        return rounds;
+    }
+
+    /**
+     * @return the number of bytes read from the segment files by all scans so far
+     */
+    public long getBytesRead()
+    {
+        long bytes = 0;
+
+        for (ArchiveSegment segment : segments)
+            bytes += segment.getBytesRead();
+
+        return bytes;
+    }
+
+    /**
+     * @return the fraction of rounds in which the house bust
+     * @throws IOException if a column cannot be read
+     */
+    public double getHouseBustRate() throws IOException
+    {
+        long busts = 0;
+
+        for (ArchiveSegment segment : segments)
+        {
+            for (int bust : segment.readInts(Column.HOUSE_BUST))
+                busts += bust;
+        }
+        return rate(busts, getRoundCount());
+    }
+
+    /**
+     * @return the fraction of hands whose result was lower than the house's, i.e. won by the house
+     * @throws IOException if a column cannot be read
+     */
+    public double getHouseWinRate() throws IOException
+    {
+        long wins = 0;
+        long hands = 0;
+
+        for (ArchiveSegment segment : segments)
+        {
+            int[] houseResults = segment.readInts(Column.HOUSE_RESULT);
+            int[] handCounts = segment.readInts(Column.HAND_COUNT);
+            int[] results = segment.readInts(Column.RESULT);
+            int hand = 0;
+
+            for (int round = 0; round < houseResults.length; round++)
+            {
+                for (int end = hand + handCounts[round]; hand < end; hand++)
+                {
+                    if (results[hand] < houseResults[round])
+                        wins++;
+                }
+            }
+            hands += hand;
+        }
+        return rate(wins, hands);
+    }
+
+    /**
+     * Bust rate per card value over the hands of the players and the house, i.e. how often a card of the
+     * value, once dealt, was the card that took the hand over the bust level.
+     *
+     * @return the bust rate of every face value
+     * @throws IOException if a column cannot be read
+     */
+    public Map<PlayingCard.Value, Double> getBustRateByCardValue() throws IOException
+    {
+        long[] dealt = new long[VALUES.length];
+        long[] busts = new long[VALUES.length];
+
+        for (ArchiveSegment segment : segments)
+        {
+            countBusts(segment.readInts(Column.CARD_COUNT), segment.readInts(Column.CARDS),
+                    segment.readInts(Column.BUST), dealt, busts);
+            countBusts(segment.readInts(Column.HOUSE_CARD_COUNT), segment.readInts(Column.HOUSE_CARDS),
+                    segment.readInts(Column.HOUSE_BUST), dealt, busts);
+        }
+
+        Map<PlayingCard.Value, Double> rates = new EnumMap<>(PlayingCard.Value.class);
+        for (PlayingCard.Value value : VALUES)
+            rates.put(value, rate(busts[value.ordinal()], dealt[value.ordinal()]));
+
+        return rates;
+    }
+
+    /**
+     * @return the points of every player after the last round they took part in
+     * @throws IOException if a column cannot be read
+     */
+    public Map<String, Long> getFinalBalances() throws IOException
+    {
+        Map<String, Long> balances = new HashMap<>();
+
+        for (ArchiveSegment segment : segments)
+        {
+            String[] ids = segment.readPlayerIds();
+            int[] players = segment.readInts(Column.PLAYER);
+            long[] points = segment.readLongs(Column.POINTS);
+
+            for (int hand = 0; hand < players.length; hand++)
+                balances.put(ids[players[hand]], points[hand]);
+        }
+        return balances;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        for (ArchiveSegment segment : segments)
+            segment.close();
+    }
+
+    /**
+     * Utility method to count the cards dealt and the bust cards per value, the bust card is the last of a bust hand.
+     */
+    private static void countBusts(int[] counts, int[] cards, int[] bustFlags, long[] dealt, long[] busts)
+    {
+        int card = 0;
+
+        for (int hand = 0; hand < counts.length; hand++)
+        {
+            for (int end = card + counts[hand]; card < end; card++)
+                dealt[CardSet.card(cards[card]).getValue().ordinal()]++;
+
+            if (bustFlags[hand] != 0 && counts[hand] > 0)
+                busts[CardSet.card(cards[card - 1]).getValue().ordinal()]++;
+        }
+    }
+
+    private static double rate(long count, long total)
+    {
+        return total == 0 ? 0 : (double) count / total;
+    }
+
+    /**
+     * @param directory - an archive directory
+     * @return the segment files of the directory in the order they were written
+     * @throws IOException if the directory cannot be listed
+     */
+    static List<Path> segmentPaths(Path directory) throws IOException
+    {
+        List<Path> paths = new ArrayList<>();
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+                ArchiveWriter.SEGMENT_PREFIX + "*" + ArchiveWriter.SEGMENT_SUFFIX))
+        {
+            for (Path path : files)
+                paths.add(path);
+        }
+        paths.sort((one, two) -> Integer.compare(segmentNumber(one), segmentNumber(two)));
+        return paths;
+    }
+
+    static int segmentNumber(Path path)
+    {
+        String name = path.getFileName().toString();
+        return Integer.parseInt(name.substring(ArchiveWriter.SEGMENT_PREFIX.length(),
+                name.length() - ArchiveWriter.SEGMENT_SUFFIX.length()));
+    }
+}
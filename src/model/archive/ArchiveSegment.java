@@ -0,0 +1,256 @@
+package model.archive;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * <pre>A single archive segment file opened for reading.
+ *
+ * Opening reads only the trailer and the column directory, each column is read from the file
+ * and decoded when it is asked for, so a scan costs only the size of the columns it uses.</pre>
+ *
+ * @see ArchiveWriter
+ */
+public class ArchiveSegment implements Closeable
+{
+    private final Path path;
+    private final FileChannel channel;
+    private final int rounds;
+    private final int hands;
+    private final long[] offsets = new long[Column.values().length];
+    private final int[] lengths = new int[Column.values().length];
+    private long bytesRead;
+
+    private ArchiveSegment(Path path, FileChannel channel) throws IOException
+    {
+        this.path = path;
+        this.channel = channel;
+
+        long size = channel.size();
+        if (size < ArchiveWriter.TRAILER_SIZE)
+            throw new IOException("Not an archive segment: " + path);
+
+        ByteBuffer trailer = read(size - ArchiveWriter.TRAILER_SIZE, ArchiveWriter.TRAILER_SIZE);
+        int columns = trailer.getInt();
+        rounds = trailer.getInt();
+        hands = trailer.getInt();
+        if (trailer.getInt() != ArchiveWriter.MAGIC)
+            throw new IOException("Not an archive segment: " + path);
+
+        Arrays.fill(offsets, -1);
+        int directorySize = columns * ArchiveWriter.DIRECTORY_ENTRY_SIZE;
+        ByteBuffer directory = read(size - ArchiveWriter.TRAILER_SIZE - directorySize, directorySize);
+
+        for (int index = 0; index < columns; index++)
+        {
+            Column column = Column.of(directory.get());
+            long offset = directory.getLong();
+            int length = directory.getInt();
+
+            // columns unknown to this version are skipped
+            if (column != null)
+            {
+                offsets[column.ordinal()] = offset;
+                lengths[column.ordinal()] = length;
+            }
+        }
+    }
+
+    /**
+     * @param path - the segment file
+     * @return the opened segment
+     * @throws IOException if the file cannot be read or is not a complete segment
+     */
+    public static ArchiveSegment open(Path path) throws IOException
+    {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+
+        try
+        {
+            return new ArchiveSegment(path, channel);
+        }
+        catch (IOException | RuntimeException exception)
+        {
+            channel.close();
+            throw exception;
+        }
+    }
+
+    public Path getPath()
+    {
+        return path;
+    }
+
+    public int getRoundCount()
+    {
+        return rounds;
+    }
+
+    public int getHandCount()
+    {
+        return hands;
+    }
+
+    /**
+     * @param column - a column
+     * @return the encoded size of the column in bytes, 0 if the segment does not hold it
+     */
+    public int getColumnSize(Column column)
+    {
+        return lengths[column.ordinal()];
+    }
+
+    /**
+     * @return the number of bytes read from the file since it was opened
+     */
+    public long getBytesRead()
+    {
+        return bytesRead;
+    }
+
+    /**
+     * @param column - a PACKED or VARINT column
+     * @return the decoded values of the column
+     * @throws IOException if the column cannot be read
+     */
+    public int[] readInts(Column column) throws IOException
+    {
+        if (column.getEncoding() != Column.Encoding.PACKED && column.getEncoding() != Column.Encoding.VARINT)
+            throw new IllegalArgumentException("Not an int column: " + column);
+
+        ColumnBuffer.Reader reader = reader(column);
+        int[] values = new int[reader.getCount()];
+
+        if (column.getEncoding() == Column.Encoding.PACKED)
+        {
+            for (int index = 0; index < values.length; index++)
+                values[index] = reader.getBits();
+        }
+        else
+        {
+            for (int index = 0; index < values.length; index++)
+                values[index] = (int) reader.getVarLong();
+        }
+        return values;
+    }
+
+    /**
+     * Decodes any numeric column, the differences of DELTA and PLAYER_DELTA columns are summed back up.
+     * Decoding POINTS also reads the PLAYER column.
+     *
+     * @param column - a numeric column
+     * @return the decoded values of the column
+     * @throws IOException if the column cannot be read
+     */
+    public long[] readLongs(Column column) throws IOException
+    {
+        switch (column.getEncoding())
+        {
+            case PACKED:
+            case VARINT:
+                return Arrays.stream(readInts(column)).asLongStream().toArray();
+            case DELTA:
+            {
+                ColumnBuffer.Reader reader = reader(column);
+                long[] values = new long[reader.getCount()];
+                long value = 0;
+
+                for (int index = 0; index < values.length; index++)
+                    values[index] = value += reader.getVarLong();
+
+                return values;
+            }
+            case PLAYER_DELTA:
+            {
+                int[] players = readInts(Column.PLAYER);
+                long[] latest = new long[players.length];
+                boolean[] seen = new boolean[players.length];
+                ColumnBuffer.Reader reader = reader(column);
+                long[] values = new long[reader.getCount()];
+
+                for (int index = 0; index < values.length; index++)
+                {
+                    int player = players[index];
+
+                    // the first value of each player is stored in full
+                    latest[player] = seen[player] ? latest[player] + reader.getVarLong() : reader.getVarLong();
+                    seen[player] = true;
+                    values[index] = latest[player];
+                }
+                return values;
+            }
+            default:
+                throw new IllegalArgumentException("Not a numeric column: " + column);
+        }
+    }
+
+    /**
+     * @return the id of every player in the dictionary, indexed by the values of the PLAYER column
+     * @throws IOException if the dictionary cannot be read
+     */
+    public String[] readPlayerIds() throws IOException
+    {
+        return readDictionary(0);
+    }
+
+    /**
+     * @return the name of every player in the dictionary, indexed by the values of the PLAYER column
+     * @throws IOException if the dictionary cannot be read
+     */
+    public String[] readPlayerNames() throws IOException
+    {
+        return readDictionary(1);
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        channel.close();
+    }
+
+    /**
+     * Utility method to read one part of every dictionary entry, entries hold the id and name separated by a newline.
+     */
+    private String[] readDictionary(int part) throws IOException
+    {
+        ColumnBuffer.Reader reader = reader(Column.PLAYER_DICTIONARY);
+        String[] values = new String[reader.getCount()];
+
+        for (int index = 0; index < values.length; index++)
+        {
+            String entry = new String(reader.getBytes(), StandardCharsets.UTF_8);
+            int separator = entry.indexOf('\n');
+            values[index] = part == 0 ? entry.substring(0, separator) : entry.substring(separator + 1);
+        }
+        return values;
+    }
+
+    private ColumnBuffer.Reader reader(Column column) throws IOException
+    {
+        if (offsets[column.ordinal()] < 0)
+            throw new IOException("Segment " + path + " has no column " + column);
+
+        return new ColumnBuffer.Reader(read(offsets[column.ordinal()], lengths[column.ordinal()]),
+                column.getEncoding() == Column.Encoding.PACKED);
+    }
+
+    private ByteBuffer read(long position, int length) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+
+        while (buffer.hasRemaining())
+        {
+            if (channel.read(buffer, position + buffer.position()) < 0)
+                throw new IOException("Unexpected end of segment: " + path);
+        }
+        bytesRead += length;
+        buffer.flip();
+        return buffer;
+    }
+}
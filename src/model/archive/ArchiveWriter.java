@@ -0,0 +1,317 @@
+package model.archive;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import model.history.RoundRecord;
+
+/**
+ * <pre>Writes completed rounds to a directory of columnar archive segments.
+ *
+ * Rounds are encoded column by column in memory and written out as a new segment file once
+ * roundsPerSegment rounds have been added, or when the writer is closed. Cards are bit-packed
+ * at 5 bits each, results at 6, flags at 1, players are dictionary encoded and round numbers,
+ * timestamps, bets and balances are stored as variable length deltas.
+ *
+ * Segment layout: the column blocks, then a column directory of (byte id, long offset, int length)
+ * per column, then a trailer of the column count, round count, hand count and MAGIC.
+ *
+ * The writer can be registered as a RoundRecorder's sink:
+ *   engine.addGameEngineCallback(new RoundRecorder(tableId, writer));</pre>
+ *
+ * @see ArchiveScanner
+ */
+public class ArchiveWriter implements Consumer<RoundRecord>, Closeable
+{
+    static final int MAGIC = 0x52434F4C;
+    static final int TRAILER_SIZE = 16;
+    static final int DIRECTORY_ENTRY_SIZE = 13;
+    static final String SEGMENT_PREFIX = "segment-";
+    static final String SEGMENT_SUFFIX = ".col";
+
+    private final Path directory;
+    private final int roundsPerSegment;
+    private final Map<Column, ColumnBuffer> columns = new EnumMap<>(Column.class);
+    private final Map<String, Integer> dictionary = new HashMap<>();
+    private final List<Integer> balances = new ArrayList<>();
+    private int[] players = new int[1024];
+    private int rounds;
+    private int hands;
+    private long lastRoundNumber;
+    private long lastTimestamp;
+    private long lastBet;
+    private int nextSegment;
+
+    /**
+     * @param directory - the directory segments are written to, created if it does not exist
+     * @throws IOException if the directory cannot be created
+     */
+    public ArchiveWriter(Path directory) throws IOException
+    {
+        this(directory, 1 << 16);
+    }
+
+    /**
+     * @param directory - the directory segments are written to, created if it does not exist
+     * @param roundsPerSegment - the number of rounds after which a segment is written out
+     * @throws IOException if the directory cannot be created
+     */
+    public ArchiveWriter(Path directory, int roundsPerSegment) throws IOException
+    {
+        if (roundsPerSegment < 1)
+            throw new IllegalArgumentException();
+
+        this.directory = Files.createDirectories(directory);
+        this.roundsPerSegment = roundsPerSegment;
+
+        // continue numbering after any segments already in the directory
+        for (Path path : ArchiveScanner.segmentPaths(directory))
+            nextSegment = Math.max(nextSegment, ArchiveScanner.segmentNumber(path) + 1);
+
+        reset();
+    }
+
+    /**
+     * Adds a completed round, writing out the segment if it is full.
+     *
+     * @param record - the round to archive
+     * @throws UncheckedIOException if a full segment cannot be written
+     * @throws IllegalArgumentException if a hand has more cards than CARD_COUNT can hold, nothing is written
+     */
+    public synchronized void add(RoundRecord record) throws UncheckedIOException, IllegalArgumentException
+    {
+        // checked before any column is written, a wrong count would misalign every later card of the segment
+        checkCardCount(record.getHouseCardOrdinals(), Column.HOUSE_CARD_COUNT);
+        for (RoundRecord.Hand hand : record.getHands())
+            checkCardCount(hand.getCardOrdinals(), Column.CARD_COUNT);
+
+        if (rounds > 0)
+        {
+            column(Column.ROUND_NUMBER).putVarLong(record.getRoundNumber() - lastRoundNumber);
+            column(Column.TIMESTAMP).putVarLong(record.getTimestamp() - lastTimestamp);
+        }
+        else
+        {
+            column(Column.ROUND_NUMBER).putVarLong(record.getRoundNumber());
+            column(Column.TIMESTAMP).putVarLong(record.getTimestamp());
+        }
+        lastRoundNumber = record.getRoundNumber();
+        lastTimestamp = record.getTimestamp();
+
+        column(Column.TABLE_ID).putVarLong(record.getTableId());
+        putPacked(Column.HOUSE_RESULT, record.getHouseResult());
+        putPacked(Column.HOUSE_BUST, record.isHouseBust() ? 1 : 0);
+        putCards(Column.HOUSE_CARD_COUNT, Column.HOUSE_CARDS, record.getHouseCardOrdinals());
+        column(Column.HAND_COUNT).putVarLong(record.getHands().size());
+
+        for (RoundRecord.Hand hand : record.getHands())
+        {
+            int player = playerOf(hand);
+            int previous = balances.get(player);
+
+            if (hands == players.length)
+                players = Arrays.copyOf(players, hands * 2);
+            players[hands] = player;
+
+            // a player's first balance in the segment is stored in full, then only its changes
+            column(Column.POINTS).putVarLong(previous == Integer.MIN_VALUE ?
+                    hand.getPoints() : (long) hand.getPoints() - previous);
+            balances.set(player, hand.getPoints());
+
+            column(Column.BET).putVarLong(hand.getBet() - lastBet);
+            lastBet = hand.getBet();
+
+            putPacked(Column.RESULT, hand.getResult());
+            putPacked(Column.BUST, hand.isBust() ? 1 : 0);
+            putCards(Column.CARD_COUNT, Column.CARDS, hand.getCardOrdinals());
+            hands++;
+        }
+
+        if (++rounds == roundsPerSegment)
+            roll();
+    }
+
+    /**
+     * Adds a completed round so the writer can be used as a RoundRecorder's sink.
+     */
+    @Override
+    public void accept(RoundRecord record)
+    {
+        add(record);
+    }
+
+    /**
+     * Writes out the rounds added since the last segment as a segment of their own.
+     *
+     * @throws UncheckedIOException if the segment cannot be written
+     */
+    public synchronized void roll() throws UncheckedIOException
+    {
+        if (rounds == 0)
+            return;
+
+        try
+        {
+            writeSegment(directory.resolve(SEGMENT_PREFIX + nextSegment + SEGMENT_SUFFIX));
+            nextSegment++;
+            reset();
+        }
+        catch (IOException exception)
+        {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * Writes out any rounds not yet in a segment.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        try
+        {
+            roll();
+        }
+        catch (UncheckedIOException exception)
+        {
+            throw exception.getCause();
+        }
+    }
+
+    /**
+     * Utility method to write the segment to a temporary file and move it into place once complete.
+     */
+    private void writeSegment(Path path) throws IOException
+    {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        Map<Column, byte[]> blocks = new EnumMap<>(Column.class);
+
+        for (Map.Entry<Column, ColumnBuffer> column : columns.entrySet())
+            blocks.put(column.getKey(), column.getValue().toBlock(column.getKey().getWidth()));
+        blocks.put(Column.PLAYER_DICTIONARY, dictionaryBlock());
+        blocks.put(Column.PLAYER, playerBlock());
+
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))
+        {
+            ByteBuffer directoryEntries = ByteBuffer.allocate(blocks.size() * DIRECTORY_ENTRY_SIZE + TRAILER_SIZE);
+            long offset = 0;
+
+            for (Map.Entry<Column, byte[]> block : blocks.entrySet())
+            {
+                writeFully(channel, ByteBuffer.wrap(block.getValue()));
+                directoryEntries.put(block.getKey().getId()).putLong(offset).putInt(block.getValue().length);
+                offset += block.getValue().length;
+            }
+
+            directoryEntries.putInt(blocks.size()).putInt(rounds).putInt(hands).putInt(MAGIC);
+            directoryEntries.flip();
+            writeFully(channel, directoryEntries);
+            channel.force(true);
+        }
+        Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Utility method to encode the distinct players of the segment in the order they were first seen.
+     */
+    private byte[] dictionaryBlock()
+    {
+        String[] entries = new String[dictionary.size()];
+        for (Map.Entry<String, Integer> entry : dictionary.entrySet())
+            entries[entry.getValue()] = entry.getKey();
+
+        ColumnBuffer block = new ColumnBuffer();
+        for (String entry : entries)
+            block.putBytes(entry.getBytes(StandardCharsets.UTF_8));
+
+        return block.toBlock(0);
+    }
+
+    /**
+     * Utility method to pack the dictionary index of every hand in as few bits as the dictionary allows.
+     */
+    private byte[] playerBlock()
+    {
+        int width = Math.max(1, 32 - Integer.numberOfLeadingZeros(dictionary.size() - 1));
+        ColumnBuffer block = new ColumnBuffer();
+
+        for (int hand = 0; hand < hands; hand++)
+            block.putBits(players[hand], width);
+
+        return block.toBlock(width);
+    }
+
+    /**
+     * Utility method to find or add the dictionary index of a hand's player, ids and names are stored together.
+     */
+    private int playerOf(RoundRecord.Hand hand)
+    {
+        return dictionary.computeIfAbsent(hand.getPlayerId() + '\n' + hand.getPlayerName(), ignored ->
+        {
+            balances.add(Integer.MIN_VALUE);
+            return dictionary.size();
+        });
+    }
+
+    private void putPacked(Column column, int value)
+    {
+        column(column).putBits(value, column.getWidth());
+    }
+
+    private static void checkCardCount(byte[] cards, Column countColumn)
+    {
+        if (cards.length >= 1 << countColumn.getWidth())
+            throw new IllegalArgumentException("Too many cards in one hand to archive: " + cards.length);
+    }
+
+    private void putCards(Column countColumn, Column cardColumn, byte[] cards)
+    {
+        putPacked(countColumn, cards.length);
+        for (byte card : cards)
+            putPacked(cardColumn, card);
+    }
+
+    private ColumnBuffer column(Column column)
+    {
+        return columns.get(column);
+    }
+
+    /**
+     * Utility method to start a new segment, every segment can be decoded on its own.
+     */
+    private void reset()
+    {
+        for (Column column : Column.values())
+        {
+            if (column != Column.PLAYER_DICTIONARY && column != Column.PLAYER)
+                columns.put(column, new ColumnBuffer());
+        }
+        dictionary.clear();
+        balances.clear();
+        rounds = 0;
+        hands = 0;
+        lastBet = 0;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException
+    {
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+    }
+}
@@ -0,0 +1,86 @@
+package model.archive;
+
+/**
+ * <pre>The columns of an archive segment and how each is encoded.
+ *
+ * Round columns hold one value per round, hand columns one value per hand of every round in
+ * order, and card columns the cards of every round or hand in order, their counts given by
+ * HOUSE_CARD_COUNT and CARD_COUNT.</pre>
+ */
+public enum Column
+{
+    ROUND_NUMBER(1, Encoding.DELTA, 0),
+    TIMESTAMP(2, Encoding.DELTA, 0),
+    TABLE_ID(3, Encoding.VARINT, 0),
+    HOUSE_RESULT(4, Encoding.PACKED, 6),
+    HOUSE_BUST(5, Encoding.PACKED, 1),
+    HOUSE_CARD_COUNT(6, Encoding.PACKED, 4),
+    HOUSE_CARDS(7, Encoding.PACKED, 5),
+    HAND_COUNT(8, Encoding.VARINT, 0),
+    PLAYER_DICTIONARY(9, Encoding.DICTIONARY, 0),
+    PLAYER(10, Encoding.PACKED, 0),
+    BET(11, Encoding.DELTA, 0),
+    POINTS(12, Encoding.PLAYER_DELTA, 0),
+    RESULT(13, Encoding.PACKED, 6),
+    BUST(14, Encoding.PACKED, 1),
+    CARD_COUNT(15, Encoding.PACKED, 4),
+    CARDS(16, Encoding.PACKED, 5);
+
+    /**
+     * <pre>PACKED        fixed width bit-packed values, PLAYER picks its width from the dictionary size
+     * VARINT        zigzag variable length values
+     * DELTA         zigzag variable length differences from the previous value
+     * PLAYER_DELTA  zigzag variable length differences from the same player's previous value
+     * DICTIONARY    the distinct player ids and names that PLAYER indexes into</pre>
+     */
+    public enum Encoding
+    {
+        PACKED, VARINT, DELTA, PLAYER_DELTA, DICTIONARY
+    }
+
+    private final byte id;
+    private final Encoding encoding;
+    private final int width;
+
+    Column(int id, Encoding encoding, int width)
+    {
+        this.id = (byte) id;
+        this.encoding = encoding;
+        this.width = width;
+    }
+
+    /**
+     * @return the id the column is stored under in a segment's column directory
+     */
+    public byte getId()
+    {
+        return id;
+    }
+
+    public Encoding getEncoding()
+    {
+        return encoding;
+    }
+
+    /**
+     * @return the number of bits per value of a packed column, 0 if the width is chosen per segment
+     */
+    public int getWidth()
+    {
+        return width;
+    }
+
+    /**
+     * @param id - a column id read from a column directory
+     * @return the column with the id or null if there is none, e.g. a column added by a later version
+     */
+    public static Column of(byte id)
+    {
+        for (Column column : values())
+        {
+            if (column.id == id)
+                return column;
+        }
+        return null;
+    }
+}
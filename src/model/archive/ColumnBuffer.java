@@ -0,0 +1,177 @@
+package model.archive;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * <pre>Growable buffer a single column is encoded into while a segment is being written.
+ *
+ * A finished block starts with the number of values as a variable length int, followed for
+ * packed columns by the width in bits, then the values. Values of a packed column are written
+ * least significant bit first.</pre>
+ */
+class ColumnBuffer
+{
+    private byte[] bytes = new byte[1024];
+    private int size;
+    private long bits;
+    private int bitCount;
+    private int count;
+
+    /**
+     * @param value - an unsigned value that fits in width bits
+     * @param width - the number of bits to write, at most 32
+     */
+    void putBits(int value, int width)
+    {
+        bits |= (value & ((1L << width) - 1)) << bitCount;
+        bitCount += width;
+
+        while (bitCount >= 8)
+        {
+            putByte((byte) bits);
+            bits >>>= 8;
+            bitCount -= 8;
+        }
+        count++;
+    }
+
+    /**
+     * @param value - a signed value, small magnitudes take fewer bytes
+     */
+    void putVarLong(long value)
+    {
+        putUnsigned((value << 1) ^ (value >> 63));
+        count++;
+    }
+
+    /**
+     * @param value - bytes written as is, with their length first
+     */
+    void putBytes(byte[] value)
+    {
+        putUnsigned(value.length);
+        for (byte single : value)
+            putByte(single);
+        count++;
+    }
+
+    int getCount()
+    {
+        return count;
+    }
+
+    /**
+     * @param width - the width of a packed column or 0 for any other
+     * @return the finished block of the column
+     */
+    byte[] toBlock(int width)
+    {
+        if (bitCount > 0)
+            putByte((byte) bits);
+
+        ColumnBuffer block = new ColumnBuffer();
+        block.putUnsigned(count);
+        if (width > 0)
+            block.putByte((byte) width);
+
+        byte[] encoded = Arrays.copyOf(block.bytes, block.size + size);
+        System.arraycopy(bytes, 0, encoded, block.size, size);
+        return encoded;
+    }
+
+    private void putUnsigned(long value)
+    {
+        while ((value & ~0x7FL) != 0)
+        {
+            putByte((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        putByte((byte) value);
+    }
+
+    private void putByte(byte value)
+    {
+        if (size == bytes.length)
+            bytes = Arrays.copyOf(bytes, size * 2);
+
+        bytes[size++] = value;
+    }
+
+    /**
+     * Reads back the values of a block produced by {@link ColumnBuffer#toBlock(int)}.
+     */
+    static class Reader
+    {
+        private final ByteBuffer block;
+        private final int count;
+        private final int width;
+        private long bits;
+        private int bitCount;
+
+        /**
+         * @param block - the column block
+         * @param packed - true if the block belongs to a packed column
+         */
+        Reader(ByteBuffer block, boolean packed)
+        {
+            this.block = block;
+            count = (int) getUnsigned();
+            width = packed ? block.get() : 0;
+        }
+
+        int getCount()
+        {
+            return count;
+        }
+
+        int getWidth()
+        {
+            return width;
+        }
+
+        int getBits()
+        {
+            while (bitCount < width)
+            {
+                bits |= (block.get() & 0xFFL) << bitCount;
+                bitCount += 8;
+            }
+
+            int value = (int) (bits & ((1L << width) - 1));
+            bits >>>= width;
+            bitCount -= width;
+            return value;
+        }
+
+        long getVarLong()
+        {
+            long value = getUnsigned();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        byte[] getBytes()
+        {
+            byte[] value = new byte[(int) getUnsigned()];
+            block.get(value);
+            return value;
+        }
+
+        private long getUnsigned()
+        {
+            long value = 0;
+            int shift = 0;
+            byte single;
+
+            do
+            {
+                single = block.get();
+                value |= (single & 0x7FL) << shift;
+                shift += 7;
+            }
+            while (single < 0);
+
+            return value;
+        }
+    }
+}
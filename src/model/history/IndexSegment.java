@@ -0,0 +1,267 @@
+package model.history;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+/**
+ * <pre>An immutable sorted file of (key, round number) index entries covering a range of rounds.
+ *
+ * Layout: entries of two longs sorted by key then round, then every SPARSE_INTERVAL'th entry again
+ * as the sparse index, then a trailer of the first and last round covered and the two counts.
+ * Only the sparse index is held in memory, a lookup binary searches it and reads a single block of
+ * entries from the file, then reads backwards from there for as many entries as are wanted.</pre>
+ */
+class IndexSegment implements Closeable
+{
+    static final int ENTRY_SIZE = 16;
+    static final int SPARSE_INTERVAL = 128;
+    private static final int TRAILER_SIZE = 24;
+    private static final int READ_ENTRIES = 512;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final long firstRound;
+    private final long lastRound;
+    private final int entryCount;
+    private final long[] sparseKeys;
+    private final long[] sparseRounds;
+
+    private IndexSegment(Path path, FileChannel channel, long firstRound, long lastRound, int entryCount,
+                         long[] sparseKeys, long[] sparseRounds)
+    {
+        this.path = path;
+        this.channel = channel;
+        this.firstRound = firstRound;
+        this.lastRound = lastRound;
+        this.entryCount = entryCount;
+        this.sparseKeys = sparseKeys;
+        this.sparseRounds = sparseRounds;
+    }
+
+    /**
+     * Writes the postings to a new segment file, the file only appears once it is complete.
+     *
+     * @param path - the segment file to create
+     * @param postings - round numbers in ascending order for each key, iterated in ascending key order
+     * @param firstRound - the first round the postings cover
+     * @param lastRound - the last round the postings cover
+     * @return the opened segment
+     * @throws IOException if the file cannot be written
+     */
+    static IndexSegment write(Path path, Map<Long, LongList> postings, long firstRound, long lastRound)
+            throws IOException
+    {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        int entryCount = 0;
+        for (LongList rounds : postings.values())
+            entryCount += rounds.size();
+
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))
+        {
+            ByteBuffer entries = ByteBuffer.allocate(READ_ENTRIES * ENTRY_SIZE);
+            ByteBuffer sparse = ByteBuffer.allocate(sparseCount(entryCount) * ENTRY_SIZE);
+            int index = 0;
+
+            for (Map.Entry<Long, LongList> posting : postings.entrySet())
+            {
+                long key = posting.getKey();
+                LongList rounds = posting.getValue();
+
+                for (int position = 0; position < rounds.size(); position++, index++)
+                {
+                    if (index % SPARSE_INTERVAL == 0)
+                        sparse.putLong(key).putLong(rounds.get(position));
+
+                    if (!entries.hasRemaining())
+                        writeFully(channel, entries);
+                    entries.putLong(key).putLong(rounds.get(position));
+                }
+            }
+            writeFully(channel, entries);
+            writeFully(channel, sparse);
+
+            ByteBuffer trailer = ByteBuffer.allocate(TRAILER_SIZE);
+            trailer.putLong(firstRound).putLong(lastRound).putInt(entryCount).putInt(sparseCount(entryCount));
+            writeFully(channel, trailer);
+            channel.force(true);
+        }
+        Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE);
+        return open(path);
+    }
+
+    /**
+     * Opens an existing segment file, reading only its sparse index.
+     *
+     * @param path - the segment file
+     * @return the opened segment
+     * @throws IOException if the file cannot be read or is not a complete segment
+     */
+    static IndexSegment open(Path path) throws IOException
+    {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+
+        try
+        {
+            ByteBuffer trailer = readFully(channel, channel.size() - TRAILER_SIZE, TRAILER_SIZE);
+            long firstRound = trailer.getLong();
+            long lastRound = trailer.getLong();
+            int entryCount = trailer.getInt();
+            int sparseCount = trailer.getInt();
+
+            if (sparseCount != sparseCount(entryCount)
+                    || channel.size() != (long) (entryCount + sparseCount) * ENTRY_SIZE + TRAILER_SIZE)
+                throw new IOException("Corrupt index segment: " + path);
+
+            ByteBuffer sparse = readFully(channel, (long) entryCount * ENTRY_SIZE, sparseCount * ENTRY_SIZE);
+            long[] sparseKeys = new long[sparseCount];
+            long[] sparseRounds = new long[sparseCount];
+
+            for (int index = 0; index < sparseCount; index++)
+            {
+                sparseKeys[index] = sparse.getLong();
+                sparseRounds[index] = sparse.getLong();
+            }
+            return new IndexSegment(path, channel, firstRound, lastRound, entryCount, sparseKeys, sparseRounds);
+        }
+        catch (IOException | RuntimeException exception)
+        {
+            channel.close();
+            throw exception;
+        }
+    }
+
+    Path getPath()
+    {
+        return path;
+    }
+
+    long getFirstRound()
+    {
+        return firstRound;
+    }
+
+    long getLastRound()
+    {
+        return lastRound;
+    }
+
+    int getEntryCount()
+    {
+        return entryCount;
+    }
+
+    /**
+     * Appends the rounds indexed under a key, newest first.
+     *
+     * @param key - the index key
+     * @param before - only rounds lower than this are collected
+     * @param limit - the maximum number of rounds to collect
+     * @param rounds - list the round numbers are appended to
+     * @throws IOException if the file cannot be read
+     */
+    void collect(long key, long before, int limit, LongList rounds) throws IOException
+    {
+        int end = lowerBound(key, before);
+        int collected = 0;
+
+        while (end > 0 && collected < limit)
+        {
+            int start = Math.max(0, end - READ_ENTRIES);
+            ByteBuffer entries = readFully(channel, (long) start * ENTRY_SIZE, (end - start) * ENTRY_SIZE);
+
+            for (int index = end - start - 1; index >= 0 && collected < limit; index--)
+            {
+                if (entries.getLong(index * ENTRY_SIZE) != key)
+                    return;
+
+                rounds.add(entries.getLong(index * ENTRY_SIZE + 8));
+                collected++;
+            }
+            end = start;
+        }
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        channel.close();
+    }
+
+    /**
+     * Utility method to find the index of the first entry not lower than (key, round).
+     */
+    private int lowerBound(long key, long round) throws IOException
+    {
+        // number of sparse entries lower than the target
+        int low = 0;
+        int high = sparseKeys.length;
+
+        while (low < high)
+        {
+            int middle = (low + high) >>> 1;
+
+            if (compare(sparseKeys[middle], sparseRounds[middle], key, round) < 0)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+
+        if (low == 0)
+            return 0;
+
+        // the answer lies within the block after the last lower sparse entry
+        int start = (low - 1) * SPARSE_INTERVAL;
+        int end = Math.min(start + SPARSE_INTERVAL, entryCount);
+        ByteBuffer block = readFully(channel, (long) start * ENTRY_SIZE, (end - start) * ENTRY_SIZE);
+
+        for (int index = 0; index < end - start; index++)
+        {
+            if (compare(block.getLong(index * ENTRY_SIZE), block.getLong(index * ENTRY_SIZE + 8), key, round) >= 0)
+                return start + index;
+        }
+        return end;
+    }
+
+    private static int compare(long oneKey, long oneRound, long twoKey, long twoRound)
+    {
+        int compared = Long.compare(oneKey, twoKey);
+        return compared != 0 ? compared : Long.compare(oneRound, twoRound);
+    }
+
+    private static int sparseCount(int entryCount)
+    {
+        return (entryCount + SPARSE_INTERVAL - 1) / SPARSE_INTERVAL;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException
+    {
+        buffer.flip();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        buffer.clear();
+    }
+
+    /**
+     * Utility method to read a range of the file into a new buffer positioned at its start.
+     */
+    static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+
+        while (buffer.hasRemaining())
+        {
+            if (channel.read(buffer, position + buffer.position()) < 0)
+                throw new IOException("Unexpected end of file");
+        }
+        buffer.flip();
+        return buffer;
+    }
+}
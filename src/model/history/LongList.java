@@ -0,0 +1,48 @@
+package model.history;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of primitive longs, avoids boxing every round number held by the indexes.
+ */
+class LongList
+{
+    private long[] values;
+    private int size;
+
+    LongList()
+    {
+        this(8);
+    }
+
+    LongList(int capacity)
+    {
+        values = new long[Math.max(1, capacity)];
+    }
+
+    void add(long value)
+    {
+        if (size == values.length)
+            values = Arrays.copyOf(values, size * 2);
+
+        values[size++] = value;
+    }
+
+    long get(int index)
+    {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException(Integer.toString(index));
+
+        return values[index];
+    }
+
+    int size()
+    {
+        return size;
+    }
+
+    boolean isEmpty()
+    {
+        return size == 0;
+    }
+}
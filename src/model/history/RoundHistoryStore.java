@@ -0,0 +1,530 @@
+package model.history;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * <pre>Append-only on-disk history of completed rounds with secondary indexes on player id and outcome.
+ *
+ * Files kept in the store's directory:
+ *   rounds.dat      every record, length prefixed, in round number order
+ *   rounds.idx      the data file offset of every round, eight bytes per round number
+ *   index-N.seg     immutable sorted index segments, see IndexSegment
+ *
+ * Index entries for recent rounds are held in memory and written out as a new segment once
+ * there are flushThreshold of them, they are rebuilt from the data file when the store is reopened.
+ * A query reads the in-memory entries and then the segments newest first, stopping as soon as it
+ * has enough rounds, so finding the last N rounds of a player costs a binary search per segment
+ * plus N record reads however long the history is.
+ *
+ * Register a RoundRecorder with each engine and pass the store as its sink:
+ *   engine.addGameEngineCallback(new RoundRecorder(tableId, store));</pre>
+ */
+public class RoundHistoryStore implements Consumer<RoundRecord>, Closeable
+{
+    private static final String DATA_FILE = "rounds.dat";
+    private static final String OFFSET_FILE = "rounds.idx";
+    private static final String SEGMENT_PREFIX = "index-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final int WRITE_BUFFER_SIZE = 1 << 20;
+    private static final long[] OUTCOME_KEYS = new long[RoundRecord.Outcome.values().length];
+
+    static
+    {
+        for (RoundRecord.Outcome outcome : RoundRecord.Outcome.values())
+            OUTCOME_KEYS[outcome.ordinal()] = hash("O" + outcome.name());
+    }
+
+    private final Path directory;
+    private final int flushThreshold;
+    private final FileChannel data;
+    private final FileChannel offsets;
+    private final ByteBuffer pendingData = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+    private final ByteBuffer pendingOffsets = ByteBuffer.allocate(WRITE_BUFFER_SIZE / 8);
+    private final List<IndexSegment> segments = new ArrayList<>();
+    private Map<Long, LongList> recent = new HashMap<>();
+    private int recentEntries;
+    private long recentFirstRound;
+    private long rounds;
+    private long writtenRounds;
+    private long dataSize;
+    private long writtenDataSize;
+    private int nextSegment;
+
+    /**
+     * @param directory - the directory holding the store, created if it does not exist
+     * @throws IOException if the store cannot be opened
+     */
+    public RoundHistoryStore(Path directory) throws IOException
+    {
+        this(directory, 1 << 20);
+    }
+
+    /**
+     * @param directory - the directory holding the store, created if it does not exist
+     * @param flushThreshold - the number of in-memory index entries that are written out as a segment
+     * @throws IOException if the store cannot be opened
+     */
+    public RoundHistoryStore(Path directory, int flushThreshold) throws IOException
+    {
+        if (flushThreshold < 1)
+            throw new IllegalArgumentException();
+
+        this.directory = Files.createDirectories(directory);
+        this.flushThreshold = flushThreshold;
+
+        data = FileChannel.open(directory.resolve(DATA_FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        offsets = FileChannel.open(directory.resolve(OFFSET_FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        try
+        {
+            recover();
+        }
+        catch (IOException | RuntimeException exception)
+        {
+            close();
+            throw exception;
+        }
+    }
+
+    /**
+     * Appends a completed round to the history.
+     *
+     * @param record - the round, its round number is ignored
+     * @return the round number assigned to the round
+     * @throws UncheckedIOException if the round cannot be written
+     */
+    public synchronized long append(RoundRecord record) throws UncheckedIOException
+    {
+        try
+        {
+            RoundRecord numbered = record.withRoundNumber(rounds);
+            int maxSize = 4 + numbered.getMaxSize();
+
+            if (pendingData.remaining() < maxSize || !pendingOffsets.hasRemaining())
+                writePending();
+
+            ByteBuffer buffer = maxSize <= pendingData.capacity() ? pendingData : ByteBuffer.allocate(maxSize);
+            int start = buffer.position();
+            buffer.putInt(0);
+            numbered.writeTo(buffer);
+            buffer.putInt(start, buffer.position() - start - 4);
+
+            pendingOffsets.putLong(dataSize);
+            dataSize += buffer.position() - start;
+            if (buffer != pendingData)
+            {
+                buffer.flip();
+                writeFully(data, buffer, writtenDataSize);
+                writtenDataSize = dataSize;
+            }
+
+            index(numbered);
+            rounds++;
+
+            if (recentEntries >= flushThreshold)
+                flushIndex();
+
+            return numbered.getRoundNumber();
+        }
+        catch (IOException exception)
+        {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * Appends a completed round so the store can be used as a RoundRecorder's sink.
+     */
+    @Override
+    public void accept(RoundRecord record)
+    {
+        append(record);
+    }
+
+    /**
+     * @return the number of rounds in the history
+     */
+    public synchronized long getRoundCount()
+    {
+        return rounds;
+    }
+
+    /**
+     * @return the number of index segments on disk
+     */
+    public synchronized int getSegmentCount()
+    {
+        return segments.size();
+    }
+
+    /**
+     * @param roundNumber - the number of a stored round
+     * @return the round
+     * @throws IllegalArgumentException if there is no round with the number
+     * @throws UncheckedIOException if the round cannot be read
+     */
+    public synchronized RoundRecord get(long roundNumber) throws IllegalArgumentException, UncheckedIOException
+    {
+        if (roundNumber < 0 || roundNumber >= rounds)
+            throw new IllegalArgumentException("No such round: " + roundNumber);
+
+        return readChecked(roundNumber);
+    }
+
+    /**
+     * @param playerId - id of the player
+     * @param limit - the maximum number of rounds to return
+     * @return the player's most recent rounds, newest first
+     */
+    public List<RoundRecord> getLastRounds(String playerId, int limit)
+    {
+        return getLastRounds(playerId, Long.MAX_VALUE, limit);
+    }
+
+    /**
+     * @param playerId - id of the player
+     * @param before - only rounds with a lower round number are returned, to page through older rounds
+     * @param limit - the maximum number of rounds to return
+     * @return the player's most recent rounds before the given round, newest first
+     * @throws UncheckedIOException if the history cannot be read
+     */
+    public synchronized List<RoundRecord> getLastRounds(String playerId, long before, int limit)
+            throws UncheckedIOException
+    {
+        List<RoundRecord> found = new ArrayList<>();
+
+        // keys are hashes, so rounds of a different player with a colliding id are skipped
+        while (found.size() < limit)
+        {
+            int wanted = limit - found.size();
+            LongList matches = lookup(hash("P" + playerId), before, wanted);
+
+            for (int index = 0; index < matches.size(); index++)
+            {
+                RoundRecord record = readChecked(matches.get(index));
+                if (record.getHand(playerId) != null)
+                    found.add(record);
+            }
+
+            // fewer matches than wanted means the index has no older rounds for the key
+            if (matches.size() < wanted)
+                break;
+            before = matches.get(matches.size() - 1);
+        }
+        return found;
+    }
+
+    /**
+     * @param outcome - an outcome that occurred in the round
+     * @param limit - the maximum number of rounds to return
+     * @return the most recent rounds with the outcome, newest first
+     */
+    public List<RoundRecord> getLastRounds(RoundRecord.Outcome outcome, int limit)
+    {
+        return getLastRounds(outcome, Long.MAX_VALUE, limit);
+    }
+
+    /**
+     * @param outcome - an outcome that occurred in the round
+     * @param before - only rounds with a lower round number are returned, to page through older rounds
+     * @param limit - the maximum number of rounds to return
+     * @return the most recent rounds with the outcome before the given round, newest first
+     * @throws UncheckedIOException if the history cannot be read
+     */
+    public synchronized List<RoundRecord> getLastRounds(RoundRecord.Outcome outcome, long before, int limit)
+            throws UncheckedIOException
+    {
+        LongList matches = lookup(OUTCOME_KEYS[outcome.ordinal()], before, limit);
+        List<RoundRecord> found = new ArrayList<>(matches.size());
+
+        for (int index = 0; index < matches.size(); index++)
+            found.add(readChecked(matches.get(index)));
+
+        return found;
+    }
+
+    /**
+     * Writes buffered rounds to the data files and forces them to the storage device.
+     *
+     * @throws UncheckedIOException if the rounds cannot be written
+     */
+    public synchronized void flush() throws UncheckedIOException
+    {
+        try
+        {
+            writePending();
+            data.force(false);
+            offsets.force(false);
+        }
+        catch (IOException exception)
+        {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * Writes buffered rounds and closes the files, in-memory index entries are rebuilt on reopening.
+     */
+    @Override
+    public synchronized void close() throws IOException
+    {
+        try
+        {
+            if (data.isOpen() && offsets.isOpen())
+                writePending();
+        }
+        finally
+        {
+            data.close();
+            offsets.close();
+            for (IndexSegment segment : segments)
+                segment.close();
+        }
+    }
+
+    /**
+     * Utility method to open the segments and rebuild the in-memory index entries after a restart.
+     * A round whose offset was not written, or whose record is not wholly in the data file, is
+     * discarded along with anything after it.
+     */
+    private void recover() throws IOException
+    {
+        rounds = offsets.size() / 8;
+
+        // the files are not forced in between, so after a crash offsets may be on disk while the data they
+        // refer to is missing or a hole of zeros, walk back to the last round whose record can be read
+        while (rounds > 0)
+        {
+            long end = recordEnd(rounds - 1);
+            if (end >= 0)
+            {
+                dataSize = end;
+                break;
+            }
+            rounds--;
+        }
+        offsets.truncate(rounds * 8);
+        data.truncate(dataSize);
+        writtenRounds = rounds;
+        writtenDataSize = dataSize;
+
+        List<Path> paths = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX))
+        {
+            for (Path path : files)
+                paths.add(path);
+        }
+        paths.sort((one, two) -> Integer.compare(segmentNumber(one), segmentNumber(two)));
+
+        for (Path path : paths)
+        {
+            IndexSegment segment = IndexSegment.open(path);
+
+            // segments are contiguous, one that does not follow on belongs to a discarded tail
+            if (segment.getFirstRound() != recentFirstRound || segment.getLastRound() >= rounds)
+            {
+                segment.close();
+                Files.delete(path);
+                continue;
+            }
+            segments.add(segment);
+            recentFirstRound = segment.getLastRound() + 1;
+            nextSegment = segmentNumber(path) + 1;
+        }
+
+        for (long round = recentFirstRound; round < rounds; round++)
+            index(read(round));
+    }
+
+    /**
+     * Utility method to add the index entries of a round to the in-memory entries.
+     */
+    private void index(RoundRecord record)
+    {
+        for (RoundRecord.Hand hand : record.getHands())
+            post(hash("P" + hand.getPlayerId()), record.getRoundNumber());
+
+        for (RoundRecord.Outcome outcome : record.getOutcomes())
+            post(OUTCOME_KEYS[outcome.ordinal()], record.getRoundNumber());
+    }
+
+    private void post(long key, long roundNumber)
+    {
+        LongList posting = recent.computeIfAbsent(key, ignored -> new LongList(4));
+
+        // a player's id hashing the same as another in the same round adds nothing
+        if (posting.isEmpty() || posting.get(posting.size() - 1) != roundNumber)
+        {
+            posting.add(roundNumber);
+            recentEntries++;
+        }
+    }
+
+    /**
+     * Utility method to write the in-memory index entries out as a new segment.
+     */
+    private void flushIndex() throws IOException
+    {
+        writePending();
+        Path path = directory.resolve(SEGMENT_PREFIX + nextSegment + SEGMENT_SUFFIX);
+        segments.add(IndexSegment.write(path, new TreeMap<>(recent), recentFirstRound, rounds - 1));
+
+        nextSegment++;
+        recent = new HashMap<>();
+        recentEntries = 0;
+        recentFirstRound = rounds;
+    }
+
+    /**
+     * Utility method to collect the newest round numbers indexed under a key, newest first.
+     */
+    private LongList lookup(long key, long before, int limit)
+    {
+        LongList found = new LongList();
+        LongList posting = recent.get(key);
+
+        try
+        {
+            for (int index = posting == null ? -1 : posting.size() - 1; index >= 0 && found.size() < limit; index--)
+            {
+                if (posting.get(index) < before)
+                    found.add(posting.get(index));
+            }
+
+            for (int index = segments.size() - 1; index >= 0 && found.size() < limit; index--)
+            {
+                IndexSegment segment = segments.get(index);
+
+                if (segment.getFirstRound() < before)
+                    segment.collect(key, before, limit - found.size(), found);
+            }
+            return found;
+        }
+        catch (IOException exception)
+        {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * Utility method to read a round, writing out buffered rounds first.
+     */
+    private RoundRecord readChecked(long roundNumber)
+    {
+        try
+        {
+            writePending();
+            return read(roundNumber);
+        }
+        catch (IOException exception)
+        {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * Utility method to check that a round's record is wholly in the data file.
+     *
+     * @param roundNumber - the round to check
+     * @return the data file offset just past the record, or -1 if the record is missing or damaged
+     */
+    private long recordEnd(long roundNumber) throws IOException
+    {
+        long size = data.size();
+        long offset = IndexSegment.readFully(offsets, roundNumber * 8, 8).getLong();
+
+        if (offset < 0 || offset + 4 > size)
+            return -1;
+
+        int length = IndexSegment.readFully(data, offset, 4).getInt();
+        if (length <= 0 || offset + 4 + length > size)
+            return -1;
+
+        try
+        {
+            // zeros from a hole cannot carry the right round number
+            if (RoundRecord.readFrom(IndexSegment.readFully(data, offset + 4, length)).getRoundNumber() != roundNumber)
+                return -1;
+        }
+        catch (RuntimeException exception)
+        {
+            return -1;
+        }
+        return offset + 4 + length;
+    }
+
+    /**
+     * Utility method to read a round that has been written to the data file.
+     */
+    private RoundRecord read(long roundNumber) throws IOException
+    {
+        long offset = IndexSegment.readFully(offsets, roundNumber * 8, 8).getLong();
+        int length = IndexSegment.readFully(data, offset, 4).getInt();
+        return RoundRecord.readFrom(IndexSegment.readFully(data, offset + 4, length));
+    }
+
+    /**
+     * Utility method to write the buffered records and their offsets, data before offsets. Neither file
+     * is forced, so the OS may still persist offsets first, recover() discards those that refer to a
+     * record that did not reach the disk.
+     */
+    private void writePending() throws IOException
+    {
+        if (pendingOffsets.position() == 0)
+            return;
+
+        pendingData.flip();
+        writeFully(data, pendingData, writtenDataSize);
+        pendingData.clear();
+        writtenDataSize = dataSize;
+
+        pendingOffsets.flip();
+        writeFully(offsets, pendingOffsets, writtenRounds * 8);
+        pendingOffsets.clear();
+        writtenRounds = rounds;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException
+    {
+        while (buffer.hasRemaining())
+            position += channel.write(buffer, position);
+    }
+
+    private static int segmentNumber(Path path)
+    {
+        String name = path.getFileName().toString();
+        return Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * Utility method to hash an index key with 64 bit FNV-1a.
+     */
+    private static long hash(String key)
+    {
+        long hash = 0xcbf29ce484222325L;
+
+        for (int index = 0; index < key.length(); index++)
+        {
+            hash ^= key.charAt(index);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
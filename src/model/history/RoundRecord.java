@@ -0,0 +1,352 @@
+package model.history;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import model.CardSet;
+import model.interfaces.PlayingCard;
+
+/**
+ * <pre>An immutable record of one completed round: the cards dealt to the house and to every player
+ * who bet, in the order they were dealt, along with the results and settled points.
+ *
+ * Cards are held as their one byte CardSet ordinals.</pre>
+ */
+public class RoundRecord
+{
+    public enum Outcome
+    {
+        HOUSE_BUST, HOUSE_EXACT, PLAYER_WIN, PLAYER_LOSS, DRAW
+    }
+
+    private final long roundNumber;
+    private final long timestamp;
+    private final int tableId;
+    private final int houseResult;
+    private final boolean houseBust;
+    private final byte[] houseCards;
+    private final List<Hand> hands;
+
+    /**
+     * @param roundNumber - the number assigned by the store, or -1 if not stored yet
+     * @param timestamp - when the round completed in milliseconds since the epoch
+     * @param tableId - the table the round was played on
+     * @param houseResult - the house's final result
+     * @param houseBust - true if the house's last card caused a bust
+     * @param houseCards - the ordinals of the house's cards in the order dealt
+     * @param hands - the hands of every player who bet in the round
+     */
+    public RoundRecord(long roundNumber, long timestamp, int tableId, int houseResult, boolean houseBust,
+                       byte[] houseCards, List<Hand> hands)
+    {
+        this.roundNumber = roundNumber;
+        this.timestamp = timestamp;
+        this.tableId = tableId;
+        this.houseResult = houseResult;
+        this.houseBust = houseBust;
+        this.houseCards = houseCards.clone();
+        this.hands = Collections.unmodifiableList(new ArrayList<>(hands));
+    }
+
+    public long getRoundNumber()
+    {
+        return roundNumber;
+    }
+
+    /**
+     * @param roundNumber - the number assigned by the store
+     * @return a copy of this record with the round number set
+     */
+    public RoundRecord withRoundNumber(long roundNumber)
+    {
+        return new RoundRecord(roundNumber, timestamp, tableId, houseResult, houseBust, houseCards, hands);
+    }
+
+    public long getTimestamp()
+    {
+        return timestamp;
+    }
+
+    public int getTableId()
+    {
+        return tableId;
+    }
+
+    public int getHouseResult()
+    {
+        return houseResult;
+    }
+
+    public boolean isHouseBust()
+    {
+        return houseBust;
+    }
+
+    /**
+     * @return the house's cards in the order they were dealt
+     */
+    public List<PlayingCard> getHouseCards()
+    {
+        return cardsOf(houseCards);
+    }
+
+    /**
+     * @return the house's card ordinals in the order they were dealt
+     */
+    public byte[] getHouseCardOrdinals()
+    {
+        return houseCards.clone();
+    }
+
+    public List<Hand> getHands()
+    {
+        return hands;
+    }
+
+    /**
+     * @param playerId - id of the player
+     * @return the player's hand or null if the player did not bet in this round
+     */
+    public Hand getHand(String playerId)
+    {
+        for (Hand hand : hands)
+        {
+            if (hand.playerId.equals(playerId))
+                return hand;
+        }
+        return null;
+    }
+
+    /**
+     * @return every outcome that occurred in the round
+     */
+    public Set<Outcome> getOutcomes()
+    {
+        Set<Outcome> outcomes = EnumSet.of(houseBust ? Outcome.HOUSE_BUST : Outcome.HOUSE_EXACT);
+
+        for (Hand hand : hands)
+        {
+            if (hand.result > houseResult)
+                outcomes.add(Outcome.PLAYER_WIN);
+            else if (hand.result < houseResult)
+                outcomes.add(Outcome.PLAYER_LOSS);
+            else
+                outcomes.add(Outcome.DRAW);
+        }
+        return outcomes;
+    }
+
+    /**
+     * @param buffer - buffer to write the record to
+     */
+    public void writeTo(ByteBuffer buffer)
+    {
+        buffer.putLong(roundNumber);
+        buffer.putLong(timestamp);
+        buffer.putInt(tableId);
+        buffer.put((byte) houseResult);
+        buffer.put((byte) (houseBust ? 1 : 0));
+        putCards(buffer, houseCards);
+        buffer.putShort((short) hands.size());
+
+        for (Hand hand : hands)
+        {
+            putString(buffer, hand.playerId);
+            putString(buffer, hand.playerName);
+            buffer.putInt(hand.bet);
+            buffer.putInt(hand.points);
+            buffer.put((byte) hand.result);
+            buffer.put((byte) (hand.bust ? 1 : 0));
+            putCards(buffer, hand.cards);
+        }
+    }
+
+    /**
+     * @param buffer - buffer positioned at a record written by {@link #writeTo(ByteBuffer)}
+     * @return the decoded record
+     */
+    public static RoundRecord readFrom(ByteBuffer buffer)
+    {
+        long roundNumber = buffer.getLong();
+        long timestamp = buffer.getLong();
+        int tableId = buffer.getInt();
+        int houseResult = buffer.get();
+        boolean houseBust = buffer.get() != 0;
+        byte[] houseCards = getCards(buffer);
+        int count = buffer.getShort() & 0xFFFF;
+        List<Hand> hands = new ArrayList<>(count);
+
+        for (int index = 0; index < count; index++)
+        {
+            String playerId = getString(buffer);
+            String playerName = getString(buffer);
+            int bet = buffer.getInt();
+            int points = buffer.getInt();
+            int result = buffer.get();
+            boolean bust = buffer.get() != 0;
+            hands.add(new Hand(playerId, playerName, bet, points, result, bust, getCards(buffer)));
+        }
+        return new RoundRecord(roundNumber, timestamp, tableId, houseResult, houseBust, houseCards, hands);
+    }
+
+    /**
+     * @return an upper bound on the number of bytes written by {@link #writeTo(ByteBuffer)}
+     */
+    public int getMaxSize()
+    {
+        int size = 8 + 8 + 4 + 1 + 1 + 1 + houseCards.length + 2;
+
+        for (Hand hand : hands)
+            size += 2 + hand.playerId.length() * 3 + 2 + hand.playerName.length() * 3 + 4 + 4 + 1 + 1 + 1
+                    + hand.cards.length;
+
+        return size;
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder round = new StringBuilder(String.format("Round: number=%d, table=%d, house=%d%s %s",
+                roundNumber, tableId, houseResult, houseBust ? " (bust)" : "", getHouseCards()));
+
+        for (Hand hand : hands)
+            round.append(String.format("%n  %s", hand));
+
+        return round.toString();
+    }
+
+    /**
+     * Utility method to map card ordinals onto the shared card instances.
+     */
+    private static List<PlayingCard> cardsOf(byte[] ordinals)
+    {
+        List<PlayingCard> cards = new ArrayList<>(ordinals.length);
+
+        for (byte ordinal : ordinals)
+            cards.add(CardSet.card(ordinal));
+
+        return cards;
+    }
+
+    private static void putCards(ByteBuffer buffer, byte[] cards)
+    {
+        buffer.put((byte) cards.length);
+        buffer.put(cards);
+    }
+
+    private static byte[] getCards(ByteBuffer buffer)
+    {
+        byte[] cards = new byte[buffer.get()];
+        buffer.get(cards);
+        return cards;
+    }
+
+    private static void putString(ByteBuffer buffer, String value)
+    {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer)
+    {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A single player's hand within a round.
+     */
+    public static class Hand
+    {
+        private final String playerId;
+        private final String playerName;
+        private final int bet;
+        private final int points;
+        private final int result;
+        private final boolean bust;
+        private final byte[] cards;
+
+        /**
+         * @param playerId - id of the player
+         * @param playerName - name of the player
+         * @param bet - the bet placed on the hand
+         * @param points - the player's points once the round was settled
+         * @param result - the player's final result
+         * @param bust - true if the player's last card caused a bust
+         * @param cards - the ordinals of the player's cards in the order dealt
+         */
+        public Hand(String playerId, String playerName, int bet, int points, int result, boolean bust, byte[] cards)
+        {
+            this.playerId = playerId;
+            this.playerName = playerName;
+            this.bet = bet;
+            this.points = points;
+            this.result = result;
+            this.bust = bust;
+            this.cards = cards.clone();
+        }
+
+        public String getPlayerId()
+        {
+            return playerId;
+        }
+
+        public String getPlayerName()
+        {
+            return playerName;
+        }
+
+        public int getBet()
+        {
+            return bet;
+        }
+
+        /**
+         * @return the player's points once the round was settled
+         */
+        public int getPoints()
+        {
+            return points;
+        }
+
+        public int getResult()
+        {
+            return result;
+        }
+
+        public boolean isBust()
+        {
+            return bust;
+        }
+
+        /**
+         * @return the player's cards in the order they were dealt
+         */
+        public List<PlayingCard> getCards()
+        {
+            return cardsOf(cards);
+        }
+
+        /**
+         * @return the player's card ordinals in the order they were dealt
+         */
+        public byte[] getCardOrdinals()
+        {
+            return cards.clone();
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("Hand: id=%s, name=%s, bet=%d, points=%d, result=%d%s %s",
+                    playerId, playerName, bet, points, result, bust ? " (bust)" : "", getCards());
+        }
+    }
+}
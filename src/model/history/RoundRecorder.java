@@ -0,0 +1,146 @@
+package model.history;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import model.CardSet;
+import model.interfaces.GameEngine;
+import model.interfaces.Player;
+import model.interfaces.PlayingCard;
+import view.interfaces.GameEngineCallback;
+
+/**
+ * <pre>GameEngineCallback that turns the events of each round into a RoundRecord.
+ *
+ * Cards are collected in the order they are dealt and the record is built at houseResult, after
+ * bets have been settled but before they are reset, so every player who bet is included with
+ * their settled points. Completed records are handed to the sink on the dealing thread.
+ *
+ * A player with a bet may be dealt more than once in a round, each deal then starts a new hand and
+ * the record keeps the last one, the hand the player's settled result was worked out from.
+ *
+ * NOTE: register one recorder per engine, the round in progress is owned by that engine's dealing thread.</pre>
+ */
+public class RoundRecorder implements GameEngineCallback
+{
+    private final int tableId;
+    private final Consumer<RoundRecord> sink;
+    private final Map<String, HandBuilder> hands = new LinkedHashMap<>();
+    private final HandBuilder house = new HandBuilder();
+
+    /**
+     * @param tableId - the table recorded rounds are tagged with
+     * @param sink - receives every completed round, e.g. a RoundHistoryStore
+     */
+    public RoundRecorder(int tableId, Consumer<RoundRecord> sink)
+    {
+        this.tableId = tableId;
+        this.sink = sink;
+    }
+
+    @Override
+    public void nextCard(Player player, PlayingCard card, GameEngine engine)
+    {
+        handOf(player).add(card, false);
+    }
+
+    @Override
+    public void bustCard(Player player, PlayingCard card, GameEngine engine)
+    {
+        handOf(player).add(card, true);
+    }
+
+    @Override
+    public void result(Player player, int result, GameEngine engine)
+    {
+        // the result is read from the player when the round completes, a later deal starts a new hand
+        handOf(player).finished = true;
+    }
+
+    @Override
+    public void nextHouseCard(PlayingCard card, GameEngine engine)
+    {
+        house.add(card, false);
+    }
+
+    @Override
+    public void houseBustCard(PlayingCard card, GameEngine engine)
+    {
+        house.add(card, true);
+    }
+
+    @Override
+    public void houseResult(int result, GameEngine engine)
+    {
+        List<RoundRecord.Hand> roundHands = new ArrayList<>();
+
+        // bets have been settled but not yet reset, so only players who bet this round are recorded
+        for (Player player : engine.getAllPlayers())
+        {
+            if (player.getBet() == 0)
+                continue;
+
+            HandBuilder hand = hands.get(player.getPlayerId());
+            roundHands.add(new RoundRecord.Hand(player.getPlayerId(), player.getPlayerName(), player.getBet(),
+                    player.getPoints(), player.getResult(), hand != null && hand.bust,
+                    hand == null ? new byte[0] : hand.toArray()));
+        }
+
+        RoundRecord record = new RoundRecord(-1, System.currentTimeMillis(), tableId, result, house.bust,
+                house.toArray(), roundHands);
+
+        hands.clear();
+        house.reset();
+        sink.accept(record);
+    }
+
+    /**
+     * Utility method to find or create the hand in progress for a player.
+     */
+    private HandBuilder handOf(Player player)
+    {
+        return hands.computeIfAbsent(player.getPlayerId(), id -> new HandBuilder());
+    }
+
+    /**
+     * Cards of a hand in progress.
+     */
+    private static class HandBuilder
+    {
+        private byte[] cards = new byte[8];
+        private int count;
+        private boolean bust;
+        private boolean finished;
+
+        private void add(PlayingCard card, boolean bust)
+        {
+            if (finished)
+                reset();
+
+            // grown on demand, a hand dealt across a reshuffle is not bounded by the half deck
+            if (count == cards.length)
+                cards = Arrays.copyOf(cards, count * 2);
+
+            cards[count++] = (byte) CardSet.ordinal(card);
+            this.bust = bust;
+        }
+
+        private byte[] toArray()
+        {
+            byte[] copy = new byte[count];
+            System.arraycopy(cards, 0, copy, 0, count);
+            return copy;
+        }
+
+        private void reset()
+        {
+            count = 0;
+            bust = false;
+            finished = false;
+        }
+    }
+}
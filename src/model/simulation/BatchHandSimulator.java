@@ -0,0 +1,175 @@
+package model.simulation;
+
+import java.util.Random;
+
+import model.CardSet;
+import model.interfaces.PlayingCard;
+
+/**
+ * <pre>Simulates rounds of one player against the house, one batch of rounds per kernel call.
+ *
+ * Each lane of a batch is an independent round dealt from its own shuffled half deck, exactly as
+ * GameEngineImpl deals a round with one player: the player draws from the top of the deck and the
+ * house continues from where the player stopped. Decks are generated up front as structure-of-arrays
+ * card scores by {@link #generateDecks(Random)}, then {@link #play(byte[])} runs the player's hands and
+ * the house's hands through a HandKernel and tallies the outcomes.
+ *
+ * The scalar kernel is the default. With vectorized set the Vector API kernel is used instead when
+ * HandKernel.vectorKernel() provides one, otherwise the simulator falls back to the scalar kernel.</pre>
+ */
+public class BatchHandSimulator
+{
+    public static final int DEFAULT_LANES = 256;
+
+    private static final int DECK_SIZE = PlayingCard.DECK_SIZE;
+
+    // card scores indexed by card ordinal
+    static final byte[] SCORES = new byte[DECK_SIZE];
+
+    static
+    {
+        for (int ordinal = 0; ordinal < DECK_SIZE; ordinal++)
+            SCORES[ordinal] = (byte) CardSet.card(ordinal).getScore();
+    }
+
+    private final int lanes;
+    private final HandKernel.LaneKernel kernel;
+    private final byte[] houseScores;
+    private final int[] playerTotals;
+    private final int[] playerCards;
+    private final int[] playerBusts;
+    private final int[] houseTotals;
+    private final int[] houseCards;
+    private final int[] houseBusts;
+
+    public BatchHandSimulator()
+    {
+        this(DEFAULT_LANES, false);
+    }
+
+    /**
+     * @param lanes - the number of rounds per batch
+     * @param vectorized - true to use the Vector API kernel if available, false for HandKernel.drawScalar
+     */
+    public BatchHandSimulator(int lanes, boolean vectorized)
+    {
+        if (lanes <= 0)
+            throw new IllegalArgumentException();
+
+        this.lanes = lanes;
+        this.kernel = vectorized ? HandKernel.vectorKernel() : null;
+        this.houseScores = new byte[DECK_SIZE * lanes];
+        this.playerTotals = new int[lanes];
+        this.playerCards = new int[lanes];
+        this.playerBusts = new int[lanes];
+        this.houseTotals = new int[lanes];
+        this.houseCards = new int[lanes];
+        this.houseBusts = new int[lanes];
+    }
+
+    public int getLanes()
+    {
+        return lanes;
+    }
+
+    /**
+     * @return true if rounds are played by the Vector API kernel
+     */
+    public boolean isVectorized()
+    {
+        return kernel != null;
+    }
+
+    /**
+     * @param random - the source of the shuffles
+     * @return one shuffled half deck per lane, the score of card s of lane l at s * lanes + l
+     */
+    public byte[] generateDecks(Random random)
+    {
+        byte[] decks = new byte[DECK_SIZE * lanes];
+        byte[] deck = new byte[DECK_SIZE];
+
+        for (int lane = 0; lane < lanes; lane++)
+        {
+            System.arraycopy(SCORES, 0, deck, 0, DECK_SIZE);
+
+            // Fisher-Yates, the same distribution as Collections.shuffle
+            for (int index = DECK_SIZE - 1; index > 0; index--)
+            {
+                int other = random.nextInt(index + 1);
+                byte card = deck[index];
+                deck[index] = deck[other];
+                deck[other] = card;
+            }
+
+            for (int step = 0; step < DECK_SIZE; step++)
+                decks[step * lanes + lane] = deck[step];
+        }
+        return decks;
+    }
+
+    /**
+     * Plays one round per lane.
+     *
+     * @param decks - decks created by {@link #generateDecks(Random)}
+     * @return the outcome of the rounds
+     */
+    public SimulationResult play(byte[] decks)
+    {
+        if (decks.length != DECK_SIZE * lanes)
+            throw new IllegalArgumentException();
+
+        draw(decks, DECK_SIZE, playerTotals, playerCards, playerBusts);
+
+        // the house draws from the rest of each lane's deck
+        int houseSteps = DECK_SIZE;
+        for (int lane = 0; lane < lanes; lane++)
+            houseSteps = Math.min(houseSteps, DECK_SIZE - playerCards[lane]);
+
+        for (int lane = 0; lane < lanes; lane++)
+        {
+            for (int step = 0, from = playerCards[lane] * lanes + lane; step < houseSteps; step++, from += lanes)
+                houseScores[step * lanes + lane] = decks[from];
+        }
+        draw(houseScores, houseSteps, houseTotals, houseCards, houseBusts);
+
+        long playerWins = 0;
+        long houseWins = 0;
+        long playerBustCount = 0;
+        long houseBustCount = 0;
+
+        for (int lane = 0; lane < lanes; lane++)
+        {
+            playerWins += (houseTotals[lane] - playerTotals[lane]) >>> 31;
+            houseWins += (playerTotals[lane] - houseTotals[lane]) >>> 31;
+            playerBustCount -= playerBusts[lane];
+            houseBustCount -= houseBusts[lane];
+        }
+        return new SimulationResult(lanes, playerWins, houseWins, playerBustCount, houseBustCount);
+    }
+
+    /**
+     * Utility method to generate and play whole batches until at least the given number of rounds.
+     *
+     * @param rounds - the minimum number of rounds to play
+     * @param random - the source of the shuffles
+     * @return the outcome of the rounds
+     */
+    public SimulationResult simulate(long rounds, Random random)
+    {
+        SimulationResult result = new SimulationResult(0, 0, 0, 0, 0);
+
+        for (long played = 0; played < rounds; played += lanes)
+            result = result.add(play(generateDecks(random)));
+
+        return result;
+    }
+
+    private void draw(byte[] scores, int steps, int[] totals, int[] cards, int[] busts)
+    {
+        if (kernel != null)
+            kernel.draw(scores, lanes, steps, totals, cards, busts);
+        else
+            HandKernel.drawScalar(scores, lanes, steps, totals, cards, busts);
+    }
+}
@@ -0,0 +1,102 @@
+package model.simulation;
+
+import model.interfaces.GameEngine;
+
+/**
+ * <pre>Kernels applying the draw-until-BUST_LEVEL rule of dealPlayer and dealHouse to many hands at once.
+ *
+ * Card scores are laid out structure-of-arrays, the score of card s of lane l is at s * lanes + l.
+ * {@link #drawScalar} plays one hand at a time with ordinary branches and runs on any JDK.
+ * {@link #vectorKernel()} returns the lock-step Vector API kernel, VectorHandKernel, when the JVM
+ * provides jdk.incubator.vector. It is compiled separately for JDK 17 from the src-jdk17 source root
+ * and loaded through reflection, so this class never refers to it directly.</pre>
+ */
+public final class HandKernel
+{
+    private static final int BUST_LEVEL = GameEngine.BUST_LEVEL;
+    private static final String VECTOR_KERNEL = "model.simulation.VectorHandKernel";
+    private static final LaneKernel VECTOR = loadVectorKernel();
+
+    /**
+     * A kernel playing many hands at once, with the same parameters and results as {@link #drawScalar}.
+     */
+    public interface LaneKernel
+    {
+        void draw(byte[] scores, int lanes, int steps, int[] totals, int[] cards, int[] busts);
+    }
+
+    private HandKernel()
+    {
+    }
+
+    /**
+     * @return the Vector API kernel, or null if it is not on the class path, the JVM was not started with
+     *         --add-modules jdk.incubator.vector or the CPU has no 256 bit vectors
+     */
+    public static LaneKernel vectorKernel()
+    {
+        return VECTOR;
+    }
+
+    /**
+     * Plays every lane's hand one at a time with branches.
+     *
+     * @param scores - card scores, score of card s of lane l at s * lanes + l
+     * @param lanes - the number of hands
+     * @param steps - the number of cards available to each hand
+     * @param totals - receives each hand's result, i.e. the total before any bust card
+     * @param cards - receives the number of cards each hand drew, including a bust card
+     * @param busts - receives -1 for a hand that bust and 0 otherwise
+     */
+    public static void drawScalar(byte[] scores, int lanes, int steps, int[] totals, int[] cards, int[] busts)
+    {
+        drawScalar(scores, lanes, steps, totals, cards, busts, 0);
+    }
+
+    /**
+     * Utility method to play the hands of the lanes from fromLane on, used by VectorHandKernel for the
+     * lanes that do not fill a vector.
+     */
+    static void drawScalar(byte[] scores, int lanes, int steps, int[] totals, int[] cards, int[] busts,
+                           int fromLane)
+    {
+        for (int lane = fromLane; lane < lanes; lane++)
+        {
+            int total = 0;
+            int step = 0;
+            int bust = 0;
+
+            while (total < BUST_LEVEL && step < steps)
+            {
+                int score = scores[step++ * lanes + lane];
+
+                if (total + score > BUST_LEVEL)
+                {
+                    bust = -1;
+                    break;
+                }
+                total += score;
+            }
+
+            totals[lane] = total;
+            cards[lane] = step;
+            busts[lane] = bust;
+        }
+    }
+
+    /**
+     * Utility method to load VectorHandKernel if this JVM can run it.
+     */
+    private static LaneKernel loadVectorKernel()
+    {
+        try
+        {
+            return (LaneKernel) Class.forName(VECTOR_KERNEL).getDeclaredConstructor().newInstance();
+        }
+        catch (ReflectiveOperationException | LinkageError | RuntimeException exception)
+        {
+            // not compiled in, jdk.incubator.vector not resolved or no wide enough vectors
+            return null;
+        }
+    }
+}
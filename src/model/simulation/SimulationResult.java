@@ -0,0 +1,94 @@
+package model.simulation;
+
+/**
+ * <pre>Immutable tally of simulated rounds of one player betting one point against the house.</pre>
+ */
+public class SimulationResult
+{
+    private final long rounds;
+    private final long playerWins;
+    private final long houseWins;
+    private final long playerBusts;
+    private final long houseBusts;
+
+    public SimulationResult(long rounds, long playerWins, long houseWins, long playerBusts, long houseBusts)
+    {
+        if (rounds < 0 || playerWins < 0 || houseWins < 0 || playerWins + houseWins > rounds)
+            throw new IllegalArgumentException();
+
+        this.rounds = rounds;
+        this.playerWins = playerWins;
+        this.houseWins = houseWins;
+        this.playerBusts = playerBusts;
+        this.houseBusts = houseBusts;
+    }
+
+    /**
+     * @param other - the result of further rounds
+     * @return the combined result of both
+     */
+    public SimulationResult add(SimulationResult other)
+    {
+        return new SimulationResult(rounds + other.rounds, playerWins + other.playerWins,
+                houseWins + other.houseWins, playerBusts + other.playerBusts, houseBusts + other.houseBusts);
+    }
+
+    public long getRounds()
+    {
+        return rounds;
+    }
+
+    public long getPlayerWins()
+    {
+        return playerWins;
+    }
+
+    public long getHouseWins()
+    {
+        return houseWins;
+    }
+
+    public long getDraws()
+    {
+        return rounds - playerWins - houseWins;
+    }
+
+    public long getPlayerBusts()
+    {
+        return playerBusts;
+    }
+
+    public long getHouseBusts()
+    {
+        return houseBusts;
+    }
+
+    /**
+     * @return the house's expected gain per point bet, or 0 if no rounds were played
+     */
+    public double getHouseEdge()
+    {
+        return rounds == 0 ? 0 : (double) (houseWins - playerWins) / rounds;
+    }
+
+    /**
+     * @return the standard error of {@link #getHouseEdge()}
+     */
+    public double getStandardError()
+    {
+        if (rounds < 2)
+            return 0;
+
+        // each round pays -1, 0 or +1 so the second moment is the fraction of decided rounds
+        double edge = getHouseEdge();
+        double variance = (double) (houseWins + playerWins) / rounds - edge * edge;
+        return Math.sqrt(variance / (rounds - 1));
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("rounds=%d, player wins=%d, house wins=%d, draws=%d, house edge=%.4f +/- %.4f",
+                rounds, playerWins, houseWins, getDraws(), getHouseEdge(), getStandardError());
+    }
+}
@@ -0,0 +1,527 @@
+package model.simulation;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import model.DrawingStrategy;
+import model.interfaces.GameEngine;
+import model.interfaces.PlayingCard;
+
+/**
+ * <pre>Searches drawing strategies and bet sizes for the one earning a player the most against the house.
+ *
+ * Every candidate plays the same sessions of rounds from a starting balance, dealt from the same decks
+ * (common random numbers), so differences between candidates come from the candidates and not from
+ * luck of the deal. Sessions are played in stages spread over a fixed thread pool. After each stage
+ * a candidate whose paired difference from the leader is below zero with PRUNE_Z standard errors to
+ * spare is dropped, so the remaining stages are spent telling the strong candidates apart.
+ *
+ * Rounds are played as GameEngineImpl plays them with one player: a fresh shuffled half deck, the
+ * player drawing by their strategy and the house drawing to GameEngine.BUST_LEVEL from where the
+ * player stopped.</pre>
+ */
+public class StrategyOptimizer
+{
+    public static final double Z_95 = 1.96;
+
+    // stricter than the reported intervals since every stage retests every candidate
+    public static final double PRUNE_Z = 3.0;
+
+    private static final int DECK_SIZE = PlayingCard.DECK_SIZE;
+    private static final int BUST_LEVEL = GameEngine.BUST_LEVEL;
+
+    // the largest array the JVM reliably allocates
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    private final int initialPoints;
+    private final int maxBet;
+    private final int roundsPerSession;
+    private final int sessionsPerStage;
+    private final int threads;
+
+    /**
+     * @param initialPoints - the balance each session starts with
+     * @param maxBet - the table's bet limit
+     * @param roundsPerSession - the number of rounds per session, fewer if the player runs out of points
+     */
+    public StrategyOptimizer(int initialPoints, int maxBet, int roundsPerSession)
+    {
+        this(initialPoints, maxBet, roundsPerSession, 1000, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param initialPoints - the balance each session starts with
+     * @param maxBet - the table's bet limit
+     * @param roundsPerSession - the number of rounds per session, fewer if the player runs out of points
+     * @param sessionsPerStage - the number of sessions played between pruning passes
+     * @param threads - the number of threads to play sessions on
+     * @throws IllegalArgumentException if a stage's decks, one half deck per round, would not fit in one array
+     */
+    public StrategyOptimizer(int initialPoints, int maxBet, int roundsPerSession, int sessionsPerStage, int threads)
+            throws IllegalArgumentException
+    {
+        if (initialPoints <= 0 || maxBet <= 0 || roundsPerSession <= 0 || sessionsPerStage <= 1 || threads <= 0)
+            throw new IllegalArgumentException();
+
+        // computed as a long, the int product silently wraps for large stages
+        if ((long) sessionsPerStage * roundsPerSession * DECK_SIZE > MAX_ARRAY_SIZE)
+            throw new IllegalArgumentException("Too many rounds per stage: " + sessionsPerStage + " sessions of "
+                    + roundsPerSession + " rounds");
+
+        this.initialPoints = initialPoints;
+        this.maxBet = maxBet;
+        this.roundsPerSession = roundsPerSession;
+        this.sessionsPerStage = sessionsPerStage;
+        this.threads = threads;
+    }
+
+    /**
+     * @param candidates - the candidates to compare
+     * @param maxSessions - the number of sessions to play with candidates that are never pruned,
+     *                      rounded up to whole stages
+     * @param seed - the seed of the decks, the same seed gives the same evaluations
+     * @return an evaluation per candidate, candidates that were never pruned first, best first
+     * @throws InterruptedException if interrupted while waiting for the threads
+     * @throws IllegalArgumentException if maxSessions rounded up to whole stages does not fit in one array
+     */
+    public List<Evaluation> optimize(List<Candidate> candidates, int maxSessions, long seed)
+            throws InterruptedException, IllegalArgumentException
+    {
+        int count = candidates.size();
+        long wholeStages = Math.max(1, ((long) maxSessions + sessionsPerStage - 1) / sessionsPerStage);
+
+        if (wholeStages * sessionsPerStage > MAX_ARRAY_SIZE)
+            throw new IllegalArgumentException("Too many sessions: " + maxSessions);
+
+        int stages = (int) wholeStages;
+        double[][] profits = new double[count][stages * sessionsPerStage];
+        long[] wagered = new long[count];
+        int[] sessions = new int[count];
+        boolean[] alive = new boolean[count];
+        int aliveCount = count;
+
+        for (int index = 0; index < count; index++)
+            alive[index] = true;
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try
+        {
+            for (int stage = 0; stage < stages && aliveCount > 0; stage++)
+            {
+                int first = stage * sessionsPerStage;
+                int chunk = (sessionsPerStage + threads - 1) / threads;
+                byte[] decks = new byte[sessionsPerStage * roundsPerSession * DECK_SIZE];
+
+                List<Callable<Void>> shuffles = new ArrayList<>();
+                for (int from = 0; from < sessionsPerStage; from += chunk)
+                {
+                    int start = from;
+                    int end = Math.min(sessionsPerStage, from + chunk);
+                    shuffles.add(() ->
+                    {
+                        shuffle(decks, first, start, end, seed);
+                        return null;
+                    });
+                }
+                await(pool.invokeAll(shuffles));
+
+                List<Callable<Long>> tasks = new ArrayList<>();
+                List<Integer> owners = new ArrayList<>();
+                for (int index = 0; index < count; index++)
+                {
+                    if (!alive[index])
+                        continue;
+
+                    for (int from = 0; from < sessionsPerStage; from += chunk)
+                    {
+                        Candidate candidate = candidates.get(index);
+                        double[] results = profits[index];
+                        int start = from;
+                        int end = Math.min(sessionsPerStage, from + chunk);
+
+                        tasks.add(() -> playSessions(candidate, decks, first, start, end, results));
+                        owners.add(index);
+                    }
+                }
+
+                List<Long> stakes = await(pool.invokeAll(tasks));
+                for (int task = 0; task < stakes.size(); task++)
+                    wagered[owners.get(task)] += stakes.get(task);
+
+                for (int index = 0; index < count; index++)
+                {
+                    if (alive[index])
+                        sessions[index] += sessionsPerStage;
+                }
+                aliveCount -= prune(profits, alive, first + sessionsPerStage);
+            }
+        }
+        finally
+        {
+            pool.shutdownNow();
+        }
+
+        List<Evaluation> evaluations = new ArrayList<>();
+        for (int index = 0; index < count; index++)
+        {
+            evaluations.add(new Evaluation(candidates.get(index), profits[index], sessions[index], wagered[index],
+                    initialPoints, !alive[index]));
+        }
+        evaluations.sort(Comparator.comparing(Evaluation::isPruned)
+                .thenComparing(Comparator.comparingDouble(Evaluation::getMeanProfit).reversed()));
+        return evaluations;
+    }
+
+    /**
+     * Utility method to drop the candidates the leader beats with PRUNE_Z standard errors to spare.
+     *
+     * @param profits - the profit of every session per candidate
+     * @param alive - which candidates are still being evaluated, updated in place
+     * @param sessions - the number of sessions played so far by every live candidate
+     * @return the number of candidates dropped
+     */
+    private static int prune(double[][] profits, boolean[] alive, int sessions)
+    {
+        int leader = -1;
+        double best = Double.NEGATIVE_INFINITY;
+
+        for (int index = 0; index < profits.length; index++)
+        {
+            if (!alive[index])
+                continue;
+
+            double mean = mean(profits[index], sessions);
+            if (mean > best)
+            {
+                best = mean;
+                leader = index;
+            }
+        }
+
+        int dropped = 0;
+        for (int index = 0; index < profits.length; index++)
+        {
+            if (!alive[index] || index == leader)
+                continue;
+
+            // paired differences on the same decks cancel most of the noise of the deal
+            double mean = 0;
+            double sumOfSquares = 0;
+            for (int session = 0; session < sessions; session++)
+            {
+                double difference = profits[index][session] - profits[leader][session];
+                double delta = difference - mean;
+                mean += delta / (session + 1);
+                sumOfSquares += delta * (difference - mean);
+            }
+
+            double standardError = Math.sqrt(sumOfSquares / (sessions - 1) / sessions);
+            if (mean + PRUNE_Z * standardError < 0)
+            {
+                alive[index] = false;
+                dropped++;
+            }
+        }
+        return dropped;
+    }
+
+    /**
+     * Utility method to fill a range of a stage's decks with shuffled half decks of card ordinals.
+     *
+     * @param decks - the stage's decks
+     * @param first - the number of sessions in earlier stages
+     * @param from - the first session of the stage to shuffle for
+     * @param to - the session of the stage after the last to shuffle for
+     * @param seed - the optimization's seed
+     */
+    private void shuffle(byte[] decks, int first, int from, int to, long seed)
+    {
+        for (int session = from; session < to; session++)
+        {
+            // each session has its own generator so the decks do not depend on how the work is split, the
+            // seed is mixed since generators with seeds a multiple of their increment apart share a stream
+            SplittableRandom random = new SplittableRandom(new SplittableRandom(seed + first + session).nextLong());
+
+            for (int round = 0; round < roundsPerSession; round++)
+            {
+                int offset = (session * roundsPerSession + round) * DECK_SIZE;
+
+                for (int ordinal = 0; ordinal < DECK_SIZE; ordinal++)
+                    decks[offset + ordinal] = (byte) ordinal;
+
+                for (int index = DECK_SIZE - 1; index > 0; index--)
+                {
+                    int other = random.nextInt(index + 1);
+                    byte card = decks[offset + index];
+                    decks[offset + index] = decks[offset + other];
+                    decks[offset + other] = card;
+                }
+            }
+        }
+    }
+
+    /**
+     * Utility method to play a range of a stage's sessions with one candidate.
+     *
+     * @param candidate - the candidate to play
+     * @param decks - the stage's decks
+     * @param first - the number of sessions in earlier stages
+     * @param from - the first session of the stage to play
+     * @param to - the session of the stage after the last to play
+     * @param profits - receives the profit of each session played
+     * @return the total points bet
+     */
+    private long playSessions(Candidate candidate, byte[] decks, int first, int from, int to, double[] profits)
+    {
+        long wagered = 0;
+
+        for (int session = from; session < to; session++)
+        {
+            long points = initialPoints;
+
+            for (int round = 0; round < roundsPerSession && points > 0; round++)
+            {
+                int bet = candidate.betFor(points, maxBet);
+                wagered += bet;
+                points += bet * playRound(candidate.getStrategy(), decks, (session * roundsPerSession + round) * DECK_SIZE);
+            }
+            profits[first + session] = points - initialPoints;
+        }
+        return wagered;
+    }
+
+    /**
+     * Utility method to play a round from one deck.
+     *
+     * @param strategy - the player's strategy
+     * @param decks - the decks
+     * @param offset - the position of the round's deck
+     * @return 1 if the player wins, -1 if the house wins and 0 for a draw
+     */
+    private static int playRound(DrawingStrategy strategy, byte[] decks, int offset)
+    {
+        int position = offset;
+        int player = 0;
+        int hand = 0;
+
+        while (player < BUST_LEVEL && strategy.shouldDraw(player, hand, hand))
+        {
+            int ordinal = decks[position++];
+            int score = BatchHandSimulator.SCORES[ordinal];
+
+            // a bust card is still seen, as in GameEngineImpl
+            hand |= 1 << ordinal;
+            if (player + score > BUST_LEVEL)
+                break;
+            player += score;
+        }
+
+        int house = 0;
+        while (house < BUST_LEVEL)
+        {
+            int score = BatchHandSimulator.SCORES[decks[position++]];
+            if (house + score > BUST_LEVEL)
+                break;
+            house += score;
+        }
+        return Integer.compare(player, house);
+    }
+
+    private static double mean(double[] values, int count)
+    {
+        double sum = 0;
+        for (int index = 0; index < count; index++)
+            sum += values[index];
+        return sum / count;
+    }
+
+    private static <T> List<T> await(List<Future<T>> futures) throws InterruptedException
+    {
+        List<T> results = new ArrayList<>();
+
+        for (Future<T> future : futures)
+        {
+            try
+            {
+                results.add(future.get());
+            }
+            catch (ExecutionException exception)
+            {
+                throw new IllegalStateException("Simulation failed", exception.getCause());
+            }
+        }
+        return results;
+    }
+
+    /**
+     * A drawing strategy paired with a bet size.
+     */
+    public static class Candidate
+    {
+        private final String name;
+        private final DrawingStrategy strategy;
+        private final double betFraction;
+
+        /**
+         * @param name - the name to report the candidate by
+         * @param strategy - the player's drawing strategy
+         * @param betFraction - the fraction of the player's balance bet each round, within the bet limit
+         */
+        public Candidate(String name, DrawingStrategy strategy, double betFraction)
+        {
+            if (strategy == null || betFraction <= 0 || betFraction > 1)
+                throw new IllegalArgumentException();
+
+            this.name = name;
+            this.strategy = strategy;
+            this.betFraction = betFraction;
+        }
+
+        public String getName()
+        {
+            return name;
+        }
+
+        public DrawingStrategy getStrategy()
+        {
+            return strategy;
+        }
+
+        public double getBetFraction()
+        {
+            return betFraction;
+        }
+
+        /**
+         * @param points - the player's balance, above zero
+         * @param maxBet - the table's bet limit
+         * @return the bet, at least 1 and at most the balance and the limit
+         */
+        public int betFor(long points, int maxBet)
+        {
+            return (int) Math.max(1, Math.min(Math.min(points, maxBet), (long) (points * betFraction)));
+        }
+
+        @Override
+        public String toString()
+        {
+            return name;
+        }
+    }
+
+    /**
+     * The outcome of a candidate's sessions.
+     */
+    public static class Evaluation
+    {
+        private final Candidate candidate;
+        private final int sessions;
+        private final double meanProfit;
+        private final double standardError;
+        private final double ruinRate;
+        private final double edge;
+        private final boolean pruned;
+
+        private Evaluation(Candidate candidate, double[] profits, int sessions, long wagered, int initialPoints,
+                           boolean pruned)
+        {
+            this.candidate = candidate;
+            this.sessions = sessions;
+            this.pruned = pruned;
+
+            double mean = 0;
+            double sumOfSquares = 0;
+            int ruined = 0;
+            for (int session = 0; session < sessions; session++)
+            {
+                double delta = profits[session] - mean;
+                mean += delta / (session + 1);
+                sumOfSquares += delta * (profits[session] - mean);
+                ruined += profits[session] <= -initialPoints ? 1 : 0;
+            }
+
+            this.meanProfit = mean;
+            this.standardError = sessions > 1 ? Math.sqrt(sumOfSquares / (sessions - 1) / sessions) : 0;
+            this.ruinRate = sessions == 0 ? 0 : (double) ruined / sessions;
+            this.edge = wagered == 0 ? 0 : mean * sessions / wagered;
+        }
+
+        public Candidate getCandidate()
+        {
+            return candidate;
+        }
+
+        /**
+         * @return the number of sessions played, fewer than requested if the candidate was pruned
+         */
+        public int getSessions()
+        {
+            return sessions;
+        }
+
+        /**
+         * @return the player's mean profit per session, i.e. the house's mean loss
+         */
+        public double getMeanProfit()
+        {
+            return meanProfit;
+        }
+
+        public double getStandardError()
+        {
+            return standardError;
+        }
+
+        /**
+         * @return the lower bound of the 95% confidence interval of the mean profit
+         */
+        public double getLowerBound()
+        {
+            return meanProfit - Z_95 * standardError;
+        }
+
+        /**
+         * @return the upper bound of the 95% confidence interval of the mean profit
+         */
+        public double getUpperBound()
+        {
+            return meanProfit + Z_95 * standardError;
+        }
+
+        /**
+         * @return the fraction of sessions in which the player lost every point
+         */
+        public double getRuinRate()
+        {
+            return ruinRate;
+        }
+
+        /**
+         * @return the player's mean profit per point bet, negative while the house has the edge
+         */
+        public double getPlayerEdge()
+        {
+            return edge;
+        }
+
+        public boolean isPruned()
+        {
+            return pruned;
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s: profit/session=%.2f [%.2f, %.2f], player edge=%.4f, ruin=%.3f, sessions=%d%s",
+                    candidate, meanProfit, getLowerBound(), getUpperBound(), edge, ruinRate, sessions,
+                    pruned ? ", pruned" : "");
+        }
+    }
+}
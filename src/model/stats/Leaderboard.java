@@ -0,0 +1,530 @@
+package model.stats;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import model.GameEvent;
+import model.interfaces.GameEngine;
+import model.interfaces.Player;
+import model.interfaces.PlayingCard;
+import view.interfaces.GameEngineCallback;
+
+/**
+ * <pre>Players ranked by points, kept in order as balances change instead of sorted on every query.
+ *
+ * Entries are held in an order-statistic treap, a randomly balanced binary search tree in which every
+ * node also counts the nodes beneath it, ordered by points, highest first, then by player id. A balance
+ * change is an O(log n) removal and insertion, the top k players are read in O(log n + k) and the
+ * rank of a player is counted in O(log n).
+ *
+ * As a callback the leaderboard takes every player's points at the end of each round, i.e. after
+ * applyWinLoss has settled the bets, skipping players whose points did not change, and drops the
+ * players the engine listed at the end of its previous round who have since left. One leaderboard
+ * may be registered with many engines on different threads. Updates take a write lock once per round
+ * and queries a read lock, so readers on any thread see either all or none of a round's changes.
+ *
+ * Players are keyed by id alone, so ids are expected to be unique across all the engines a
+ * leaderboard is registered with. {@link #forget(GameEngine)} drops the players of a table that has
+ * closed, e.g. from TableServer.addCloseListener, and {@link #moved(GameEngine, GameEngine)} hands the
+ * players of a table moved to another engine over to it, e.g. from TableServer.addMoveListener, so a
+ * forget of the old engine afterwards leaves them ranked.</pre>
+ *
+ * @see model.GameEngineImpl#addGameEngineCallback(GameEngineCallback, Set)
+ */
+public class Leaderboard implements GameEngineCallback
+{
+    /**
+     * The only events the leaderboard uses, register with these to skip the per-card dispatch
+     */
+    public static final Set<GameEvent.Type> EVENTS = Collections.unmodifiableSet(EnumSet.of(
+            GameEvent.Type.HOUSE_RESULT));
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Node> nodes = new HashMap<>();
+    private final Map<GameEngine, Set<String>> seated = new IdentityHashMap<>();
+    private final SplittableRandom priorities = new SplittableRandom();
+    private Node root;
+
+    // results of split, only used under the write lock
+    private Node splitLeft;
+    private Node splitRight;
+
+    @Override
+    public void nextCard(Player player, PlayingCard card, GameEngine engine)
+    {
+        // individual cards do not change balances
+    }
+
+    @Override
+    public void bustCard(Player player, PlayingCard card, GameEngine engine)
+    {
+        // individual cards do not change balances
+    }
+
+    @Override
+    public void result(Player player, int result, GameEngine engine)
+    {
+        // balances change only once the house has played
+    }
+
+    @Override
+    public void nextHouseCard(PlayingCard card, GameEngine engine)
+    {
+        // individual cards do not change balances
+    }
+
+    @Override
+    public void houseBustCard(PlayingCard card, GameEngine engine)
+    {
+        // individual cards do not change balances
+    }
+
+    @Override
+    public void houseResult(int result, GameEngine engine)
+    {
+        Set<String> current = new HashSet<>();
+        for (Player player : engine.getAllPlayers())
+            current.add(player.getPlayerId());
+
+        lock.writeLock().lock();
+        try
+        {
+            // players listed at the end of the engine's previous round who have left since
+            Set<String> previous = seated.put(engine, current);
+            if (previous != null)
+            {
+                for (String playerId : previous)
+                {
+                    if (!current.contains(playerId))
+                        erase(playerId);
+                }
+            }
+            insertAll(engine.getAllPlayers());
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drops the players an engine listed at the end of its last round, to be called once its table has
+     * closed and the engine raises no more events.
+     *
+     * @param engine - the engine of the closed table
+     */
+    public void forget(GameEngine engine)
+    {
+        lock.writeLock().lock();
+        try
+        {
+            Set<String> previous = seated.remove(engine);
+            if (previous != null)
+            {
+                for (String playerId : previous)
+                    erase(playerId);
+            }
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Hands the players an engine listed at the end of its last round over to the engine that replaced
+     * it, to be called once the old engine raises no more events. If the new engine has already ended a
+     * round its own list stands and players who left since the move are dropped.
+     *
+     * @param from - the engine of the moved table
+     * @param to - the engine now hosting the table
+     */
+    public void moved(GameEngine from, GameEngine to)
+    {
+        lock.writeLock().lock();
+        try
+        {
+            Set<String> previous = seated.remove(from);
+            if (previous == null)
+                return;
+
+            Set<String> current = seated.get(to);
+            if (current == null)
+                seated.put(to, previous);
+            else
+            {
+                for (String playerId : previous)
+                {
+                    if (!current.contains(playerId))
+                        erase(playerId);
+                }
+            }
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds the player or moves them to their current points.
+     *
+     * @param player - the player to rank
+     */
+    public void update(Player player)
+    {
+        updateAll(Collections.singletonList(player));
+    }
+
+    /**
+     * Adds or moves every player in one write, so readers see all of the changes or none of them.
+     *
+     * @param players - the players to rank
+     */
+    public void updateAll(Iterable<Player> players)
+    {
+        lock.writeLock().lock();
+        try
+        {
+            insertAll(players);
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param playerId - id of the player to drop from the leaderboard
+     * @return true if the player was ranked
+     */
+    public boolean remove(String playerId)
+    {
+        lock.writeLock().lock();
+        try
+        {
+            return erase(playerId);
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param count - the number of entries to return
+     * @return up to count entries, highest points first
+     */
+    public List<Entry> getTop(int count)
+    {
+        if (count < 0)
+            throw new IllegalArgumentException();
+
+        lock.readLock().lock();
+        try
+        {
+            List<Entry> top = new ArrayList<>(Math.min(count, nodes.size()));
+            Deque<Node> path = new ArrayDeque<>();
+            Node node = root;
+
+            // in-order walk that stops after count nodes
+            while (top.size() < count && (node != null || !path.isEmpty()))
+            {
+                if (node != null)
+                {
+                    path.push(node);
+                    node = node.left;
+                }
+                else
+                {
+                    node = path.pop();
+                    top.add(node.entry);
+                    node = node.right;
+                }
+            }
+            return top;
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param playerId - id of a player
+     * @return the player's position from 1 for the most points, players with equal points ordered
+     *         by id, or -1 if the player is not ranked
+     */
+    public int getRank(String playerId)
+    {
+        lock.readLock().lock();
+        try
+        {
+            Node target = nodes.get(playerId);
+
+            if (target == null)
+                return -1;
+
+            int rank = 1;
+            Node node = root;
+            while (node != null)
+            {
+                int order = compare(target, node);
+
+                if (order == 0)
+                    return rank + size(node.left);
+
+                if (order < 0)
+                    node = node.left;
+                else
+                {
+                    rank += size(node.left) + 1;
+                    node = node.right;
+                }
+            }
+            throw new IllegalStateException("Leaderboard entry missing from tree: " + playerId);
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param playerId - id of a player
+     * @return the player's entry, or null if the player is not ranked
+     */
+    public Entry getEntry(String playerId)
+    {
+        lock.readLock().lock();
+        try
+        {
+            Node node = nodes.get(playerId);
+            return node == null ? null : node.entry;
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size()
+    {
+        lock.readLock().lock();
+        try
+        {
+            return nodes.size();
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Utility method to add or move players, must be called holding the write lock.
+     */
+    private void insertAll(Iterable<Player> players)
+    {
+        for (Player player : players)
+        {
+            Node node = nodes.get(player.getPlayerId());
+
+            if (node != null && node.entry.getPoints() == player.getPoints()
+                    && node.entry.getPlayerName().equals(player.getPlayerName()))
+                continue;
+
+            if (node != null)
+                root = erase(root, node);
+
+            node = new Node(new Entry(player.getPlayerId(), player.getPlayerName(), player.getPoints()),
+                    priorities.nextInt());
+            nodes.put(node.entry.getPlayerId(), node);
+            root = insert(root, node);
+        }
+    }
+
+    /**
+     * Utility method to drop a player, must be called holding the write lock.
+     *
+     * @return true if the player was ranked
+     */
+    private boolean erase(String playerId)
+    {
+        Node node = nodes.remove(playerId);
+
+        if (node == null)
+            return false;
+
+        root = erase(root, node);
+        return true;
+    }
+
+    private Node insert(Node node, Node item)
+    {
+        if (node == null)
+            return item;
+
+        // the item becomes the root of this subtree if it outranks it in priority
+        if (item.priority > node.priority)
+        {
+            split(node, item);
+            item.left = splitLeft;
+            item.right = splitRight;
+            return resize(item);
+        }
+
+        if (compare(item, node) < 0)
+            node.left = insert(node.left, item);
+        else
+            node.right = insert(node.right, item);
+        return resize(node);
+    }
+
+    private Node erase(Node node, Node item)
+    {
+        int order = compare(item, node);
+
+        if (order == 0)
+            return merge(node.left, node.right);
+
+        if (order < 0)
+            node.left = erase(node.left, item);
+        else
+            node.right = erase(node.right, item);
+        return resize(node);
+    }
+
+    /**
+     * Utility method to split a subtree into the nodes ordered before the key, left in splitLeft,
+     * and the rest, left in splitRight.
+     *
+     * @param node - the root of the subtree
+     * @param key - the node to split at
+     */
+    private void split(Node node, Node key)
+    {
+        if (node == null)
+        {
+            splitLeft = null;
+            splitRight = null;
+        }
+        else if (compare(node, key) < 0)
+        {
+            split(node.right, key);
+            node.right = splitLeft;
+            splitLeft = resize(node);
+        }
+        else
+        {
+            split(node.left, key);
+            node.left = splitRight;
+            splitRight = resize(node);
+        }
+    }
+
+    /**
+     * Utility method to join two subtrees, every node of left ordered before every node of right.
+     *
+     * @param left - the root of the first subtree
+     * @param right - the root of the second subtree
+     * @return the root of the joined tree
+     */
+    private static Node merge(Node left, Node right)
+    {
+        if (left == null)
+            return right;
+        if (right == null)
+            return left;
+
+        if (left.priority > right.priority)
+        {
+            left.right = merge(left.right, right);
+            return resize(left);
+        }
+        right.left = merge(left, right.left);
+        return resize(right);
+    }
+
+    private static Node resize(Node node)
+    {
+        node.size = 1 + size(node.left) + size(node.right);
+        return node;
+    }
+
+    private static int size(Node node)
+    {
+        return node == null ? 0 : node.size;
+    }
+
+    private static int compare(Node first, Node second)
+    {
+        int order = Integer.compare(second.entry.getPoints(), first.entry.getPoints());
+        return order != 0 ? order : first.entry.getPlayerId().compareTo(second.entry.getPlayerId());
+    }
+
+    /**
+     * A player's name and points as of the last update.
+     */
+    public static class Entry
+    {
+        private final String playerId;
+        private final String playerName;
+        private final int points;
+
+        private Entry(String playerId, String playerName, int points)
+        {
+            this.playerId = playerId;
+            this.playerName = playerName;
+            this.points = points;
+        }
+
+        public String getPlayerId()
+        {
+            return playerId;
+        }
+
+        public String getPlayerName()
+        {
+            return playerName;
+        }
+
+        public int getPoints()
+        {
+            return points;
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s (%s): %d", playerName, playerId, points);
+        }
+    }
+
+    private static class Node
+    {
+        private final Entry entry;
+        private final int priority;
+        private int size = 1;
+        private Node left;
+        private Node right;
+
+        private Node(Entry entry, int priority)
+        {
+            this.entry = entry;
+            this.priority = priority;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package model.stats;
+
+/**
+ * An immutable snapshot of a single player's statistics as of the end of the most recent round
+ * they were dealt in.
+ *
+ * @see StatisticsAggregator#getPlayerStatistics(String)
+ */
+public class PlayerStatistics
+{
+    private final String playerId;
+    private final long wins;
+    private final long losses;
+    private final long draws;
+    private final long busts;
+    private final ResultStatistics results;
+    private final double decayedWinRate;
+    private final int points;
+    private final int minPoints;
+    private final int maxPoints;
+    private final double decayedPointsChange;
+
+    PlayerStatistics(String playerId, long wins, long losses, long draws, long busts, ResultStatistics results,
+                     double decayedWinRate, int points, int minPoints, int maxPoints, double decayedPointsChange)
+    {
+        this.playerId = playerId;
+        this.wins = wins;
+        this.losses = losses;
+        this.draws = draws;
+        this.busts = busts;
+        this.results = results;
+        this.decayedWinRate = decayedWinRate;
+        this.points = points;
+        this.minPoints = minPoints;
+        this.maxPoints = maxPoints;
+        this.decayedPointsChange = decayedPointsChange;
+    }
+
+    public String getPlayerId()
+    {
+        return playerId;
+    }
+
+    /**
+     * @return the number of hands dealt to the player
+     */
+    public long getHands()
+    {
+        return results.getCount();
+    }
+
+    public long getWins()
+    {
+        return wins;
+    }
+
+    public long getLosses()
+    {
+        return losses;
+    }
+
+    public long getDraws()
+    {
+        return draws;
+    }
+
+    /**
+     * @return wins as a fraction of settled hands
+     */
+    public double getWinRate()
+    {
+        long settled = wins + losses + draws;
+        return settled == 0 ? 0 : wins / (double) settled;
+    }
+
+    /**
+     * @return the win rate weighted towards recent rounds
+     */
+    public double getDecayedWinRate()
+    {
+        return decayedWinRate;
+    }
+
+    public long getBusts()
+    {
+        return busts;
+    }
+
+    /**
+     * @return busts as a fraction of hands dealt
+     */
+    public double getBustRate()
+    {
+        return getHands() == 0 ? 0 : busts / (double) getHands();
+    }
+
+    /**
+     * @return the distribution of the player's results
+     */
+    public ResultStatistics getResults()
+    {
+        // copied since the snapshot itself must stay immutable
+        return results.copy();
+    }
+
+    public double getAverageResult()
+    {
+        return results.getMean();
+    }
+
+    /**
+     * @return the player's points after the most recent settlement
+     */
+    public int getPoints()
+    {
+        return points;
+    }
+
+    public int getMinPoints()
+    {
+        return minPoints;
+    }
+
+    public int getMaxPoints()
+    {
+        return maxPoints;
+    }
+
+    /**
+     * @return the change in points per round weighted towards recent rounds, i.e. the balance trend
+     */
+    public double getDecayedPointsChange()
+    {
+        return decayedPointsChange;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("Player: id=%s, hands=%d, win rate=%.3f (recent %.3f), bust rate=%.3f, "
+                        + "average result=%.2f, points=%d [%d..%d], trend=%+.1f/round",
+                playerId, getHands(), getWinRate(), decayedWinRate, getBustRate(), getAverageResult(),
+                points, minPoints, maxPoints, decayedPointsChange);
+    }
+}
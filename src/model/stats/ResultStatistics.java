@@ -0,0 +1,113 @@
+package model.stats;
+
+import java.util.Arrays;
+
+import model.interfaces.GameEngine;
+
+/**
+ * <pre>Streaming summary of hand results, updated in O(1) per result.
+ *
+ * Keeps the running mean and variance using Welford's algorithm and, since a result can only
+ * range from 0 to GameEngine.BUST_LEVEL, an exact histogram from which percentiles are read
+ * without storing the individual results.</pre>
+ */
+public class ResultStatistics
+{
+    private final int[] histogram = new int[GameEngine.BUST_LEVEL + 1];
+    private long count;
+    private double mean;
+    private double sumOfSquares;
+
+    public ResultStatistics()
+    {
+    }
+
+    private ResultStatistics(ResultStatistics other)
+    {
+        System.arraycopy(other.histogram, 0, histogram, 0, histogram.length);
+        count = other.count;
+        mean = other.mean;
+        sumOfSquares = other.sumOfSquares;
+    }
+
+    /**
+     * @param result - the result to add, between 0 and GameEngine.BUST_LEVEL
+     */
+    public void add(int result)
+    {
+        if (result < 0 || result > GameEngine.BUST_LEVEL)
+            throw new IllegalArgumentException();
+
+        histogram[result]++;
+        count++;
+
+        // Welford's update keeps the variance numerically stable without storing the results
+        double delta = result - mean;
+        mean += delta / count;
+        sumOfSquares += delta * (result - mean);
+    }
+
+    /**
+     * @return an independent copy of these statistics
+     */
+    public ResultStatistics copy()
+    {
+        return new ResultStatistics(this);
+    }
+
+    public long getCount()
+    {
+        return count;
+    }
+
+    public double getMean()
+    {
+        return mean;
+    }
+
+    /**
+     * @return the sample variance of the results, 0 until there are at least two results
+     */
+    public double getVariance()
+    {
+        return count < 2 ? 0 : sumOfSquares / (count - 1);
+    }
+
+    public double getStandardDeviation()
+    {
+        return Math.sqrt(getVariance());
+    }
+
+    /**
+     * @param percentile - the percentile to report between 0 and 100
+     * @return the smallest result at or below which the percentile of results fall, or 0 if empty
+     */
+    public int getPercentile(double percentile)
+    {
+        long target = Math.max(1, (long) Math.ceil(count * percentile / 100.0));
+        long seen = 0;
+
+        for (int result = 0; result < histogram.length; result++)
+        {
+            seen += histogram[result];
+            if (seen >= target)
+                return result;
+        }
+        return 0;
+    }
+
+    /**
+     * @return a copy of the number of times each result from 0 to GameEngine.BUST_LEVEL occurred
+     */
+    public int[] getHistogram()
+    {
+        return Arrays.copyOf(histogram, histogram.length);
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("count=%d, mean=%.2f, stddev=%.2f, median=%d",
+                count, mean, getStandardDeviation(), getPercentile(50));
+    }
+}
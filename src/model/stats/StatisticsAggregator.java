@@ -0,0 +1,218 @@
+package model.stats;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import model.GameEvent;
+import model.interfaces.GameEngine;
+import model.interfaces.Player;
+import model.interfaces.PlayingCard;
+import view.interfaces.GameEngineCallback;
+
+/**
+ * <pre>GameEngineCallback that maintains live per-player and per-table statistics.
+ *
+ * Every event is folded into running totals with O(1) work on the dealing thread, nothing is
+ * rescanned. At the end of each round immutable snapshots of the table and of every player who
+ * took part are published, so {@link #getPlayerStatistics(String)} and {@link #getTableStatistics()}
+ * can be called from any thread at any time without locking the engine.
+ *
+ * NOTE: register one aggregator per engine, the running totals are owned by that engine's dealing thread.</pre>
+ *
+ * @see model.GameEngineImpl#addGameEngineCallback(GameEngineCallback, Set)
+ */
+public class StatisticsAggregator implements GameEngineCallback
+{
+    /**
+     * The only events the aggregator uses, register with these to skip the per-card dispatch
+     */
+    public static final Set<GameEvent.Type> EVENTS = Collections.unmodifiableSet(EnumSet.of(
+            GameEvent.Type.BUST_CARD, GameEvent.Type.RESULT, GameEvent.Type.HOUSE_BUST_CARD,
+            GameEvent.Type.HOUSE_RESULT));
+
+    private final double decay;
+    private final Map<String, PlayerTotals> players = new HashMap<>();
+    private final Map<String, PlayerStatistics> playerSnapshots = new ConcurrentHashMap<>();
+    private final ResultStatistics houseResults = new ResultStatistics();
+    private long houseWins;
+    private long houseLosses;
+    private long draws;
+    private long houseBusts;
+    private long pointsWon;
+    private double decayedHouseWinRate;
+    private volatile TableStatistics tableSnapshot;
+
+    public StatisticsAggregator()
+    {
+        this(50);
+    }
+
+    /**
+     * @param halfLife - the number of rounds after which an outcome counts half as much in the decayed rates
+     */
+    public StatisticsAggregator(int halfLife)
+    {
+        if (halfLife < 1)
+            throw new IllegalArgumentException();
+
+        decay = 1 - Math.pow(0.5, 1.0 / halfLife);
+        tableSnapshot = snapshotTable();
+    }
+
+    @Override
+    public void nextCard(Player player, PlayingCard card, GameEngine engine)
+    {
+        // individual cards do not affect any statistic
+    }
+
+    @Override
+    public void bustCard(Player player, PlayingCard card, GameEngine engine)
+    {
+        totalsOf(player).busts++;
+    }
+
+    @Override
+    public void result(Player player, int result, GameEngine engine)
+    {
+        totalsOf(player).results.add(result);
+    }
+
+    @Override
+    public void nextHouseCard(PlayingCard card, GameEngine engine)
+    {
+        // individual cards do not affect any statistic
+    }
+
+    @Override
+    public void houseBustCard(PlayingCard card, GameEngine engine)
+    {
+        houseBusts++;
+    }
+
+    @Override
+    public void houseResult(int result, GameEngine engine)
+    {
+        houseResults.add(result);
+
+        // bets have been settled but not yet reset, so only players who bet this round are counted
+        for (Player player : engine.getAllPlayers())
+        {
+            if (player.getBet() == 0)
+                continue;
+
+            PlayerTotals totals = totalsOf(player);
+            int change;
+
+            if (player.getResult() > result)
+            {
+                totals.wins++;
+                houseLosses++;
+                change = player.getBet();
+            }
+            else if (player.getResult() < result)
+            {
+                totals.losses++;
+                houseWins++;
+                change = -player.getBet();
+            }
+            else
+            {
+                totals.draws++;
+                draws++;
+                change = 0;
+            }
+
+            pointsWon -= change;
+            totals.decayedWinRate += decay * ((change > 0 ? 1 : 0) - totals.decayedWinRate);
+            decayedHouseWinRate += decay * ((change < 0 ? 1 : 0) - decayedHouseWinRate);
+            totals.settle(player.getPoints(), change, decay);
+
+            playerSnapshots.put(player.getPlayerId(), totals.snapshot());
+        }
+        tableSnapshot = snapshotTable();
+    }
+
+    /**
+     * @param playerId - id of the player
+     * @return the player's statistics as of the last round they took part in, or null if they never have
+     */
+    public PlayerStatistics getPlayerStatistics(String playerId)
+    {
+        return playerSnapshots.get(playerId);
+    }
+
+    /**
+     * @return the latest statistics of every player who has taken part in a round
+     */
+    public Collection<PlayerStatistics> getAllPlayerStatistics()
+    {
+        return Collections.unmodifiableCollection(playerSnapshots.values());
+    }
+
+    /**
+     * @return the table's statistics as of the end of the last round
+     */
+    public TableStatistics getTableStatistics()
+    {
+        return tableSnapshot;
+    }
+
+    /**
+     * Utility method to find or create the running totals for a player.
+     */
+    private PlayerTotals totalsOf(Player player)
+    {
+        return players.computeIfAbsent(player.getPlayerId(), PlayerTotals::new);
+    }
+
+    /**
+     * Utility method to build an immutable copy of the table totals.
+     */
+    private TableStatistics snapshotTable()
+    {
+        return new TableStatistics(houseWins, houseLosses, draws, houseBusts, houseResults.copy(),
+                decayedHouseWinRate, pointsWon);
+    }
+
+    /**
+     * Running totals for one player, only accessed by the dealing thread.
+     */
+    private static class PlayerTotals
+    {
+        private final String playerId;
+        private final ResultStatistics results = new ResultStatistics();
+        private long wins;
+        private long losses;
+        private long draws;
+        private long busts;
+        private double decayedWinRate;
+        private int points;
+        private int minPoints = Integer.MAX_VALUE;
+        private int maxPoints = Integer.MIN_VALUE;
+        private double decayedPointsChange;
+
+        private PlayerTotals(String playerId)
+        {
+            this.playerId = playerId;
+        }
+
+        private void settle(int points, int change, double decay)
+        {
+            this.points = points;
+            minPoints = Math.min(minPoints, points);
+            maxPoints = Math.max(maxPoints, points);
+            decayedPointsChange += decay * (change - decayedPointsChange);
+        }
+
+        private PlayerStatistics snapshot()
+        {
+            return new PlayerStatistics(playerId, wins, losses, draws, busts, results.copy(), decayedWinRate,
+                    points, minPoints, maxPoints, decayedPointsChange);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package model.stats;
+
+/**
+ * An immutable snapshot of a table's statistics as of the end of the most recent round.
+ *
+ * @see StatisticsAggregator#getTableStatistics()
+ */
+public class TableStatistics
+{
+    private final long houseWins;
+    private final long houseLosses;
+    private final long draws;
+    private final long houseBusts;
+    private final ResultStatistics houseResults;
+    private final double decayedHouseWinRate;
+    private final long pointsWon;
+
+    TableStatistics(long houseWins, long houseLosses, long draws, long houseBusts, ResultStatistics houseResults,
+                    double decayedHouseWinRate, long pointsWon)
+    {
+        this.houseWins = houseWins;
+        this.houseLosses = houseLosses;
+        this.draws = draws;
+        this.houseBusts = houseBusts;
+        this.houseResults = houseResults;
+        this.decayedHouseWinRate = decayedHouseWinRate;
+        this.pointsWon = pointsWon;
+    }
+
+    /**
+     * @return the number of rounds completed
+     */
+    public long getRounds()
+    {
+        return houseResults.getCount();
+    }
+
+    /**
+     * @return the number of bets the house won
+     */
+    public long getHouseWins()
+    {
+        return houseWins;
+    }
+
+    /**
+     * @return the number of bets the house lost
+     */
+    public long getHouseLosses()
+    {
+        return houseLosses;
+    }
+
+    public long getDraws()
+    {
+        return draws;
+    }
+
+    /**
+     * @return bets won by the house as a fraction of settled bets
+     */
+    public double getHouseWinRate()
+    {
+        long settled = houseWins + houseLosses + draws;
+        return settled == 0 ? 0 : houseWins / (double) settled;
+    }
+
+    /**
+     * @return the house win rate weighted towards recent rounds
+     */
+    public double getDecayedHouseWinRate()
+    {
+        return decayedHouseWinRate;
+    }
+
+    public long getHouseBusts()
+    {
+        return houseBusts;
+    }
+
+    /**
+     * @return house busts as a fraction of rounds
+     */
+    public double getHouseBustRate()
+    {
+        return getRounds() == 0 ? 0 : houseBusts / (double) getRounds();
+    }
+
+    /**
+     * @return the distribution of the house's results
+     */
+    public ResultStatistics getHouseResults()
+    {
+        return houseResults.copy();
+    }
+
+    /**
+     * @return the net points won by the house across all settled bets
+     */
+    public long getPointsWon()
+    {
+        return pointsWon;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("Table: rounds=%d, house win rate=%.3f (recent %.3f), house bust rate=%.3f, "
+                        + "average house result=%.2f, points won=%d",
+                getRounds(), getHouseWinRate(), decayedHouseWinRate, getHouseBustRate(),
+                houseResults.getMean(), pointsWon);
+    }
+}
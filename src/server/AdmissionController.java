@@ -0,0 +1,182 @@
+package server;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <pre>Decides whether a command may be queued on a table, shedding load before it reaches the GameEngine.
+ *
+ * BET and DEAL commands must fit within a token bucket rate limit for their player id and another
+ * for their table, and JOIN, BET and DEAL are refused once the table already has maxQueueDepth actions
+ * queued. LEAVE and DEAL_HOUSE end load rather than add to it, so they are not rate limited and get
+ * a quarter of maxQueueDepth of headroom above the bound, but a flood of them is still refused once
+ * the headroom is used up. A refused command's future fails with a RejectedExecutionException naming
+ * the limit.
+ *
+ * The queue bound is checked before queueing, without a lock, so concurrent submitters may overshoot
+ * it by at most their number. A player's bucket is dropped once a LEAVE has actually removed the
+ * player from the table, and idle ones once the number of buckets doubles, so bots that never leave
+ * cannot grow the map without bound.</pre>
+ *
+ * @see TableServer#TableServer(java.util.concurrent.Executor, AdmissionController)
+ */
+public class AdmissionController
+{
+    public enum Rejection
+    {
+        QUEUE_FULL, PLAYER_RATE, TABLE_RATE
+    }
+
+    private static final int MIN_SWEEP_SIZE = 1024;
+
+    private final double playerRate;
+    private final int playerBurst;
+    private final double tableRate;
+    private final int tableBurst;
+    private final int maxQueueDepth;
+    private final int maxClosingQueueDepth;
+    private final Map<String, TokenBucket> players = new ConcurrentHashMap<>();
+    private final Map<Integer, TokenBucket> tables = new ConcurrentHashMap<>();
+    private final LongAdder admitted = new LongAdder();
+    private final Map<Rejection, LongAdder> rejected = new EnumMap<>(Rejection.class);
+    private volatile int sweepSize = MIN_SWEEP_SIZE;
+
+    /**
+     * @param playerRate - BET and DEAL commands per second allowed per player id, or 0 for no limit
+     * @param playerBurst - the largest burst of commands per player id
+     * @param tableRate - BET and DEAL commands per second allowed per table, or 0 for no limit
+     * @param tableBurst - the largest burst of commands per table
+     * @param maxQueueDepth - the most actions a table may have queued before commands are refused
+     */
+    public AdmissionController(double playerRate, int playerBurst, double tableRate, int tableBurst,
+                               int maxQueueDepth)
+    {
+        if (playerRate < 0 || playerBurst < 1 || tableRate < 0 || tableBurst < 1 || maxQueueDepth < 1)
+            throw new IllegalArgumentException();
+
+        this.playerRate = playerRate;
+        this.playerBurst = playerBurst;
+        this.tableRate = tableRate;
+        this.tableBurst = tableBurst;
+        this.maxQueueDepth = maxQueueDepth;
+        this.maxClosingQueueDepth = maxQueueDepth + Math.max(1, maxQueueDepth / 4);
+
+        for (Rejection rejection : Rejection.values())
+            rejected.put(rejection, new LongAdder());
+    }
+
+    /**
+     * @param table - the table the command is for
+     * @param command - the command to admit
+     * @return null if the command may be queued, otherwise the limit it exceeded
+     */
+    public Rejection admit(Table table, TableCommand command)
+    {
+        Rejection rejection = check(table, command);
+
+        if (rejection == null)
+            admitted.increment();
+        else
+            rejected.get(rejection).increment();
+
+        return rejection;
+    }
+
+    /**
+     * Drops the rate limit state of a player, called by the table once a LEAVE has removed the player.
+     *
+     * @param playerId - id of the player
+     */
+    void forgetPlayer(String playerId)
+    {
+        players.remove(playerId);
+    }
+
+    /**
+     * Drops the rate limit state of a closed table.
+     *
+     * @param tableId - id of the table
+     */
+    public void forgetTable(int tableId)
+    {
+        tables.remove(tableId);
+    }
+
+    public long getAdmittedCount()
+    {
+        return admitted.sum();
+    }
+
+    /**
+     * @param rejection - a limit
+     * @return the number of commands refused for exceeding the limit
+     */
+    public long getRejectedCount(Rejection rejection)
+    {
+        return rejected.get(rejection).sum();
+    }
+
+    /**
+     * @return the number of player ids currently rate limited
+     */
+    public int getTrackedPlayerCount()
+    {
+        return players.size();
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("admitted=%d, queue full=%d, player rate=%d, table rate=%d, tracked players=%d",
+                getAdmittedCount(), getRejectedCount(Rejection.QUEUE_FULL), getRejectedCount(Rejection.PLAYER_RATE),
+                getRejectedCount(Rejection.TABLE_RATE), getTrackedPlayerCount());
+    }
+
+    private Rejection check(Table table, TableCommand command)
+    {
+        TableCommand.Type type = command.getType();
+
+        // the bucket of a leaving player is kept until the LEAVE has been applied, see forgetPlayer
+        if (type == TableCommand.Type.LEAVE || type == TableCommand.Type.DEAL_HOUSE)
+            return table.getQueueDepth() >= maxClosingQueueDepth ? Rejection.QUEUE_FULL : null;
+
+        if (table.getQueueDepth() >= maxQueueDepth)
+            return Rejection.QUEUE_FULL;
+        if (type == TableCommand.Type.JOIN)
+            return null;
+
+        TokenBucket player = playerRate == 0 ? null : playerBucket(command.getPlayerId());
+        if (player != null && !player.tryAcquire())
+            return Rejection.PLAYER_RATE;
+
+        TokenBucket tableBucket = tableRate == 0 ? null :
+                tables.computeIfAbsent(table.getId(), id -> new TokenBucket(tableRate, tableBurst));
+        if (tableBucket != null && !tableBucket.tryAcquire())
+        {
+            // the player did not get to use the token
+            if (player != null)
+                player.release();
+            return Rejection.TABLE_RATE;
+        }
+        return null;
+    }
+
+    private TokenBucket playerBucket(String playerId)
+    {
+        TokenBucket bucket = players.get(playerId);
+
+        if (bucket == null)
+        {
+            // a full bucket behaves exactly as a new one so idle players can be dropped
+            if (players.size() >= sweepSize)
+            {
+                players.values().removeIf(TokenBucket::isFull);
+                sweepSize = Math.max(MIN_SWEEP_SIZE, players.size() * 2);
+            }
+            bucket = players.computeIfAbsent(playerId, id -> new TokenBucket(playerRate, playerBurst));
+        }
+        return bucket;
+    }
+}
@@ -0,0 +1,309 @@
+package server;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+import model.GameEngineImpl;
+import model.SimplePlayer;
+import model.interfaces.GameEngine;
+
+/**
+ * <pre>In-process backup receiving the updates of one or more Replicators.
+ *
+ * Batches are applied in order by a single thread, each table's updates must follow on from the
+ * last one applied, repeats are ignored. A batch that is corrupt or skips updates is rejected and
+ * the applier carries on with the next one, updates of the batch before the bad one stay applied. An optional one-way latency is added to every delivery
+ * to stand in for a network, batches are delayed independently so several can be in flight.
+ *
+ * On failover {@link #promote()} applies everything already received and rebuilds one engine per
+ * table with the replicated players and balances, as of the last completed round replicated.</pre>
+ *
+ * @see Replicator
+ */
+public class BackupNode implements ReplicaLink, AutoCloseable
+{
+    private final long latencyNanos;
+    private final BlockingDeque<Delivery> inbox = new LinkedBlockingDeque<>();
+    private final Map<Integer, TableState> tables = new HashMap<>();
+    private final Thread applier;
+    private long inconsistencies;
+    private long rejected;
+    private boolean promoted;
+
+    public BackupNode()
+    {
+        this(0, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param latency - the delay added to every delivery
+     * @param unit - the unit of the latency
+     */
+    public BackupNode(long latency, TimeUnit unit)
+    {
+        if (latency < 0)
+            throw new IllegalArgumentException();
+
+        latencyNanos = unit.toNanos(latency);
+        applier = new Thread(this::applyDeliveries, "backup");
+        applier.setDaemon(true);
+        applier.start();
+    }
+
+    /**
+     * @throws IllegalStateException if the backup has been promoted
+     */
+    @Override
+    public void send(ByteBuffer batch, LongConsumer ack) throws IllegalStateException
+    {
+        synchronized (this)
+        {
+            if (promoted)
+                throw new IllegalStateException("Backup has been promoted");
+        }
+        inbox.add(new Delivery(batch, ack, System.nanoTime() + latencyNanos));
+    }
+
+    /**
+     * @param tableId - id of a replicated table
+     * @return the sequence number of the table's last applied update, 0 if none
+     */
+    public synchronized long getAppliedSequence(int tableId)
+    {
+        TableState table = tables.get(tableId);
+        return table == null ? 0 : table.sequence;
+    }
+
+    /**
+     * @param tableId - id of a replicated table
+     * @return the house result of the table's last applied round, -1 if none
+     */
+    public synchronized int getLastHouseResult(int tableId)
+    {
+        TableState table = tables.get(tableId);
+        return table == null ? -1 : table.houseResult;
+    }
+
+    /**
+     * @param tableId - id of a replicated table
+     * @param playerId - id of a player at the table
+     * @return the player's replicated points or null if the player is not at the table
+     */
+    public synchronized Integer getPoints(int tableId, String playerId)
+    {
+        TableState table = tables.get(tableId);
+        SimplePlayer player = table == null ? null : table.players.get(playerId);
+        return player == null ? null : player.getPoints();
+    }
+
+    /**
+     * @return the number of updates whose change did not lead from the previous replicated points to
+     *         the new ones, which would mean an update was lost
+     */
+    public synchronized long getInconsistencyCount()
+    {
+        return inconsistencies;
+    }
+
+    /**
+     * @return the number of batches that could not be applied
+     */
+    public synchronized long getRejectedCount()
+    {
+        return rejected;
+    }
+
+    /**
+     * Applies every batch received so far, stops accepting more and rebuilds the replicated tables.
+     *
+     * @return a new engine for every replicated table holding its players and balances
+     */
+    public Map<Integer, GameEngine> promote()
+    {
+        synchronized (this)
+        {
+            promoted = true;
+        }
+        applier.interrupt();
+        try
+        {
+            applier.join();
+        }
+        catch (InterruptedException exception)
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        // the primary is gone, so whatever has arrived is applied at once
+        for (Delivery delivery; (delivery = inbox.poll()) != null; )
+            tryApply(delivery.batch);
+
+        Map<Integer, GameEngine> engines = new LinkedHashMap<>();
+        synchronized (this)
+        {
+            for (Map.Entry<Integer, TableState> table : tables.entrySet())
+            {
+                GameEngine engine = new GameEngineImpl();
+                for (SimplePlayer player : table.getValue().players.values())
+                    engine.addPlayer(SimplePlayer.copyOf(player));
+                engines.put(table.getKey(), engine);
+            }
+        }
+        return engines;
+    }
+
+    /**
+     * Stops applying batches, anything not yet applied is dropped.
+     */
+    @Override
+    public void close()
+    {
+        applier.interrupt();
+    }
+
+    /**
+     * Utility method run on the applier thread to apply deliveries once their latency has passed.
+     */
+    private void applyDeliveries()
+    {
+        while (true)
+        {
+            Delivery delivery;
+
+            try
+            {
+                delivery = inbox.take();
+            }
+            catch (InterruptedException exception)
+            {
+                return;
+            }
+
+            try
+            {
+                long wait = delivery.due - System.nanoTime();
+                if (wait > 0)
+                    TimeUnit.NANOSECONDS.sleep(wait);
+            }
+            catch (InterruptedException exception)
+            {
+                // stopped by promote or close, the delivery is left for promote to apply in order
+                inbox.addFirst(delivery);
+                return;
+            }
+
+            delivery.ack.accept(tryApply(delivery.batch));
+        }
+    }
+
+    /**
+     * Utility method to apply a batch, counting it as rejected if it cannot be.
+     *
+     * @return the sequence number of the batch's last update, or ReplicaLink.REJECTED
+     */
+    private long tryApply(ByteBuffer batch)
+    {
+        try
+        {
+            return apply(batch);
+        }
+        catch (RuntimeException exception)
+        {
+            synchronized (this)
+            {
+                rejected++;
+            }
+            return REJECTED;
+        }
+    }
+
+    /**
+     * Utility method to apply a batch.
+     *
+     * @return the sequence number of the batch's last update
+     */
+    private synchronized long apply(ByteBuffer batch)
+    {
+        TableState table = tables.computeIfAbsent(batch.getInt(), id -> new TableState());
+        long sequence = batch.getLong();
+        int count = batch.getInt();
+
+        for (int update = 0; update < count; update++, sequence++)
+        {
+            if (batch.getLong() != sequence)
+                throw new IllegalStateException("Corrupt replication batch");
+
+            int houseResult = batch.get();
+            int entries = batch.getShort() & 0xFFFF;
+            boolean apply = sequence == table.sequence + 1;
+
+            if (sequence > table.sequence + 1)
+                throw new IllegalStateException("Missing updates " + (table.sequence + 1) + " to " + (sequence - 1));
+
+            for (int entry = 0; entry < entries; entry++)
+            {
+                byte flags = batch.get();
+                String playerId = Replicator.getString(batch);
+                String playerName = Replicator.getString(batch);
+                int points = batch.getInt();
+                int change = batch.getInt();
+                int result = batch.get();
+
+                // repeated updates are skipped but still read past
+                if (!apply)
+                    continue;
+
+                if ((flags & Replicator.LEFT) != 0)
+                {
+                    table.players.remove(playerId);
+                    continue;
+                }
+
+                SimplePlayer previous = table.players.get(playerId);
+                if (previous != null && previous.getPoints() + change != points)
+                    inconsistencies++;
+
+                SimplePlayer player = new SimplePlayer(playerId, playerName, points);
+                player.setResult(result);
+                table.players.put(playerId, player);
+            }
+
+            if (apply)
+            {
+                table.sequence = sequence;
+                table.houseResult = houseResult;
+            }
+        }
+        return sequence - 1;
+    }
+
+    /**
+     * Replicated state of one table.
+     */
+    private static class TableState
+    {
+        private final Map<String, SimplePlayer> players = new LinkedHashMap<>();
+        private long sequence;
+        private int houseResult = -1;
+    }
+
+    private static class Delivery
+    {
+        private final ByteBuffer batch;
+        private final LongConsumer ack;
+        private final long due;
+
+        private Delivery(ByteBuffer batch, LongConsumer ack, long due)
+        {
+            this.batch = batch;
+            this.ack = ack;
+            this.due = due;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package server;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * <pre>Consistent hash ring mapping string keys onto nodes.
+ *
+ * Every node is placed on the ring at virtualNodes points and a key belongs to the first point at
+ * or after its own hash, wrapping around. Adding or removing a node therefore only moves the keys
+ * between the changed node's points and their predecessors, about 1/N of all keys, and the many
+ * points per node keep the share of each node within a few percent of even.</pre>
+ *
+ * @param <N> the type of node, compared by equals and hashed by its toString
+ */
+public class ConsistentHashRing<N>
+{
+    private final int virtualNodes;
+    private final TreeMap<Long, N> ring = new TreeMap<>();
+    private final Set<N> nodes = new LinkedHashSet<>();
+
+    public ConsistentHashRing()
+    {
+        this(128);
+    }
+
+    /**
+     * @param virtualNodes - the number of points each node is placed at
+     */
+    public ConsistentHashRing(int virtualNodes)
+    {
+        if (virtualNodes < 1)
+            throw new IllegalArgumentException();
+
+        this.virtualNodes = virtualNodes;
+    }
+
+    /**
+     * @param node - the node to add, its toString must be unique among the nodes
+     * @return true if the node was not already on the ring
+     */
+    public boolean add(N node)
+    {
+        if (!nodes.add(node))
+            return false;
+
+        for (int point = 0; point < virtualNodes; point++)
+        {
+            // two points colliding is as unlikely as any 64 bit hash collision, the later one is skipped
+            ring.putIfAbsent(hash(node + "#" + point), node);
+        }
+        return true;
+    }
+
+    /**
+     * @param node - the node to remove
+     * @return true if the node was on the ring
+     */
+    public boolean remove(N node)
+    {
+        if (!nodes.remove(node))
+            return false;
+
+        ring.values().removeIf(node::equals);
+        return true;
+    }
+
+    /**
+     * @param key - the key to place, e.g. a player id
+     * @return the node owning the key or null if the ring is empty
+     */
+    public N nodeFor(String key)
+    {
+        if (ring.isEmpty())
+            return null;
+
+        Map.Entry<Long, N> point = ring.ceilingEntry(hash(key));
+        return point != null ? point.getValue() : ring.firstEntry().getValue();
+    }
+
+    public Collection<N> getNodes()
+    {
+        return Collections.unmodifiableSet(nodes);
+    }
+
+    public int size()
+    {
+        return nodes.size();
+    }
+
+    /**
+     * Utility method to hash a key with 64 bit FNV-1a followed by a finalising mix, so similar keys
+     * such as consecutive ids land far apart on the ring.
+     */
+    static long hash(String key)
+    {
+        long hash = 0xcbf29ce484222325L;
+
+        for (int index = 0; index < key.length(); index++)
+        {
+            hash ^= key.charAt(index);
+            hash *= 0x100000001b3L;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        return hash ^ hash >>> 33;
+    }
+}
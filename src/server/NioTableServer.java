@@ -0,0 +1,344 @@
+package server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * <pre>Non-blocking front end that exposes a TableServer to remote clients using the binary WireProtocol.
+ *
+ * A single selector thread accepts connections, reads and decodes command frames and writes
+ * event frames. Commands are handed to the target table and never block the selector, and
+ * outgoing frames are written with gathering writes so several frames share one system call.
+ * Tables are opened by the host on the TableServer, commands for any other table id are
+ * answered with REPLY_ERROR. Replies for a table are sent in the order its commands arrived,
+ * including commands refused straight away.</pre>
+ *
+ * @see WireProtocol
+ */
+public class NioTableServer implements Runnable, Closeable
+{
+    private static final int MAX_GATHER = 64;
+
+    private final TableServer server;
+    private final Selector selector;
+    private final ServerSocketChannel acceptor;
+    private final Queue<Connection> pendingWrites = new ConcurrentLinkedQueue<>();
+    private volatile boolean running = true;
+
+    /**
+     * @param server - the tables to expose
+     * @param address - the address to listen on, use port 0 for any free port
+     * @throws IOException if the address cannot be bound
+     */
+    public NioTableServer(TableServer server, InetSocketAddress address) throws IOException
+    {
+        this.server = server;
+        this.selector = Selector.open();
+        this.acceptor = ServerSocketChannel.open();
+
+        acceptor.bind(address);
+        acceptor.configureBlocking(false);
+        acceptor.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    /**
+     * @return the address the server is listening on
+     * @throws IOException if the address cannot be retrieved
+     */
+    public InetSocketAddress getAddress() throws IOException
+    {
+        return (InetSocketAddress) acceptor.getLocalAddress();
+    }
+
+    /**
+     * Runs the selector loop on the calling thread until {@link #close()} is called.
+     */
+    @Override
+    public void run()
+    {
+        try
+        {
+            while (running)
+            {
+                selector.select();
+
+                // connections with frames queued by table threads since the last select
+                Connection connection;
+                while ((connection = pendingWrites.poll()) != null)
+                    connection.enableWrites();
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext())
+                {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+
+                    if (!key.isValid())
+                        continue;
+
+                    if (key.isAcceptable())
+                        accept();
+                    else
+                        ((Connection) key.attachment()).handle(key);
+                }
+            }
+        }
+        catch (IOException exception)
+        {
+            exception.printStackTrace();
+        }
+        finally
+        {
+            closeQuietly();
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        running = false;
+        selector.wakeup();
+    }
+
+    /**
+     * Utility method to accept a pending connection and register it for reads.
+     */
+    private void accept() throws IOException
+    {
+        SocketChannel channel = acceptor.accept();
+
+        if (channel == null)
+            return;
+
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+
+        Connection connection = new Connection(channel);
+        connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+    }
+
+    /**
+     * Utility method to release the selector and every registered channel.
+     */
+    private void closeQuietly()
+    {
+        for (SelectionKey key : selector.keys())
+        {
+            if (key.attachment() instanceof Connection)
+                ((Connection) key.attachment()).close();
+        }
+
+        try
+        {
+            acceptor.close();
+            selector.close();
+        }
+        catch (IOException exception)
+        {
+            exception.printStackTrace();
+        }
+    }
+
+    /**
+     * State of a single client connection, only touched by the selector thread apart from the
+     * outbound queue which table threads append to.
+     */
+    private class Connection
+    {
+        private final SocketChannel channel;
+        private final ByteBuffer input = ByteBuffer.allocateDirect(2 * WireProtocol.MAX_FRAME_SIZE);
+        private final Queue<ByteBuffer> outbound = new ConcurrentLinkedQueue<>();
+        private final ArrayDeque<ByteBuffer> writing = new ArrayDeque<>();
+        private final AtomicBoolean writePending = new AtomicBoolean();
+        private final Map<Integer, WireEventEncoder> encoders = new HashMap<>();
+        private final Set<Integer> subscriptions = new HashSet<>();
+        private final Map<Integer, CompletableFuture<Void>> replies = new ConcurrentHashMap<>();
+        private SelectionKey key;
+
+        private Connection(SocketChannel channel)
+        {
+            this.channel = channel;
+        }
+
+        private void handle(SelectionKey key)
+        {
+            try
+            {
+                if (key.isReadable())
+                    read();
+                if (key.isValid() && key.isWritable())
+                    write();
+            }
+            catch (IOException | IllegalArgumentException | BufferUnderflowException exception)
+            {
+                // drop the client on I/O failure or a malformed frame
+                close();
+            }
+        }
+
+        private void read() throws IOException
+        {
+            if (channel.read(input) < 0)
+            {
+                close();
+                return;
+            }
+
+            input.flip();
+            ByteBuffer frame;
+            while ((frame = WireProtocol.nextFrame(input)) != null)
+                dispatch(frame);
+            input.compact();
+        }
+
+        /**
+         * Utility method to hand every command in a frame to its table, replying in command order.
+         */
+        private void dispatch(ByteBuffer frame)
+        {
+            int tableId = frame.getInt();
+            int count = frame.get() & 0xFF;
+            Table table = server.getTable(tableId);
+
+            if (table == null)
+            {
+                // the rest of the frame is not parsed since every command in it is refused
+                CompletableFuture<Boolean> refused = new CompletableFuture<>();
+                refused.completeExceptionally(new IllegalArgumentException("Unknown table: " + tableId));
+                WireEventEncoder encoder = encoders.get(tableId);
+                if (encoder == null)
+                    encoder = new WireEventEncoder(tableId, this::send);
+
+                for (int index = 0; index < count; index++)
+                    reply(tableId, encoder, refused, index == count - 1);
+                return;
+            }
+
+            WireEventEncoder encoder = encoders.computeIfAbsent(tableId, id -> new WireEventEncoder(id, this::send));
+
+            for (int index = 0; index < count; index++)
+            {
+                CompletableFuture<Boolean> future;
+
+                if (frame.get(frame.position()) == WireProtocol.SUBSCRIBE)
+                {
+                    frame.get();
+                    future = !subscriptions.add(tableId) ?
+                            CompletableFuture.completedFuture(false) :
+                            table.call(engine ->
+                            {
+                                engine.addGameEngineCallback(encoder);
+                                return true;
+                            });
+                }
+                else
+                    future = table.submit(WireProtocol.getCommand(frame));
+
+                // only the final reply of the frame forces the pending events out
+                reply(tableId, encoder, future, index == count - 1);
+            }
+        }
+
+        /**
+         * Utility method to send a command's reply once the command and every earlier command for
+         * the same table have been answered, as replies carry no command id.
+         *
+         * @param tableId - id of the table the command was for
+         * @param encoder - the connection's encoder for the table
+         * @param future - the future of the command
+         * @param flush - true to send the pending frame with the reply
+         */
+        private void reply(int tableId, WireEventEncoder encoder, CompletableFuture<Boolean> future, boolean flush)
+        {
+            CompletableFuture<Void> previous = replies.get(tableId);
+            CompletableFuture<Byte> code = future.handle((result, exception) -> exception != null ?
+                    WireProtocol.REPLY_ERROR : result ? WireProtocol.REPLY_TRUE : WireProtocol.REPLY_FALSE);
+            CompletableFuture<Void> replied = (previous == null ? code : previous.thenCombine(code, (done, reply) -> reply))
+                    .thenAccept(reply -> encoder.reply(reply, flush));
+
+            // the entry is dropped once answered so table ids that are no longer used are not kept
+            replies.put(tableId, replied);
+            replied.whenComplete((done, exception) -> replies.remove(tableId, replied));
+        }
+
+        /**
+         * Called by table threads with a completed frame.
+         */
+        private void send(ByteBuffer frame)
+        {
+            outbound.add(frame);
+
+            // one wakeup per batch of frames rather than per frame
+            if (writePending.compareAndSet(false, true))
+            {
+                pendingWrites.add(this);
+                selector.wakeup();
+            }
+        }
+
+        private void enableWrites()
+        {
+            if (key.isValid())
+                key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+        }
+
+        private void write() throws IOException
+        {
+            writePending.set(false);
+
+            ByteBuffer frame;
+            while (writing.size() < MAX_GATHER && (frame = outbound.poll()) != null)
+                writing.add(frame);
+
+            channel.write(writing.toArray(new ByteBuffer[0]));
+
+            while (!writing.isEmpty() && !writing.peek().hasRemaining())
+                writing.poll();
+
+            // keep write interest only while there is something left to send
+            if (writing.isEmpty() && outbound.isEmpty())
+                key.interestOps(SelectionKey.OP_READ);
+        }
+
+        private void close()
+        {
+            for (Map.Entry<Integer, WireEventEncoder> entry : encoders.entrySet())
+            {
+                Table table = server.getTable(entry.getKey());
+                if (table != null && subscriptions.contains(entry.getKey()))
+                    table.call(engine -> engine.removeGameEngineCallback(entry.getValue()));
+            }
+            encoders.clear();
+            subscriptions.clear();
+            replies.clear();
+
+            try
+            {
+                key.cancel();
+                channel.close();
+            }
+            catch (IOException exception)
+            {
+                exception.printStackTrace();
+            }
+        }
+    }
+}
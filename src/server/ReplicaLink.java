@@ -0,0 +1,29 @@
+package server;
+
+import java.nio.ByteBuffer;
+import java.util.function.LongConsumer;
+
+/**
+ * Transport from a Replicator to a backup.
+ *
+ * Implementations deliver batches in the order they are sent and call ack with the last sequence
+ * number of a batch once the backup has applied it, or with REJECTED if the backup could not apply
+ * it. Several batches may be in flight at once.
+ *
+ * @see Replicator
+ * @see BackupNode
+ */
+public interface ReplicaLink
+{
+    /**
+     * Passed to ack instead of a sequence number when the backup could not apply a batch
+     */
+    long REJECTED = -1;
+
+    /**
+     * @param batch - an encoded batch, owned by the link once sent
+     * @param ack - to be called with the batch's last sequence number once the backup has applied it,
+     *        or with REJECTED
+     */
+    void send(ByteBuffer batch, LongConsumer ack);
+}
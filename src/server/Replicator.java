@@ -0,0 +1,471 @@
+package server;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import model.GameEvent;
+import model.interfaces.GameEngine;
+import model.interfaces.Player;
+import model.interfaces.PlayingCard;
+import view.interfaces.GameEngineCallback;
+
+/**
+ * <pre>GameEngineCallback that replicates a table's balances to a backup at the end of every round.
+ *
+ * Each completed round becomes one numbered update holding, for every player whose points changed
+ * and every player new to the table, the settled points, the change since the previous update and
+ * the result, plus the players who have left since the previous round. Updates are queued and shipped
+ * by a background thread in batches of up to maxBatch, with up to maxInFlight batches sent before
+ * the first is acknowledged, so a slow link costs throughput only once per window, not per round.
+ *
+ * In SYNC mode the dealing thread waits at the end of each round until the backup has acknowledged
+ * it, so a completed round is never lost. If the backup cannot be reached, rejects a batch or does
+ * not acknowledge within the sync timeout the replicator fails and stops waiting. Nothing is thrown
+ * from dealHouse, as the round has already been settled by then and the engine must still reset it,
+ * so no new round should be started once isFailed(): a Table registered with Table#replicateTo
+ * refuses BET commands and reports the failure on the DEAL_HOUSE future, callers driving an engine
+ * directly check isFailed() themselves. In ASYNC mode it does not wait and up to getLag() rounds may
+ * be lost if the primary dies.
+ *
+ * Batch layout: int tableId, long first sequence, int update count, then per update long sequence,
+ * byte house result, short entry count and per entry byte flags, string id, string name, int points,
+ * int change, byte result. Strings are a short length followed by UTF-8 bytes.</pre>
+ *
+ * @see BackupNode
+ */
+public class Replicator implements GameEngineCallback, AutoCloseable
+{
+    /**
+     * The only event the replicator uses, register with these to skip the per-card dispatch
+     */
+    public static final Set<GameEvent.Type> EVENTS = Collections.unmodifiableSet(
+            EnumSet.of(GameEvent.Type.HOUSE_RESULT));
+
+    static final byte LEFT = 1;
+
+    public enum Mode
+    {
+        SYNC, ASYNC
+    }
+
+    private final int tableId;
+    private final ReplicaLink link;
+    private final Mode mode;
+    private final int maxBatch;
+    private final int maxInFlight;
+    private final long syncTimeoutNanos;
+    private final Map<String, Integer> known = new HashMap<>();
+    private final Deque<byte[]> pending = new ArrayDeque<>();
+    private final Thread shipper;
+    private long sequence;
+    private long shippedSequence;
+    private long ackedSequence;
+    private int inFlight;
+    private long batches;
+    private boolean closed;
+    private String failure;
+
+    /**
+     * @param tableId - the table the replicated engine hosts
+     * @param link - the link to the backup
+     * @param mode - whether rounds wait for the backup's acknowledgement
+     */
+    public Replicator(int tableId, ReplicaLink link, Mode mode)
+    {
+        this(tableId, link, mode, 64, 8);
+    }
+
+    /**
+     * @param tableId - the table the replicated engine hosts
+     * @param link - the link to the backup
+     * @param mode - whether rounds wait for the backup's acknowledgement
+     * @param maxBatch - the maximum number of updates shipped in one batch
+     * @param maxInFlight - the maximum number of batches sent but not yet acknowledged
+     */
+    public Replicator(int tableId, ReplicaLink link, Mode mode, int maxBatch, int maxInFlight)
+    {
+        this(tableId, link, mode, maxBatch, maxInFlight, 5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * @param tableId - the table the replicated engine hosts
+     * @param link - the link to the backup
+     * @param mode - whether rounds wait for the backup's acknowledgement
+     * @param maxBatch - the maximum number of updates shipped in one batch
+     * @param maxInFlight - the maximum number of batches sent but not yet acknowledged
+     * @param syncTimeout - in SYNC mode, how long a round waits for its acknowledgement before the replicator fails
+     * @param unit - the unit of the sync timeout
+     */
+    public Replicator(int tableId, ReplicaLink link, Mode mode, int maxBatch, int maxInFlight, long syncTimeout,
+                      TimeUnit unit)
+    {
+        if (link == null || mode == null || maxBatch < 1 || maxInFlight < 1 || syncTimeout <= 0 || unit == null)
+            throw new IllegalArgumentException();
+
+        this.tableId = tableId;
+        this.link = link;
+        this.mode = mode;
+        this.maxBatch = maxBatch;
+        this.maxInFlight = maxInFlight;
+        this.syncTimeoutNanos = unit.toNanos(syncTimeout);
+
+        shipper = new Thread(this::ship, "replicator-" + tableId);
+        shipper.setDaemon(true);
+        shipper.start();
+    }
+
+    @Override
+    public void nextCard(Player player, PlayingCard card, GameEngine engine)
+    {
+        // only settled balances are replicated
+    }
+
+    @Override
+    public void bustCard(Player player, PlayingCard card, GameEngine engine)
+    {
+        // only settled balances are replicated
+    }
+
+    @Override
+    public void result(Player player, int result, GameEngine engine)
+    {
+        // only settled balances are replicated
+    }
+
+    @Override
+    public void nextHouseCard(PlayingCard card, GameEngine engine)
+    {
+        // only settled balances are replicated
+    }
+
+    @Override
+    public void houseBustCard(PlayingCard card, GameEngine engine)
+    {
+        // only settled balances are replicated
+    }
+
+    @Override
+    public void houseResult(int result, GameEngine engine)
+    {
+        List<Player> changed = new ArrayList<>();
+        List<Integer> changes = new ArrayList<>();
+        Set<String> left = new HashSet<>(known.keySet());
+
+        for (Player player : engine.getAllPlayers())
+        {
+            Integer previous = known.put(player.getPlayerId(), player.getPoints());
+            left.remove(player.getPlayerId());
+
+            // a new player is sent in full, otherwise only players whose points changed are sent
+            if (previous == null || previous != player.getPoints())
+            {
+                changed.add(player);
+                changes.add(previous == null ? 0 : player.getPoints() - previous);
+            }
+        }
+        known.keySet().removeAll(left);
+
+        long updateSequence = enqueue(encode(result, changed, changes, left));
+
+        // the round is settled already, a failure is recorded for the caller rather than thrown into dealHouse
+        if (mode == Mode.SYNC && !awaitAck(updateSequence, syncTimeoutNanos))
+        {
+            synchronized (this)
+            {
+                if (failure == null)
+                    fail(closed ? "replicator closed" : "no acknowledgement within the sync timeout");
+            }
+        }
+    }
+
+    /**
+     * Waits until every update so far has been acknowledged.
+     *
+     * @param timeout - the maximum time to wait
+     * @param unit - the unit of the timeout
+     * @return true if every update was acknowledged in time
+     */
+    public boolean flush(long timeout, TimeUnit unit)
+    {
+        long target;
+
+        synchronized (this)
+        {
+            target = sequence;
+        }
+        return awaitAck(target, unit.toNanos(timeout));
+    }
+
+    /**
+     * @return the sequence number of the latest update
+     */
+    public synchronized long getSequence()
+    {
+        return sequence;
+    }
+
+    /**
+     * @return the sequence number of the latest update sent to the backup
+     */
+    public synchronized long getShippedSequence()
+    {
+        return shippedSequence;
+    }
+
+    /**
+     * @return the sequence number of the latest update acknowledged by the backup
+     */
+    public synchronized long getAckedSequence()
+    {
+        return ackedSequence;
+    }
+
+    /**
+     * @return the number of completed rounds not yet acknowledged by the backup
+     */
+    public synchronized long getLag()
+    {
+        return sequence - ackedSequence;
+    }
+
+    /**
+     * @return true if the backup could not be reached, rejected a batch or a SYNC round timed out,
+     *         after which nothing more is replicated
+     */
+    public synchronized boolean isFailed()
+    {
+        return failure != null;
+    }
+
+    /**
+     * @return the reason the replicator failed, or null if it has not
+     */
+    public synchronized String getFailure()
+    {
+        return failure;
+    }
+
+    /**
+     * @return the number of batches shipped so far
+     */
+    public synchronized long getBatchCount()
+    {
+        return batches;
+    }
+
+    /**
+     * Waits up to a second for outstanding updates to be acknowledged, then stops shipping.
+     */
+    @Override
+    public void close()
+    {
+        flush(1, TimeUnit.SECONDS);
+
+        synchronized (this)
+        {
+            closed = true;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Utility method to encode one round's update, the sequence number is filled in when it is queued.
+     */
+    private byte[] encode(int houseResult, List<Player> changed, List<Integer> changes, Set<String> left)
+    {
+        ByteBuffer update = ByteBuffer.allocate(11 + (changed.size() + left.size()) * 16 + namesSize(changed, left));
+        update.putLong(0);
+        update.put((byte) houseResult);
+        update.putShort((short) (changed.size() + left.size()));
+
+        for (int index = 0; index < changed.size(); index++)
+        {
+            Player player = changed.get(index);
+            update.put((byte) 0);
+            putString(update, player.getPlayerId());
+            putString(update, player.getPlayerName());
+            update.putInt(player.getPoints());
+            update.putInt(changes.get(index));
+            update.put((byte) player.getResult());
+        }
+
+        for (String playerId : left)
+        {
+            update.put(LEFT);
+            putString(update, playerId);
+            putString(update, "");
+            update.putInt(0).putInt(0).put((byte) 0);
+        }
+        return Arrays.copyOf(update.array(), update.position());
+    }
+
+    private static int namesSize(List<Player> changed, Set<String> left)
+    {
+        int size = 0;
+
+        for (Player player : changed)
+            size += (player.getPlayerId().length() + player.getPlayerName().length()) * 3;
+        for (String playerId : left)
+            size += playerId.length() * 3;
+
+        return size;
+    }
+
+    /**
+     * Utility method to number an update and queue it for the shipper.
+     *
+     * @return the update's sequence number
+     */
+    private synchronized long enqueue(byte[] update)
+    {
+        ByteBuffer.wrap(update).putLong(0, ++sequence);
+
+        // nothing is shipped once closed, the update only counts towards the lag
+        if (!closed)
+            pending.add(update);
+        notifyAll();
+        return sequence;
+    }
+
+    /**
+     * Utility method run on the shipper thread to send batches while the window allows.
+     */
+    private void ship()
+    {
+        while (true)
+        {
+            List<byte[]> batch = new ArrayList<>();
+            long first;
+
+            synchronized (this)
+            {
+                try
+                {
+                    while (!closed && (pending.isEmpty() || inFlight >= maxInFlight))
+                        wait();
+                }
+                catch (InterruptedException exception)
+                {
+                    return;
+                }
+
+                if (closed)
+                    return;
+
+                while (!pending.isEmpty() && batch.size() < maxBatch)
+                    batch.add(pending.poll());
+
+                first = shippedSequence + 1;
+                shippedSequence += batch.size();
+                inFlight++;
+                batches++;
+            }
+
+            int size = 16;
+            for (byte[] update : batch)
+                size += update.length;
+
+            ByteBuffer frame = ByteBuffer.allocate(size);
+            frame.putInt(tableId).putLong(first).putInt(batch.size());
+            for (byte[] update : batch)
+                frame.put(update);
+
+            frame.flip();
+            try
+            {
+                link.send(frame, this::acknowledge);
+            }
+            catch (RuntimeException exception)
+            {
+                // the backup is unreachable, stop shipping and release any rounds waiting on it
+                synchronized (this)
+                {
+                    fail("backup unreachable: " + exception.getMessage());
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Utility method called by the link once the backup has applied or rejected a batch.
+     */
+    private synchronized void acknowledge(long lastSequence)
+    {
+        if (lastSequence == ReplicaLink.REJECTED)
+            fail("backup rejected a batch");
+        else
+            ackedSequence = Math.max(ackedSequence, lastSequence);
+        inFlight--;
+        notifyAll();
+    }
+
+    /**
+     * Utility method to stop shipping, must be called holding the lock.
+     */
+    private void fail(String reason)
+    {
+        if (failure == null)
+            failure = reason;
+        closed = true;
+        pending.clear();
+        notifyAll();
+    }
+
+    /**
+     * Utility method to wait until an update has been acknowledged or the replicator is closed.
+     */
+    private synchronized boolean awaitAck(long target, long timeoutNanos)
+    {
+        long deadline = System.nanoTime() + timeoutNanos;
+
+        try
+        {
+            while (ackedSequence < target && !closed)
+            {
+                if (timeoutNanos == Long.MAX_VALUE)
+                {
+                    wait();
+                    continue;
+                }
+
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0)
+                    return false;
+
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+        }
+        catch (InterruptedException exception)
+        {
+            Thread.currentThread().interrupt();
+        }
+        return ackedSequence >= target;
+    }
+
+    static void putString(ByteBuffer buffer, String value)
+    {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    static String getString(ByteBuffer buffer)
+    {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,443 @@
+package server;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+import model.SimplePlayer;
+import model.interfaces.Player;
+
+/**
+ * <pre>Routes players across several TableServer nodes by consistent hashing on the player id.
+ *
+ * Each node hosts tablesPerNode tables and a player always sits at the same table number on
+ * whichever node owns it, so a node only ever sees the players it owns. When a node joins or
+ * leaves, only the players whose owner changed are moved: each is removed from its old table in
+ * order with that table's queued commands and added to its new table with its points, bet and
+ * result. Moves are started under a brief write lock but run and are waited for without it, so
+ * commands keep flowing while a node joins or leaves, including commands sent from continuations
+ * running on the tables' own threads. A command for a player who is being moved waits for the move
+ * and then goes to the player's new table, commands sent one after another for the same player
+ * keep their order.
+ *
+ * A player with a bet placed is in the middle of a round played with separate BET, DEAL and
+ * DEAL_HOUSE commands, so its move is deferred: commands keep going to its old table and the move
+ * is retried once a house deal there completes. Rounds played with playRound are a single action
+ * and never hold a move back. Removing a node moves every player at once, ending rounds in progress
+ * on the new table's house deal.
+ *
+ * Nodes are in-process TableServers here, a remote node only needs the same submit and call.</pre>
+ */
+public class ShardedTableService
+{
+    private final ConsistentHashRing<String> ring;
+    private final int tablesPerNode;
+    private final Map<String, TableServer> nodes = new HashMap<>();
+    private final Map<String, String> placements = new ConcurrentHashMap<>();
+    private final Set<String> deferred = ConcurrentHashMap.newKeySet();
+    private final Map<String, CompletableFuture<Void>> moving = new ConcurrentHashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object rebalancing = new Object();
+    private final AtomicLong movedCount = new AtomicLong();
+
+    public ShardedTableService()
+    {
+        this(128, 64);
+    }
+
+    /**
+     * @param virtualNodes - the number of points each node is placed at on the hash ring
+     * @param tablesPerNode - the number of tables the players of a node are spread over
+     */
+    public ShardedTableService(int virtualNodes, int tablesPerNode)
+    {
+        if (tablesPerNode < 1)
+            throw new IllegalArgumentException();
+
+        this.ring = new ConsistentHashRing<>(virtualNodes);
+        this.tablesPerNode = tablesPerNode;
+    }
+
+    /**
+     * Adds a node and moves the players it now owns onto it, returning once they have moved apart
+     * from those whose moves are deferred until their round ends.
+     *
+     * @param name - unique name of the node
+     * @param server - the node's table server
+     * @return the number of players moved straight away
+     */
+    public int addNode(String name, TableServer server)
+    {
+        lock.writeLock().lock();
+        try
+        {
+            if (nodes.containsKey(name) || server == null)
+                throw new IllegalArgumentException("Invalid node: " + name);
+
+            nodes.put(name, server);
+            ring.add(name);
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+        return rebalance(false);
+    }
+
+    /**
+     * Removes a node after moving all of its players to the remaining nodes.
+     *
+     * @param name - name of the node to remove
+     * @return the node's table server, now without players, or null if there is no such node
+     * @throws IllegalStateException if it is the last node and still hosts players
+     */
+    public TableServer removeNode(String name) throws IllegalStateException
+    {
+        lock.writeLock().lock();
+        try
+        {
+            if (!nodes.containsKey(name) || !ring.getNodes().contains(name))
+                return null;
+            if (ring.size() == 1 && !placements.isEmpty())
+                throw new IllegalStateException("Cannot remove the last node while it hosts players");
+
+            // the node keeps serving the players still placed on it until they have moved
+            ring.remove(name);
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+        rebalance(true);
+
+        lock.writeLock().lock();
+        try
+        {
+            return nodes.remove(name);
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param command - a command for a player, i.e. any command but DEAL_HOUSE
+     * @return a future completed with the outcome of the command on the player's table
+     */
+    public CompletableFuture<Boolean> submit(TableCommand command)
+    {
+        if (command.getType() == TableCommand.Type.DEAL_HOUSE)
+            return failed(new IllegalArgumentException("DEAL_HOUSE is not for a player, use dealHouse"));
+
+        return route(command.getPlayerId(), table ->
+        {
+            // the registry of players is what rebalancing moves
+            if (command.getType() == TableCommand.Type.JOIN)
+                placements.put(command.getPlayerId(), ring.nodeFor(command.getPlayerId()));
+            else if (command.getType() == TableCommand.Type.LEAVE)
+                placements.remove(command.getPlayerId());
+
+            return table.submit(command);
+        });
+    }
+
+    /**
+     * @param playerId - id of a player at the table
+     * @param delay - the delay between cards
+     * @return a future completed once the house has been dealt at the player's table
+     */
+    public CompletableFuture<Boolean> dealHouse(String playerId, int delay)
+    {
+        CompletableFuture<Boolean> dealt = route(playerId, table -> table.submit(TableCommand.dealHouse(delay)));
+
+        // the round is over so moves held back by it can go ahead, off the table's thread as moves wait on tables
+        return dealt.whenComplete((result, exception) ->
+        {
+            if (!deferred.isEmpty())
+                CompletableFuture.runAsync(this::retryDeferred);
+        });
+    }
+
+    /**
+     * Plays a whole round for one player as a single action on its table: bet, deal the player, deal the house.
+     *
+     * @param playerId - id of the player
+     * @param bet - the bet to place
+     * @param delay - the delay between cards
+     * @return a future completed with true once the round is over, false if the bet was refused
+     */
+    public CompletableFuture<Boolean> playRound(String playerId, int bet, int delay)
+    {
+        return route(playerId, table -> table.call(engine ->
+        {
+            Player player = engine.getPlayer(playerId);
+            if (player == null || !engine.placeBet(player, bet))
+                return false;
+
+            engine.dealPlayer(player, delay);
+            engine.dealHouse(delay);
+            return true;
+        }));
+    }
+
+    /**
+     * @param playerId - id of a player
+     * @return the name of the node owning the player, or null if there are no nodes
+     */
+    public String getNode(String playerId)
+    {
+        lock.readLock().lock();
+        try
+        {
+            return ring.nodeFor(playerId);
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param playerId - id of a player
+     * @return the number of the table the player sits at on its node
+     */
+    public int getTableId(String playerId)
+    {
+        return (int) Math.floorMod(ConsistentHashRing.hash(playerId), (long) tablesPerNode);
+    }
+
+    /**
+     * @return the number of joined players hosted by each node
+     */
+    public Map<String, Integer> getPlayerCounts()
+    {
+        Map<String, Integer> counts = new HashMap<>();
+
+        lock.readLock().lock();
+        try
+        {
+            for (String node : nodes.keySet())
+                counts.put(node, 0);
+            for (String node : placements.values())
+                counts.merge(node, 1, Integer::sum);
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+        return Collections.unmodifiableMap(counts);
+    }
+
+    /**
+     * @return the total number of players moved between nodes by rebalancing
+     */
+    public long getMovedCount()
+    {
+        return movedCount.get();
+    }
+
+    /**
+     * Utility method to send something to a player's table, after the player's move if one is under way.
+     *
+     * @param playerId - id of the player
+     * @param send - queues the command or action on the table
+     * @return the future of the command or action
+     */
+    private <T> CompletableFuture<T> route(String playerId, Function<Table, CompletableFuture<T>> send)
+    {
+        CompletableFuture<Void> queued = new CompletableFuture<>();
+        List<CompletableFuture<Void>> previous = new ArrayList<>(1);
+
+        lock.readLock().lock();
+        try
+        {
+            // while a move is under way this command queues behind it and behind earlier commands waiting on it
+            moving.computeIfPresent(playerId, (id, tail) ->
+            {
+                previous.add(tail);
+                return queued;
+            });
+            if (previous.isEmpty())
+                return sendNow(playerId, send);
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        previous.get(0).whenComplete((ignored, exception) ->
+        {
+            CompletableFuture<T> sent;
+
+            lock.readLock().lock();
+            try
+            {
+                sent = sendNow(playerId, send);
+            }
+            catch (RuntimeException sendException)
+            {
+                sent = failed(sendException);
+            }
+            finally
+            {
+                lock.readLock().unlock();
+                moving.remove(playerId, queued);
+                queued.complete(null);
+            }
+            sent.whenComplete((value, sendException) ->
+            {
+                if (sendException != null)
+                    result.completeExceptionally(sendException);
+                else
+                    result.complete(value);
+            });
+        });
+        return result;
+    }
+
+    /**
+     * Utility method run under the read lock to send something to the table the player is placed at.
+     */
+    private <T> CompletableFuture<T> sendNow(String playerId, Function<Table, CompletableFuture<T>> send)
+    {
+        Table table = tableOf(playerId);
+        return table == null ? failed(new IllegalStateException("No nodes")) : send.apply(table);
+    }
+
+    /**
+     * Utility method to find the table of a player on the node it is placed at (which differs from the
+     * owner while its move is deferred or under way), opening the table if needed.
+     */
+    private Table tableOf(String playerId)
+    {
+        String node = placements.get(playerId);
+        if (node == null)
+            node = ring.nodeFor(playerId);
+        return node == null ? null : nodes.get(node).openTable(getTableId(playerId));
+    }
+
+    private void retryDeferred()
+    {
+        if (!deferred.isEmpty())
+            rebalance(false);
+    }
+
+    /**
+     * Utility method to move every player whose owner has changed, waiting for the moves without holding
+     * the lock. Only one rebalance runs at a time.
+     *
+     * @param force - true to move players with a bet placed too, otherwise their moves are deferred
+     * @return the number of players moved
+     */
+    private int rebalance(boolean force)
+    {
+        synchronized (rebalancing)
+        {
+            int moved = 0;
+
+            while (true)
+            {
+                List<CompletableFuture<Boolean>> moves = new ArrayList<>();
+                List<CompletableFuture<Void>> busy = new ArrayList<>();
+
+                // only starting the moves needs the write lock, so no command is routed half way through
+                lock.writeLock().lock();
+                try
+                {
+                    for (Map.Entry<String, String> placement : placements.entrySet())
+                    {
+                        String owner = ring.nodeFor(placement.getKey());
+
+                        if (owner.equals(placement.getValue()))
+                            continue;
+
+                        // commands still waiting on an earlier move must reach the old table before this one starts
+                        CompletableFuture<Void> pending = moving.get(placement.getKey());
+                        if (pending != null)
+                            busy.add(pending);
+                        else
+                            moves.add(startMove(placement.getKey(), placement.getValue(), owner, force));
+                    }
+                }
+                finally
+                {
+                    lock.writeLock().unlock();
+                }
+
+                for (CompletableFuture<Boolean> move : moves)
+                {
+                    if (move.join())
+                        moved++;
+                }
+                if (busy.isEmpty())
+                    break;
+
+                for (CompletableFuture<Void> pending : busy)
+                    pending.join();
+            }
+            movedCount.addAndGet(moved);
+            return moved;
+        }
+    }
+
+    /**
+     * Utility method run under the write lock to queue a player's move from one node to another.
+     *
+     * @return a future completed with true if the player was moved
+     */
+    private CompletableFuture<Boolean> startMove(String playerId, String from, String owner, boolean force)
+    {
+        int tableId = getTableId(playerId);
+        Table fromTable = nodes.get(from).openTable(tableId);
+        Table toTable = nodes.get(owner).openTable(tableId);
+
+        // queued behind the old table's commands, a player still holding a bet after them stays put
+        CompletableFuture<Boolean> move = fromTable.call(engine ->
+        {
+            Player player = engine.getPlayer(playerId);
+            if (player == null)
+            {
+                placements.replace(playerId, from, owner);
+                deferred.remove(playerId);
+                return null;
+            }
+            if (!force && player.getBet() > 0)
+            {
+                deferred.add(playerId);
+                return null;
+            }
+
+            engine.removePlayer(player);
+            return SimplePlayer.copyOf(player);
+        }).thenCompose(player -> player == null ? CompletableFuture.completedFuture(false) : toTable.call(engine ->
+        {
+            engine.addPlayer(player);
+            placements.replace(playerId, from, owner);
+            deferred.remove(playerId);
+            return true;
+        }));
+
+        CompletableFuture<Void> done = move.handle((moved, exception) -> null);
+        moving.put(playerId, done);
+        done.whenComplete((ignored, exception) -> moving.remove(playerId, done));
+        return move;
+    }
+
+    private static <T> CompletableFuture<T> failed(Throwable exception)
+    {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(exception);
+        return future;
+    }
+}
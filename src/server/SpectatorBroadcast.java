@@ -0,0 +1,319 @@
+package server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import model.interfaces.GameEngine;
+import model.interfaces.Player;
+import model.interfaces.PlayingCard;
+import view.interfaces.GameEngineCallback;
+
+/**
+ * <pre>Fans a table's events out to any number of spectators at a fixed cost to the dealing thread.
+ *
+ * Registered as a single GameEngineCallback, every event is encoded exactly once into an
+ * immutable WireProtocol frame and stored in a ring of the most recent frames. Spectators pull
+ * frames at their own pace through a {@link Spectator} cursor and receive read-only views that
+ * share the encoded bytes, so nothing is copied or queued per spectator.
+ *
+ * A spectator that falls more than the ring capacity behind skips forward to the start of the
+ * latest round (or to the oldest retained frame if the round is longer than the ring) and is
+ * sent the seat roster again, instead of buffering without limit.
+ *
+ * Seats are recycled as players leave (see WireEventEncoder), so a long-lived table may see any
+ * number of players pass through.</pre>
+ */
+public class SpectatorBroadcast implements GameEngineCallback
+{
+    private final WireEventEncoder encoder;
+    private final ByteBuffer[] ring;
+    private final int mask;
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicInteger waiters = new AtomicInteger();
+    private final Object signal = new Object();
+    private volatile long roundStart;
+    private volatile long previousRoundStart;
+    private volatile ByteBuffer roster;
+    private int rosterVersion;
+
+    /**
+     * @param tableId - id of the table the events belong to
+     * @param capacity - number of frames retained for slow spectators, rounded up to a power of two
+     */
+    public SpectatorBroadcast(int tableId, int capacity)
+    {
+        if (capacity < 1)
+            throw new IllegalArgumentException();
+
+        int size = 1;
+        while (size < capacity)
+            size <<= 1;
+
+        this.ring = new ByteBuffer[size];
+        this.mask = ring.length - 1;
+        this.encoder = new WireEventEncoder(tableId, this::publish);
+        this.roster = encoder.rosterFrame().asReadOnlyBuffer();
+    }
+
+    @Override
+    public void nextCard(Player player, PlayingCard card, GameEngine engine)
+    {
+        encoder.nextCard(player, card, engine);
+        encoder.flush();
+    }
+
+    @Override
+    public void bustCard(Player player, PlayingCard card, GameEngine engine)
+    {
+        encoder.bustCard(player, card, engine);
+        encoder.flush();
+    }
+
+    @Override
+    public void result(Player player, int result, GameEngine engine)
+    {
+        encoder.result(player, result, engine);
+    }
+
+    @Override
+    public void nextHouseCard(PlayingCard card, GameEngine engine)
+    {
+        encoder.nextHouseCard(card, engine);
+        encoder.flush();
+    }
+
+    @Override
+    public void houseBustCard(PlayingCard card, GameEngine engine)
+    {
+        encoder.houseBustCard(card, engine);
+        encoder.flush();
+    }
+
+    @Override
+    public void houseResult(int result, GameEngine engine)
+    {
+        encoder.houseResult(result, engine);
+
+        // spectators joining or skipping between rounds replay the round just completed
+        previousRoundStart = roundStart;
+        roundStart = published.get();
+    }
+
+    /**
+     * @return a new spectator positioned at the start of the latest round still held in the ring
+     */
+    public Spectator subscribe()
+    {
+        return new Spectator(latestRoundStart(published.get()));
+    }
+
+    /**
+     * @return the total number of frames published
+     */
+    public long getPublishedCount()
+    {
+        return published.get();
+    }
+
+    /**
+     * Utility method to find where the most recent state of the table starts.
+     *
+     * @param head - the sequence of the next frame to be published
+     * @return the start of the round in progress, or of the last completed round between rounds,
+     *         limited to the oldest frame still held in the ring
+     */
+    private long latestRoundStart(long head)
+    {
+        long start = Math.min(roundStart, head);
+
+        if (start == head)
+            start = previousRoundStart;
+
+        return Math.max(start, head - ring.length + 1);
+    }
+
+    /**
+     * Utility method called by the encoder on the dealing thread with each encoded frame.
+     *
+     * @param frame - the completed frame
+     */
+    private void publish(ByteBuffer frame)
+    {
+        long sequence = published.get();
+
+        // a seat was announced or freed so refresh the roster sent to (re)joining spectators
+        if (encoder.getRosterVersion() != rosterVersion)
+        {
+            rosterVersion = encoder.getRosterVersion();
+            roster = encoder.rosterFrame().asReadOnlyBuffer();
+        }
+
+        ring[(int) (sequence & mask)] = frame.asReadOnlyBuffer();
+        published.set(sequence + 1);
+
+        // only pay for a wake up when a spectator is actually blocked
+        if (waiters.get() > 0)
+        {
+            synchronized (signal)
+            {
+                signal.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * A single spectator's read position in the broadcast, to be used by one thread at a time.
+     */
+    public class Spectator
+    {
+        private long cursor;
+        private boolean rosterDue = true;
+        private long skipped;
+        private ByteBuffer pending;
+
+        private Spectator(long cursor)
+        {
+            this.cursor = cursor;
+        }
+
+        /**
+         * @return a read-only view of the next frame (sharing the broadcast's bytes) or null if
+         *         the spectator is up to date
+         */
+        public ByteBuffer poll()
+        {
+            if (rosterDue)
+            {
+                rosterDue = false;
+                return roster.duplicate();
+            }
+
+            while (true)
+            {
+                long head = published.get();
+
+                if (cursor == head)
+                    return null;
+
+                if (head - cursor >= ring.length)
+                {
+                    // the seats may have changed in the frames that were missed
+                    skip(head);
+                    return roster.duplicate();
+                }
+
+                ByteBuffer frame = ring[(int) (cursor & mask)];
+
+                // the slot may have been reused while it was being read
+                if (published.get() - cursor >= ring.length)
+                    continue;
+
+                cursor++;
+                return frame.duplicate();
+            }
+        }
+
+        /**
+         * Blocks until a frame is available or the timeout elapses.
+         *
+         * @return a frame as per {@link #poll()} or null if the timeout elapsed
+         * @throws InterruptedException if interrupted while waiting
+         */
+        public ByteBuffer poll(long timeout, TimeUnit unit) throws InterruptedException
+        {
+            ByteBuffer frame = poll();
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+            if (frame != null)
+                return frame;
+
+            waiters.incrementAndGet();
+            try
+            {
+                synchronized (signal)
+                {
+                    while ((frame = poll()) == null)
+                    {
+                        long remaining = deadline - System.nanoTime();
+                        if (remaining <= 0)
+                            break;
+                        TimeUnit.NANOSECONDS.timedWait(signal, remaining);
+                    }
+                }
+            }
+            finally
+            {
+                waiters.decrementAndGet();
+            }
+            return frame;
+        }
+
+        /**
+         * Writes as many pending frames as the channel accepts without blocking.
+         *
+         * @param channel - a non-blocking channel to the spectator
+         * @return the number of frames fully written
+         * @throws IOException if the channel fails
+         */
+        public int writeTo(WritableByteChannel channel) throws IOException
+        {
+            int written = 0;
+            ByteBuffer frame;
+
+            while ((frame = peek()) != null)
+            {
+                channel.write(frame);
+                if (frame.hasRemaining())
+                    break;
+
+                pending = null;
+                written++;
+            }
+            return written;
+        }
+
+        /**
+         * @return the number of frames this spectator has missed by skipping ahead
+         */
+        public long getSkippedCount()
+        {
+            return skipped;
+        }
+
+        /**
+         * @return the number of frames published but not yet taken by this spectator
+         */
+        public long getLag()
+        {
+            return published.get() - cursor;
+        }
+
+        /**
+         * Utility method to hold on to a partially written frame between writes.
+         */
+        private ByteBuffer peek()
+        {
+            if (pending == null)
+                pending = poll();
+
+            return pending;
+        }
+
+        /**
+         * Utility method to jump ahead after the spectator's next frame has been overwritten.
+         *
+         * @param head - the sequence of the next frame to be published
+         */
+        private void skip(long head)
+        {
+            long target = latestRoundStart(head);
+
+            skipped += target - cursor;
+            cursor = target;
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package server;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import model.SimplePlayer;
+import model.interfaces.GameEngine;
+import model.interfaces.Player;
+
+/**
+ * A single hosted GameEngine together with its command queue.
+ *
+ * Commands are executed strictly one at a time in submission order by a single task on the
+ * server's executor, so the engine itself is never accessed concurrently and the blocking
+ * per-card delay only ever holds up the table it belongs to.
+ *
+ * Commands pass the server's AdmissionController, if it has one, before they are queued.
+ *
+ * A table replicating to a backup refuses to start new rounds once its Replicator has failed.
+ */
+public class Table
+{
+    private final int id;
+    private final GameEngine engine;
+    private final Executor executor;
+    private final AdmissionController admission;
+    private final Queue<PendingAction<?>> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger depth = new AtomicInteger();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private volatile boolean retired;
+    private volatile Replicator replicator;
+
+    Table(int id, GameEngine engine, Executor executor, AdmissionController admission)
+    {
+        this.id = id;
+        this.engine = engine;
+        this.executor = executor;
+        this.admission = admission;
+    }
+
+    public int getId()
+    {
+        return id;
+    }
+
+    public GameEngine getEngine()
+    {
+        return engine;
+    }
+
+    /**
+     * @return the number of commands and actions queued or running
+     */
+    public int getQueueDepth()
+    {
+        return depth.get();
+    }
+
+    /**
+     * @param command - the command to queue for this table
+     * @return a future completed with the outcome of the command once the table has executed it, or
+     *         completed exceptionally with RejectedExecutionException if admission control refused it
+     */
+    public CompletableFuture<Boolean> submit(TableCommand command)
+    {
+        AdmissionController.Rejection rejection = admission == null ? null : admission.admit(this, command);
+
+        if (rejection != null)
+        {
+            CompletableFuture<Boolean> future = new CompletableFuture<>();
+            future.completeExceptionally(new RejectedExecutionException(
+                    "Table " + id + " refused " + command.getType() + ": " + rejection));
+            return future;
+        }
+        return call(ignored -> execute(command));
+    }
+
+    /**
+     * Queues an arbitrary action to be run on the table's own task, in order with its commands,
+     * so it may safely access the engine (e.g. to register callbacks between rounds).
+     *
+     * @param action - the action to run against the engine
+     * @return a future completed with the value returned by the action
+     */
+    public <T> CompletableFuture<T> call(Function<GameEngine, T> action)
+    {
+        PendingAction<T> pending = new PendingAction<>(action);
+        depth.incrementAndGet();
+        queue.add(pending);
+
+        // start a drain task unless one is already running for this table
+        if (scheduled.compareAndSet(false, true))
+            executor.execute(this::drain);
+
+        return pending.future;
+    }
+
+    /**
+     * Registers a Replicator on the engine. Once it has failed BET commands are refused so no new round
+     * changes balances the backup will not see, and DEAL_HOUSE commands complete exceptionally after the
+     * round has been settled, rounds already under way can still be finished.
+     *
+     * @param replicator - the replicator shipping this table's rounds
+     * @return a future completed once the replicator is registered, in order with the table's commands
+     */
+    public CompletableFuture<Void> replicateTo(Replicator replicator)
+    {
+        return call(engine ->
+        {
+            engine.addGameEngineCallback(replicator);
+            this.replicator = replicator;
+            return null;
+        });
+    }
+
+    /**
+     * Marks the table as moved or closed, must be called from an action running on the table's own task.
+     */
+    void retire()
+    {
+        retired = true;
+    }
+
+    /**
+     * Utility method run on the executor to execute queued commands until the queue is empty.
+     */
+    private void drain()
+    {
+        do
+        {
+            try
+            {
+                PendingAction<?> pending;
+                while ((pending = queue.poll()) != null)
+                {
+                    try
+                    {
+                        // a table that has been moved or closed refuses everything queued after it was retired
+                        if (retired)
+                            pending.future.completeExceptionally(
+                                    new IllegalStateException("Table " + id + " has been retired"));
+                        else
+                            pending.run(engine);
+                    }
+                    finally
+                    {
+                        depth.decrementAndGet();
+                    }
+                }
+            }
+            finally
+            {
+                // also cleared when an Error escapes an action, so the next call starts a new drain task
+                scheduled.set(false);
+            }
+
+            // re-check in case a command was queued after the last poll but before the flag was cleared
+        } while (!queue.isEmpty() && scheduled.compareAndSet(false, true));
+    }
+
+    /**
+     * Utility method to apply a command to the engine.
+     *
+     * @param command - the command to execute
+     * @return true if the command was applied, false if it referred to an unknown player or was refused
+     */
+    private boolean execute(TableCommand command)
+    {
+        Player player = command.getPlayerId() == null ? null : engine.getPlayer(command.getPlayerId());
+
+        switch (command.getType())
+        {
+            case JOIN:
+                engine.addPlayer(new SimplePlayer(command.getPlayerId(), command.getPlayerName(), command.getAmount()));
+                return true;
+            case LEAVE:
+                if (player == null || !engine.removePlayer(player))
+                    return false;
+
+                // a failed LEAVE must not reset the player's rate limit
+                if (admission != null)
+                    admission.forgetPlayer(player.getPlayerId());
+                return true;
+            case BET:
+                checkReplication("refused BET");
+                return player != null && engine.placeBet(player, command.getAmount());
+            case DEAL:
+                if (player == null)
+                    return false;
+                engine.dealPlayer(player, command.getAmount());
+                return true;
+            case DEAL_HOUSE:
+                engine.dealHouse(command.getAmount());
+
+                // the round has been settled and reset, so a failure to replicate it is only reported
+                checkReplication("did not replicate the round");
+                return true;
+            default:
+                throw new IllegalArgumentException();
+        }
+    }
+
+    /**
+     * Utility method to fail the command being executed if the table's replicator has failed.
+     *
+     * @param outcome - what the failure means for the command
+     */
+    private void checkReplication(String outcome)
+    {
+        Replicator replicator = this.replicator;
+
+        if (replicator != null && replicator.isFailed())
+            throw new IllegalStateException("Table " + id + " " + outcome + ", replication failed: "
+                    + replicator.getFailure());
+    }
+
+    private static class PendingAction<T>
+    {
+        private final Function<GameEngine, T> action;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+
+        private PendingAction(Function<GameEngine, T> action)
+        {
+            this.action = action;
+        }
+
+        private void run(GameEngine engine)
+        {
+            try
+            {
+                future.complete(action.apply(engine));
+            }
+            catch (RuntimeException exception)
+            {
+                future.completeExceptionally(exception);
+            }
+            catch (Error error)
+            {
+                future.completeExceptionally(error);
+                throw error;
+            }
+        }
+    }
+}
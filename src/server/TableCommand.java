@@ -0,0 +1,101 @@
+package server;
+
+/**
+ * An immutable request to be executed against a single table's GameEngine.
+ * Commands are created through the static factory methods and queued with
+ * {@link TableServer#submit(int, TableCommand)}.
+ */
+public class TableCommand
+{
+    public enum Type
+    {
+        JOIN, LEAVE, BET, DEAL, DEAL_HOUSE
+    }
+
+    private final Type type;
+    private final String playerId;
+    private final String playerName;
+    private final int amount;
+
+    private TableCommand(Type type, String playerId, String playerName, int amount)
+    {
+        this.type = type;
+        this.playerId = playerId;
+        this.playerName = playerName;
+        this.amount = amount;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the id or name is over WireProtocol.MAX_STRING_BYTES once
+     *         encoded, as the player could not be sent to clients
+     */
+    public static TableCommand join(String playerId, String playerName, int initialPoints)
+            throws IllegalArgumentException
+    {
+        if (playerId == null || playerName == null || initialPoints < 0)
+            throw new IllegalArgumentException();
+
+        if (!WireProtocol.isEncodable(playerId) || !WireProtocol.isEncodable(playerName))
+            throw new IllegalArgumentException("Player id or name too long");
+
+        return new TableCommand(Type.JOIN, playerId, playerName, initialPoints);
+    }
+
+    public static TableCommand leave(String playerId)
+    {
+        if (playerId == null)
+            throw new IllegalArgumentException();
+
+        return new TableCommand(Type.LEAVE, playerId, null, 0);
+    }
+
+    public static TableCommand bet(String playerId, int bet)
+    {
+        if (playerId == null)
+            throw new IllegalArgumentException();
+
+        return new TableCommand(Type.BET, playerId, null, bet);
+    }
+
+    public static TableCommand deal(String playerId, int delay)
+    {
+        if (playerId == null)
+            throw new IllegalArgumentException();
+
+        return new TableCommand(Type.DEAL, playerId, null, delay);
+    }
+
+    public static TableCommand dealHouse(int delay)
+    {
+        return new TableCommand(Type.DEAL_HOUSE, null, null, delay);
+    }
+
+    public Type getType()
+    {
+        return type;
+    }
+
+    public String getPlayerId()
+    {
+        return playerId;
+    }
+
+    public String getPlayerName()
+    {
+        return playerName;
+    }
+
+    /**
+     * @return the initial points for JOIN, the bet for BET or the delay for DEAL and DEAL_HOUSE
+     */
+    public int getAmount()
+    {
+        return amount;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("Command: type=%s, player=%s, amount=%d", type, playerId, amount);
+    }
+}
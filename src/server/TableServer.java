@@ -0,0 +1,303 @@
+package server;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import model.EngineCheckpoint;
+import model.EnginePool;
+import model.GameEngineImpl;
+import model.interfaces.GameEngine;
+import view.interfaces.GameEngineCallback;
+
+/**
+ * <pre>Hosts many GameEngine tables in one process, each driven by its own task on the supplied executor.
+ *
+ * Table code is plain blocking code (including the per-card delay) so the executor decides how
+ * tables map onto threads. The default is a cached pool, i.e. one platform thread per busy table.
+ * On JDK 21+ pass Executors.newVirtualThreadPerTaskExecutor() to give every table its own
+ * virtual thread and host tens of thousands of concurrently dealing tables.
+ *
+ * An AdmissionController, if given, rate limits and bounds the commands submitted to every table.
+ * An EnginePool, if given, supplies the engines of opened tables and takes them back when closed.</pre>
+ */
+public class TableServer
+{
+    private final Map<Integer, Table> tables = new ConcurrentHashMap<>();
+    private final Executor executor;
+    private final AdmissionController admission;
+    private final EnginePool pool;
+    private final List<Consumer<GameEngine>> closeListeners = new CopyOnWriteArrayList<>();
+    private final List<BiConsumer<GameEngine, GameEngine>> moveListeners = new CopyOnWriteArrayList<>();
+
+    public TableServer()
+    {
+        this(newDefaultExecutor());
+    }
+
+    public TableServer(Executor executor)
+    {
+        this(executor, null);
+    }
+
+    /**
+     * @param executor - runs the tables' tasks
+     * @param admission - decides which commands tables accept, or null to accept every command
+     */
+    public TableServer(Executor executor, AdmissionController admission)
+    {
+        this(executor, admission, null);
+    }
+
+    /**
+     * @param executor - runs the tables' tasks
+     * @param admission - decides which commands tables accept, or null to accept every command
+     * @param pool - supplies the engines of opened tables, or null to build a new engine per table
+     */
+    public TableServer(Executor executor, AdmissionController admission, EnginePool pool)
+    {
+        if (executor == null)
+            throw new IllegalArgumentException();
+
+        this.executor = executor;
+        this.admission = admission;
+        this.pool = pool;
+    }
+
+    /**
+     * @return a new cached thread pool of daemon threads, the default executor
+     */
+    public static ExecutorService newDefaultExecutor()
+    {
+        return Executors.newCachedThreadPool(daemonThreadFactory());
+    }
+
+    /**
+     * @param tableId - id of the table to open
+     * @return the new table, or the existing table if one is already open with the same id
+     */
+    public Table openTable(int tableId)
+    {
+        return tables.computeIfAbsent(tableId, id ->
+                new Table(id, pool == null ? new GameEngineImpl() : pool.acquire(), executor, admission));
+    }
+
+    /**
+     * @param tableId - id of the table to retrieve
+     * @return the Table or null if no table is open with the id
+     */
+    public Table getTable(int tableId)
+    {
+        return tables.get(tableId);
+    }
+
+    /**
+     * Closes a table, commands already queued are still executed and later ones fail, including
+     * commands sent to a Table reference held elsewhere. With an EnginePool the engine is reset and
+     * returned to the pool once the queued commands are done.
+     *
+     * @param tableId - id of the table to close
+     * @return true if the table existed and was closed
+     */
+    public boolean closeTable(int tableId)
+    {
+        if (admission != null)
+            admission.forgetTable(tableId);
+
+        Table table = tables.remove(tableId);
+        if (table == null)
+            return false;
+
+        table.call(engine ->
+        {
+            table.retire();
+            for (Consumer<GameEngine> listener : closeListeners)
+                listener.accept(engine);
+            if (pool != null)
+                pool.release((GameEngineImpl) engine);
+            return null;
+        });
+        return true;
+    }
+
+    /**
+     * Registers a listener told about the engine of every table that is closed or moved away, so state
+     * kept per engine (e.g. by a callback shared between tables) can be dropped. Listeners run on the
+     * table's own task after its queued commands and before a pooled engine is reset for reuse. When a
+     * table is moved they run after the move listeners.
+     *
+     * @param listener - receives the engine of the table leaving this server
+     */
+    public void addCloseListener(Consumer<GameEngine> listener)
+    {
+        closeListeners.add(listener);
+    }
+
+    /**
+     * Registers a listener told about every table moved to another server, so state kept per engine
+     * for players who are still playing can follow them to the new engine instead of being dropped by
+     * a close listener. Listeners run on the old table's task once the table has been restored on the
+     * target, before the close listeners.
+     *
+     * @param listener - receives the old engine and the engine that replaced it on the target server
+     */
+    public void addMoveListener(BiConsumer<GameEngine, GameEngine> listener)
+    {
+        moveListeners.add(listener);
+    }
+
+    /**
+     * @return the server's admission control, or null if every command is accepted
+     */
+    public AdmissionController getAdmissionController()
+    {
+        return admission;
+    }
+
+    public Collection<Table> getTables()
+    {
+        return Collections.unmodifiableCollection(tables.values());
+    }
+
+    /**
+     * @param tableId - id of the table the command is for
+     * @param command - the command to queue
+     * @return a future completed with the outcome of the command, or completed exceptionally
+     *         with IllegalArgumentException if no table is open with the id or with
+     *         RejectedExecutionException if admission control refused the command
+     */
+    public CompletableFuture<Boolean> submit(int tableId, TableCommand command)
+    {
+        Table table = tables.get(tableId);
+
+        if (table == null)
+        {
+            CompletableFuture<Boolean> future = new CompletableFuture<>();
+            future.completeExceptionally(new IllegalArgumentException("No such table: " + tableId));
+            return future;
+        }
+        return table.submit(command);
+    }
+
+    /**
+     * Moves a table to another server without ending its round.
+     *
+     * The table is checkpointed by an action queued behind its pending commands and restored on the
+     * target with the same callback instances. Commands queued on the old table after that fail with
+     * IllegalStateException and must be resubmitted to the target. The move listeners and then the
+     * close listeners are told, and with an EnginePool the old engine is then reset and returned to
+     * the pool.
+     *
+     * @param tableId - id of the table to move
+     * @param target - the server to move the table to
+     * @return a future completed with the table on the target server
+     */
+    public CompletableFuture<Table> migrateTable(int tableId, TableServer target)
+    {
+        Table table = tables.get(tableId);
+
+        if (table == null || target == this)
+        {
+            CompletableFuture<Table> future = new CompletableFuture<>();
+            future.completeExceptionally(new IllegalArgumentException("Cannot move table: " + tableId));
+            return future;
+        }
+
+        return table.call(engine ->
+        {
+            GameEngineImpl source = (GameEngineImpl) engine;
+            Table moved = target.restoreTable(tableId, EngineCheckpoint.checkpoint(source),
+                    EngineCheckpoint.sameInstances(source));
+
+            tables.remove(tableId, table);
+            table.retire();
+            for (BiConsumer<GameEngine, GameEngine> listener : moveListeners)
+                listener.accept(engine, moved.getEngine());
+            for (Consumer<GameEngine> listener : closeListeners)
+                listener.accept(engine);
+            if (pool != null)
+                pool.release(source);
+            return moved;
+        });
+    }
+
+    /**
+     * With an EnginePool the checkpoint is restored into a pooled engine, which goes back to the pool if
+     * the table cannot be opened.
+     *
+     * @param tableId - id of the table to open
+     * @param checkpoint - a checkpoint created by EngineCheckpoint
+     * @param resolver - supplies the callback for each of the checkpoint's callback descriptors
+     * @return the table opened with the checkpointed engine state
+     * @throws IllegalStateException if a table is already open with the id
+     */
+    public Table restoreTable(int tableId, byte[] checkpoint,
+                              Function<EngineCheckpoint.CallbackDescriptor, GameEngineCallback> resolver)
+            throws IllegalStateException
+    {
+        // checked first so the common clash costs no restore, the put below still settles a race
+        if (tables.containsKey(tableId))
+            throw new IllegalStateException("Table already open: " + tableId);
+
+        GameEngineImpl engine = pool == null ? new GameEngineImpl() : pool.acquire();
+        Table table;
+
+        try
+        {
+            table = new Table(tableId, EngineCheckpoint.restore(checkpoint, resolver, engine), executor, admission);
+        }
+        catch (RuntimeException exception)
+        {
+            if (pool != null)
+                pool.release(engine);
+            throw exception;
+        }
+
+        if (tables.putIfAbsent(tableId, table) != null)
+        {
+            // the engine never ran a command, resetting it also drops the callbacks the restore registered
+            if (pool != null)
+                pool.release(engine);
+            throw new IllegalStateException("Table already open: " + tableId);
+        }
+        return table;
+    }
+
+    /**
+     * Stops the executor if it is owned by an ExecutorService, queued commands are abandoned.
+     */
+    public void shutdown()
+    {
+        if (executor instanceof ExecutorService)
+            ((ExecutorService) executor).shutdownNow();
+    }
+
+    /**
+     * Utility method to create named daemon threads so idle tables never keep the JVM alive.
+     *
+     * @return a ThreadFactory for table threads
+     */
+    private static ThreadFactory daemonThreadFactory()
+    {
+        AtomicInteger count = new AtomicInteger();
+
+        return runnable ->
+        {
+            Thread thread = new Thread(runnable, "table-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,69 @@
+package server;
+
+/**
+ * <pre>Rate limit allowing a sustained rate of requests with short bursts up to the bucket's capacity.
+ *
+ * The bucket refills continuously at the rate up to its capacity and each admitted request takes one
+ * token, so an idle client may send a burst of capacity requests at once and then only at the rate.</pre>
+ */
+public class TokenBucket
+{
+    private final double tokensPerNano;
+    private final double capacity;
+    private double tokens;
+    private long refilled;
+
+    /**
+     * @param ratePerSecond - the sustained rate of requests
+     * @param capacity - the largest burst of requests, the bucket starts full
+     */
+    public TokenBucket(double ratePerSecond, int capacity)
+    {
+        if (ratePerSecond <= 0 || capacity < 1)
+            throw new IllegalArgumentException();
+
+        this.tokensPerNano = ratePerSecond / 1e9;
+        this.capacity = capacity;
+        this.tokens = capacity;
+        this.refilled = System.nanoTime();
+    }
+
+    /**
+     * @return true if a token was taken, false if the rate has been exceeded
+     */
+    public synchronized boolean tryAcquire()
+    {
+        refill();
+
+        if (tokens < 1)
+            return false;
+
+        tokens--;
+        return true;
+    }
+
+    /**
+     * Returns a token taken for a request that was not admitted after all.
+     */
+    public synchronized void release()
+    {
+        tokens = Math.min(capacity, tokens + 1);
+    }
+
+    /**
+     * @return true if the bucket is full, i.e. its client has been idle for a while
+     */
+    public synchronized boolean isFull()
+    {
+        refill();
+        return tokens >= capacity;
+    }
+
+    private void refill()
+    {
+        long now = System.nanoTime();
+
+        tokens = Math.min(capacity, tokens + (now - refilled) * tokensPerNano);
+        refilled = now;
+    }
+}
@@ -0,0 +1,185 @@
+package server;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+import model.GameEngineImpl;
+import model.SimplePlayer;
+import model.interfaces.GameEngine;
+import model.interfaces.Player;
+import view.interfaces.GameEngineCallback;
+
+/**
+ * <pre>Client side counterpart of {@link WireEventEncoder}.
+ *
+ * Decodes event frames and replays them on an ordinary GameEngineCallback. A local mirror
+ * engine is kept per table holding the seated players and their settled bets, points and
+ * results, so callbacks such as GameEngineCallbackImpl that inspect the engine keep working.</pre>
+ */
+public class WireEventDecoder
+{
+    private final GameEngineCallback callback;
+    private final Map<Integer, Mirror> mirrors = new HashMap<>();
+    private long events;
+    private long replies;
+    private long errors;
+
+    public WireEventDecoder(GameEngineCallback callback)
+    {
+        this.callback = callback;
+    }
+
+    /**
+     * @param frame - an event frame payload as returned by {@link WireProtocol#nextFrame(ByteBuffer)}
+     * @return the id of the table the events belonged to
+     * @throws IllegalArgumentException if the frame holds an unknown event type
+     */
+    public int decode(ByteBuffer frame) throws IllegalArgumentException
+    {
+        int tableId = frame.getInt();
+        int count = frame.get() & 0xFF;
+        Mirror mirror = mirrors.computeIfAbsent(tableId, id -> new Mirror());
+
+        for (int event = 0; event < count; event++)
+        {
+            byte type = frame.get();
+
+            switch (type)
+            {
+                case WireProtocol.SEAT:
+                    int seat = frame.get() & 0xFF;
+                    String id = WireProtocol.getString(frame);
+                    mirror.seat(seat, new SimplePlayer(id, WireProtocol.getString(frame), 0));
+                    break;
+                case WireProtocol.NEXT_CARD:
+                    callback.nextCard(mirror.player(frame.get()), WireProtocol.decodeCard(frame.get()), mirror.engine);
+                    break;
+                case WireProtocol.BUST_CARD:
+                    callback.bustCard(mirror.player(frame.get()), WireProtocol.decodeCard(frame.get()), mirror.engine);
+                    break;
+                case WireProtocol.RESULT:
+                    Player player = mirror.player(frame.get());
+                    int result = frame.get();
+                    player.setResult(result);
+                    callback.result(player, result, mirror.engine);
+                    break;
+                case WireProtocol.NEXT_HOUSE_CARD:
+                    callback.nextHouseCard(WireProtocol.decodeCard(frame.get()), mirror.engine);
+                    break;
+                case WireProtocol.HOUSE_BUST_CARD:
+                    callback.houseBustCard(WireProtocol.decodeCard(frame.get()), mirror.engine);
+                    break;
+                case WireProtocol.HOUSE_RESULT:
+                    houseResult(frame, mirror);
+                    break;
+                case WireProtocol.REPLY:
+                    if (frame.get() == WireProtocol.REPLY_ERROR)
+                        errors++;
+                    replies++;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Invalid event type: " + type);
+            }
+        }
+        events += count;
+        return tableId;
+    }
+
+    /**
+     * @return the number of events decoded so far
+     */
+    public long getEventCount()
+    {
+        return events;
+    }
+
+    /**
+     * @return the number of command replies decoded so far
+     */
+    public long getReplyCount()
+    {
+        return replies;
+    }
+
+    /**
+     * @return the number of command replies that reported an error
+     */
+    public long getErrorCount()
+    {
+        return errors;
+    }
+
+    /**
+     * Utility method to settle the mirrored players and replay the house result.
+     *
+     * @param frame - frame positioned after the HOUSE_RESULT type byte
+     * @param mirror - the mirror of the table the event belongs to
+     */
+    private void houseResult(ByteBuffer frame, Mirror mirror)
+    {
+        int result = frame.get();
+        int players = frame.get() & 0xFF;
+        boolean[] listed = new boolean[mirror.seats.length];
+
+        for (int index = 0; index < players; index++)
+        {
+            byte seat = frame.get();
+            Player player = mirror.player(seat);
+            listed[seat & 0xFF] = true;
+            int bet = frame.getInt();
+            int points = frame.getInt();
+
+            // a lost bet may exceed the settled points so lift them while the bet is restored
+            player.setPoints(Math.max(points, bet));
+            if (bet > 0)
+                player.setBet(bet);
+            else
+                player.resetBet();
+            player.setPoints(points);
+            player.setResult(frame.get());
+        }
+        callback.houseResult(result, mirror.engine);
+
+        // same as the engine, bets are cleared once the round is logged
+        for (Player player : mirror.engine.getAllPlayers())
+            player.resetBet();
+
+        // the encoder frees the seats of players it no longer lists, so do the same
+        for (int seat = 0; seat < mirror.seats.length; seat++)
+        {
+            if (!listed[seat])
+                mirror.free(seat);
+        }
+    }
+
+    private static class Mirror
+    {
+        private final GameEngine engine = new GameEngineImpl();
+        private final Player[] seats = new Player[256];
+
+        private void seat(int seat, Player player)
+        {
+            free(seat);
+            seats[seat] = player;
+            engine.addPlayer(player);
+        }
+
+        private void free(int seat)
+        {
+            if (seats[seat] != null)
+                engine.removePlayer(seats[seat]);
+            seats[seat] = null;
+        }
+
+        private Player player(byte seat)
+        {
+            Player player = seats[seat & 0xFF];
+
+            if (player == null)
+                throw new IllegalArgumentException("Unknown seat: " + (seat & 0xFF));
+
+            return player;
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package server;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import model.interfaces.GameEngine;
+import model.interfaces.Player;
+import model.interfaces.PlayingCard;
+import view.interfaces.GameEngineCallback;
+
+/**
+ * <pre>GameEngineCallback that encodes a table's events into binary event frames.
+ *
+ * Events are batched into a single frame which is handed to the sink at the end of every hand
+ * (on result and houseResult), when a reply is flushed, or when the frame is full, so a whole
+ * hand of cards normally costs one frame and one write.
+ *
+ * A player keeps its seat until a HOUSE_RESULT no longer lists it, the seat is then free to be
+ * announced again for another player, so any number of players may pass through a table. If more
+ * than MAX_BATCH players need a seat at once, the events of players without one are dropped and
+ * counted rather than thrown from the dealing thread. The events of a player added to the engine
+ * directly with an id or name too long to send are dropped and counted the same way.</pre>
+ *
+ * @see WireProtocol
+ */
+public class WireEventEncoder implements GameEngineCallback
+{
+    private final int tableId;
+    private final Consumer<ByteBuffer> sink;
+    private final ByteBuffer frame = ByteBuffer.allocate(WireProtocol.MAX_FRAME_SIZE);
+    private final Map<String, Integer> seats = new HashMap<>();
+    private final Player[] seated = new Player[WireProtocol.MAX_BATCH];
+    private final Deque<Integer> freeSeats = new ArrayDeque<>();
+    private int nextSeat;
+    private int rosterVersion;
+    private long dropped;
+    private int count;
+
+    /**
+     * @param tableId - id of the table whose events are encoded
+     * @param sink - receives each completed frame (including its length prefix) ready to be written
+     */
+    public WireEventEncoder(int tableId, Consumer<ByteBuffer> sink)
+    {
+        this.tableId = tableId;
+        this.sink = sink;
+        frame.position(WireProtocol.FRAME_HEADER_SIZE);
+    }
+
+    @Override
+    public synchronized void nextCard(Player player, PlayingCard card, GameEngine engine)
+    {
+        int seat = seatOf(player);
+
+        if (seat >= 0)
+            putCard(WireProtocol.NEXT_CARD, seat, card);
+    }
+
+    @Override
+    public synchronized void bustCard(Player player, PlayingCard card, GameEngine engine)
+    {
+        int seat = seatOf(player);
+
+        if (seat >= 0)
+            putCard(WireProtocol.BUST_CARD, seat, card);
+    }
+
+    @Override
+    public synchronized void result(Player player, int result, GameEngine engine)
+    {
+        int seat = seatOf(player);
+
+        if (seat >= 0)
+        {
+            reserve(3);
+            frame.put(WireProtocol.RESULT).put((byte) seat).put((byte) result);
+        }
+
+        // the player's hand is complete so send it
+        flush();
+    }
+
+    @Override
+    public synchronized void nextHouseCard(PlayingCard card, GameEngine engine)
+    {
+        putCard(WireProtocol.NEXT_HOUSE_CARD, -1, card);
+    }
+
+    @Override
+    public synchronized void houseBustCard(PlayingCard card, GameEngine engine)
+    {
+        putCard(WireProtocol.HOUSE_BUST_CARD, -1, card);
+    }
+
+    @Override
+    public synchronized void houseResult(int result, GameEngine engine)
+    {
+        Player[] listed = new Player[WireProtocol.MAX_BATCH];
+        Set<Integer> kept = new HashSet<>();
+        int players = 0;
+
+        // the seats of players who left are freed first so the players still seated can take them
+        for (Player player : engine.getAllPlayers())
+        {
+            Integer seat = seats.get(player.getPlayerId());
+            if (seat != null)
+                kept.add(seat);
+        }
+        for (int seat = 0; seat < nextSeat; seat++)
+        {
+            if (seated[seat] != null && !kept.contains(seat))
+                free(seat);
+        }
+
+        // announce any unseen players before the settlement event refers to them
+        for (Player player : engine.getAllPlayers())
+        {
+            int seat = seatOf(player);
+            if (seat >= 0)
+                listed[players++] = player;
+        }
+
+        reserve(3 + players * 10);
+        frame.put(WireProtocol.HOUSE_RESULT).put((byte) result).put((byte) players);
+
+        for (int index = 0; index < players; index++)
+        {
+            Player player = listed[index];
+            frame.put(seats.get(player.getPlayerId()).byteValue());
+            frame.putInt(player.getBet());
+            frame.putInt(player.getPoints());
+            frame.put((byte) player.getResult());
+        }
+
+        // the round is complete so send it
+        flush();
+    }
+
+    /**
+     * Appends the reply to a command, replies are sent in the order the commands were executed.
+     *
+     * @param reply - one of the WireProtocol reply codes
+     * @param flush - true to send the pending frame immediately
+     */
+    public synchronized void reply(byte reply, boolean flush)
+    {
+        reserve(2);
+        frame.put(WireProtocol.REPLY).put(reply);
+
+        if (flush)
+            flush();
+    }
+
+    /**
+     * Hands the pending frame, if it holds any events, to the sink.
+     */
+    public synchronized void flush()
+    {
+        if (count == 0)
+            return;
+
+        int length = frame.position();
+        frame.putInt(0, length - Integer.BYTES);
+        frame.putInt(Integer.BYTES, tableId);
+        frame.put(Integer.BYTES + Integer.BYTES, (byte) count);
+
+        // copy out exactly the used bytes so the staging buffer can be reused straight away
+        ByteBuffer completed = ByteBuffer.allocate(length);
+        frame.flip();
+        completed.put(frame);
+        completed.flip();
+
+        frame.clear();
+        frame.position(WireProtocol.FRAME_HEADER_SIZE);
+        count = 0;
+
+        sink.accept(completed);
+    }
+
+    /**
+     * @return the number of players currently holding a seat
+     */
+    public synchronized int getSeatCount()
+    {
+        return seats.size();
+    }
+
+    /**
+     * @return a number that changes whenever a seat is given out or freed
+     */
+    public synchronized int getRosterVersion()
+    {
+        return rosterVersion;
+    }
+
+    /**
+     * @return the number of events dropped because every seat was taken or the player's id or name was
+     *         too long to send
+     */
+    public synchronized long getDroppedCount()
+    {
+        return dropped;
+    }
+
+    /**
+     * Builds a standalone frame announcing every seat currently held, for receivers that
+     * start listening part way through the event stream.
+     *
+     * @return the roster frame (including its length prefix) ready to be written
+     */
+    public synchronized ByteBuffer rosterFrame()
+    {
+        int length = WireProtocol.FRAME_HEADER_SIZE;
+        for (int seat = 0; seat < nextSeat; seat++)
+        {
+            if (seated[seat] != null)
+                length += 2 + WireProtocol.sizeOf(seated[seat].getPlayerId())
+                        + WireProtocol.sizeOf(seated[seat].getPlayerName());
+        }
+
+        ByteBuffer roster = ByteBuffer.allocate(length);
+        roster.putInt(0).putInt(tableId).put((byte) seats.size());
+
+        for (int seat = 0; seat < nextSeat; seat++)
+        {
+            if (seated[seat] == null)
+                continue;
+
+            roster.put(WireProtocol.SEAT).put((byte) seat);
+            WireProtocol.putString(roster, seated[seat].getPlayerId());
+            WireProtocol.putString(roster, seated[seat].getPlayerName());
+        }
+        roster.putInt(0, roster.position() - Integer.BYTES);
+        roster.flip();
+        return roster;
+    }
+
+    /**
+     * Utility method to write a card event.
+     *
+     * @param type - the event type
+     * @param seat - the seat of the player, or -1 for the house
+     * @param card - the dealt card
+     */
+    private void putCard(byte type, int seat, PlayingCard card)
+    {
+        reserve(seat < 0 ? 2 : 3);
+        frame.put(type);
+        if (seat >= 0)
+            frame.put((byte) seat);
+        frame.put(WireProtocol.encodeCard(card));
+    }
+
+    /**
+     * Utility method to look up a player's seat, announcing a newly seen player with a SEAT event.
+     *
+     * @param player - the player to look up
+     * @return the seat number of the player, or -1 if the player cannot be seated and the event is dropped
+     */
+    private int seatOf(Player player)
+    {
+        Integer seat = seats.get(player.getPlayerId());
+
+        if (seat == null)
+        {
+            if (!WireProtocol.isEncodable(player.getPlayerId()) || !WireProtocol.isEncodable(player.getPlayerName()))
+            {
+                dropped++;
+                return -1;
+            }
+
+            if (!freeSeats.isEmpty())
+                seat = freeSeats.poll();
+            else if (nextSeat < WireProtocol.MAX_BATCH)
+                seat = nextSeat++;
+            else
+            {
+                dropped++;
+                return -1;
+            }
+
+            seats.put(player.getPlayerId(), seat);
+            seated[seat] = player;
+            rosterVersion++;
+
+            reserve(2 + WireProtocol.sizeOf(player.getPlayerId()) + WireProtocol.sizeOf(player.getPlayerName()));
+            frame.put(WireProtocol.SEAT).put(seat.byteValue());
+            WireProtocol.putString(frame, player.getPlayerId());
+            WireProtocol.putString(frame, player.getPlayerName());
+        }
+        return seat;
+    }
+
+    /**
+     * Utility method to give up the seat of a player who has left the table.
+     *
+     * @param seat - the seat to free
+     */
+    private void free(int seat)
+    {
+        seats.remove(seated[seat].getPlayerId());
+        seated[seat] = null;
+        freeSeats.add(seat);
+        rosterVersion++;
+    }
+
+    /**
+     * Utility method to make room for an event, sending the pending frame first if necessary.
+     *
+     * @param bytes - the maximum size of the event about to be written
+     */
+    private void reserve(int bytes)
+    {
+        if (frame.remaining() < bytes || count == WireProtocol.MAX_BATCH)
+            flush();
+
+        count++;
+    }
+}
@@ -0,0 +1,216 @@
+package server;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import model.CardSet;
+import model.interfaces.PlayingCard;
+
+/**
+ * <pre>Constants and encoding utilities for the binary table protocol.
+ *
+ * Every frame is an int length followed by that many payload bytes:
+ *
+ *   command frame (client to server): int tableId, byte count, count * command
+ *   event frame (server to client):   int tableId, byte count, count * event
+ *
+ * Each command or event starts with its type byte. Cards are sent as a single byte code
+ * (the card's CardSet ordinal), players are referred to by a one byte seat number
+ * that is announced with a SEAT event when the player is first seen and freed for reuse once
+ * a HOUSE_RESULT no longer lists the player, and strings are sent as a
+ * length byte followed by at most 255 bytes of UTF-8.</pre>
+ */
+public final class WireProtocol
+{
+    public static final int MAX_FRAME_SIZE = 64 * 1024;
+    public static final int FRAME_HEADER_SIZE = Integer.BYTES + Integer.BYTES + Byte.BYTES;
+    public static final int MAX_BATCH = 255;
+
+    /**
+     * The longest player id or name in UTF-8 bytes, strings are sent with a one byte length
+     */
+    public static final int MAX_STRING_BYTES = 255;
+
+    // command types
+    public static final byte JOIN = 1;
+    public static final byte LEAVE = 2;
+    public static final byte BET = 3;
+    public static final byte DEAL = 4;
+    public static final byte DEAL_HOUSE = 5;
+    public static final byte SUBSCRIBE = 6;
+
+    // event types
+    public static final byte SEAT = 16;
+    public static final byte NEXT_CARD = 17;
+    public static final byte BUST_CARD = 18;
+    public static final byte RESULT = 19;
+    public static final byte NEXT_HOUSE_CARD = 20;
+    public static final byte HOUSE_BUST_CARD = 21;
+    public static final byte HOUSE_RESULT = 22;
+    public static final byte REPLY = 23;
+
+    // reply codes
+    public static final byte REPLY_FALSE = 0;
+    public static final byte REPLY_TRUE = 1;
+    public static final byte REPLY_ERROR = 2;
+
+    private WireProtocol()
+    {
+    }
+
+    /**
+     * @param card - the card to encode
+     * @return the single byte code of the card between 0 and DECK_SIZE - 1
+     */
+    public static byte encodeCard(PlayingCard card)
+    {
+        return (byte) CardSet.ordinal(card);
+    }
+
+    /**
+     * @param code - a card code as produced by {@link #encodeCard(PlayingCard)}
+     * @return the shared card instance for the code
+     * @throws IllegalArgumentException if the code does not identify a card
+     */
+    public static PlayingCard decodeCard(byte code) throws IllegalArgumentException
+    {
+        return CardSet.card(code);
+    }
+
+    /**
+     * @param value - a player id or name
+     * @return true if the string is at most MAX_STRING_BYTES once encoded, so it can be sent
+     */
+    public static boolean isEncodable(String value)
+    {
+        // no character takes more than 3 bytes, so short strings need not be encoded to be checked
+        return value.length() * 3 <= MAX_STRING_BYTES
+                || value.getBytes(StandardCharsets.UTF_8).length <= MAX_STRING_BYTES;
+    }
+
+    /**
+     * @param buffer - buffer to write the string to
+     * @param value - the string to write, at most MAX_STRING_BYTES once encoded
+     * @throws IllegalArgumentException if the string is too long, see {@link #isEncodable(String)}
+     */
+    public static void putString(ByteBuffer buffer, String value) throws IllegalArgumentException
+    {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+
+        if (bytes.length > MAX_STRING_BYTES)
+            throw new IllegalArgumentException("String too long: " + value);
+
+        buffer.put((byte) bytes.length);
+        buffer.put(bytes);
+    }
+
+    /**
+     * @param buffer - buffer to read the string from
+     * @return the decoded string
+     */
+    public static String getString(ByteBuffer buffer)
+    {
+        byte[] bytes = new byte[buffer.get() & 0xFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param value - the string to be written with {@link #putString(ByteBuffer, String)}
+     * @return an upper bound on the number of bytes the string occupies
+     */
+    public static int sizeOf(String value)
+    {
+        return 1 + value.length() * 3;
+    }
+
+    /**
+     * @param buffer - buffer to write the command to
+     * @param command - the command to encode
+     */
+    public static void putCommand(ByteBuffer buffer, TableCommand command)
+    {
+        switch (command.getType())
+        {
+            case JOIN:
+                buffer.put(JOIN);
+                putString(buffer, command.getPlayerId());
+                putString(buffer, command.getPlayerName());
+                buffer.putInt(command.getAmount());
+                break;
+            case LEAVE:
+                buffer.put(LEAVE);
+                putString(buffer, command.getPlayerId());
+                break;
+            case BET:
+                buffer.put(BET);
+                putString(buffer, command.getPlayerId());
+                buffer.putInt(command.getAmount());
+                break;
+            case DEAL:
+                buffer.put(DEAL);
+                putString(buffer, command.getPlayerId());
+                buffer.putShort((short) command.getAmount());
+                break;
+            case DEAL_HOUSE:
+                buffer.put(DEAL_HOUSE);
+                buffer.putShort((short) command.getAmount());
+                break;
+            default:
+                throw new IllegalArgumentException();
+        }
+    }
+
+    /**
+     * @param buffer - buffer positioned at the type byte of a command other than SUBSCRIBE
+     * @return the decoded command
+     * @throws IllegalArgumentException if the type byte does not identify a command
+     */
+    public static TableCommand getCommand(ByteBuffer buffer) throws IllegalArgumentException
+    {
+        byte type = buffer.get();
+
+        switch (type)
+        {
+            case JOIN:
+                return TableCommand.join(getString(buffer), getString(buffer), buffer.getInt());
+            case LEAVE:
+                return TableCommand.leave(getString(buffer));
+            case BET:
+                return TableCommand.bet(getString(buffer), buffer.getInt());
+            case DEAL:
+                return TableCommand.deal(getString(buffer), buffer.getShort());
+            case DEAL_HOUSE:
+                return TableCommand.dealHouse(buffer.getShort());
+            default:
+                throw new IllegalArgumentException("Invalid command type: " + type);
+        }
+    }
+
+    /**
+     * Utility method to slice the next complete frame off a read buffer.
+     *
+     * @param buffer - buffer in read mode holding zero or more frames
+     * @return the payload of the next frame, or null if the buffer does not hold a complete frame
+     * @throws IllegalArgumentException if the frame length is invalid
+     */
+    public static ByteBuffer nextFrame(ByteBuffer buffer) throws IllegalArgumentException
+    {
+        if (buffer.remaining() < Integer.BYTES)
+            return null;
+
+        int length = buffer.getInt(buffer.position());
+
+        if (length < 0 || length > MAX_FRAME_SIZE)
+            throw new IllegalArgumentException("Invalid frame length: " + length);
+
+        if (buffer.remaining() < Integer.BYTES + length)
+            return null;
+
+        ByteBuffer frame = buffer.duplicate();
+        frame.position(buffer.position() + Integer.BYTES);
+        frame.limit(frame.position() + length);
+        buffer.position(frame.limit());
+        return frame.slice();
+    }
+}
@@ -0,0 +1,123 @@
+package view;
+
+import java.util.ArrayList;
+import java.util.concurrent.Flow;
+
+import model.GameEngineImpl;
+import model.GameEvent;
+import model.interfaces.GameEngine;
+import model.interfaces.Player;
+import view.interfaces.GameEngineCallback;
+
+/**
+ * <pre>Adapter that lets any existing GameEngineCallback (e.g. GameEngineCallbackImpl) consume a
+ * {@link GameEventPublisher} as a Flow.Subscriber.
+ *
+ * Events are requested in batches and replayed on the callback in order. Since the callback runs
+ * after the engine may have moved on, houseResult is given a snapshot engine holding the players
+ * as they were when the round was settled rather than the live engine.</pre>
+ */
+public class CallbackSubscriber implements Flow.Subscriber<GameEvent>
+{
+    private final GameEngineCallback callback;
+    private final int batchSize;
+    private final GameEngine snapshot = new GameEngineImpl();
+    private Flow.Subscription subscription;
+    private int outstanding;
+
+    public CallbackSubscriber(GameEngineCallback callback)
+    {
+        this(callback, 64);
+    }
+
+    /**
+     * @param callback - the callback to replay events on
+     * @param batchSize - the number of events requested at a time
+     */
+    public CallbackSubscriber(GameEngineCallback callback, int batchSize)
+    {
+        if (callback == null || batchSize < 1)
+            throw new IllegalArgumentException();
+
+        this.callback = callback;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription)
+    {
+        this.subscription = subscription;
+        outstanding = batchSize;
+        subscription.request(batchSize);
+    }
+
+    @Override
+    public void onNext(GameEvent event)
+    {
+        switch (event.getType())
+        {
+            case NEXT_CARD:
+                callback.nextCard(event.getPlayer(), event.getCard(), event.getEngine());
+                break;
+            case BUST_CARD:
+                callback.bustCard(event.getPlayer(), event.getCard(), event.getEngine());
+                break;
+            case RESULT:
+                callback.result(event.getPlayer(), event.getResult(), event.getEngine());
+                break;
+            case NEXT_HOUSE_CARD:
+                callback.nextHouseCard(event.getCard(), event.getEngine());
+                break;
+            case HOUSE_BUST_CARD:
+                callback.houseBustCard(event.getCard(), event.getEngine());
+                break;
+            case HOUSE_RESULT:
+                callback.houseResult(event.getResult(), snapshotOf(event));
+                break;
+        }
+
+        // top the demand back up once half of the batch has been consumed
+        if (--outstanding <= batchSize / 2)
+        {
+            subscription.request(batchSize - outstanding);
+            outstanding = batchSize;
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable)
+    {
+        throwable.printStackTrace();
+    }
+
+    @Override
+    public void onComplete()
+    {
+    }
+
+    /**
+     * Cancels the subscription, no further events are delivered.
+     */
+    public void cancel()
+    {
+        if (subscription != null)
+            subscription.cancel();
+    }
+
+    /**
+     * Utility method to load the settled players carried by a HOUSE_RESULT event into the snapshot engine.
+     *
+     * @param event - the HOUSE_RESULT event
+     * @return an engine whose players match the event
+     */
+    private GameEngine snapshotOf(GameEvent event)
+    {
+        for (Player player : new ArrayList<>(snapshot.getAllPlayers()))
+            snapshot.removePlayer(player);
+
+        for (Player player : event.getPlayers())
+            snapshot.addPlayer(player);
+
+        return snapshot;
+    }
+}
@@ -0,0 +1,286 @@
+package view;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import model.interfaces.GameEngine;
+import model.interfaces.Player;
+import model.interfaces.PlayingCard;
+import view.interfaces.GameEngineCallback;
+
+/**
+ * <pre>Console view that redraws a compact summary of one or more tables at a bounded frame rate.
+ *
+ * Unlike GameEngineCallbackImpl, which writes a log record for every card, events only update
+ * in-memory table state and a single background thread prints the latest state at most
+ * framesPerSecond times a second, merging every event in between. The cost of console output
+ * therefore no longer depends on how fast the tables deal.
+ *
+ * The same renderer may be registered with many engines, each is shown as its own table. Players
+ * who have left are dropped at the end of each round, and {@link #forget(GameEngine)} drops a table
+ * that has closed (e.g. from TableServer.addCloseListener), so an engine reused from an EnginePool
+ * starts as a new table.</pre>
+ */
+public class ConsoleTableRenderer implements GameEngineCallback, AutoCloseable
+{
+    private static final String CLEAR_SCREEN = "\033[H\033[2J";
+
+    private final PrintStream out;
+    private final int maxTables;
+    private final boolean clearScreen;
+    private final Map<GameEngine, TableView> tables = new ConcurrentHashMap<>();
+    private final AtomicInteger tableCount = new AtomicInteger();
+    private final AtomicLong events = new AtomicLong();
+    private final ScheduledExecutorService renderer;
+    private long renderedEvents;
+    private long lastFrame = System.nanoTime();
+    private long frames;
+
+    public ConsoleTableRenderer()
+    {
+        this(System.out, 10, 20, true);
+    }
+
+    /**
+     * @param out - the stream to draw to
+     * @param framesPerSecond - the maximum number of redraws per second
+     * @param maxTables - the maximum number of tables drawn per frame
+     * @param clearScreen - true to redraw in place using ANSI escape codes, false to append frames
+     */
+    public ConsoleTableRenderer(PrintStream out, int framesPerSecond, int maxTables, boolean clearScreen)
+    {
+        if (out == null || framesPerSecond < 1 || maxTables < 1)
+            throw new IllegalArgumentException();
+
+        this.out = out;
+        this.maxTables = maxTables;
+        this.clearScreen = clearScreen;
+
+        renderer = Executors.newSingleThreadScheduledExecutor(runnable ->
+        {
+            Thread thread = new Thread(runnable, "console-renderer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = TimeUnit.SECONDS.toNanos(1) / framesPerSecond;
+        renderer.scheduleAtFixedRate(this::render, period, period, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void nextCard(Player player, PlayingCard card, GameEngine engine)
+    {
+        tableOf(engine).card(player, card, false);
+    }
+
+    @Override
+    public void bustCard(Player player, PlayingCard card, GameEngine engine)
+    {
+        tableOf(engine).card(player, card, true);
+    }
+
+    @Override
+    public void result(Player player, int result, GameEngine engine)
+    {
+        tableOf(engine).result(player, result);
+    }
+
+    @Override
+    public void nextHouseCard(PlayingCard card, GameEngine engine)
+    {
+        tableOf(engine).card(null, card, false);
+    }
+
+    @Override
+    public void houseBustCard(PlayingCard card, GameEngine engine)
+    {
+        tableOf(engine).card(null, card, true);
+    }
+
+    @Override
+    public void houseResult(int result, GameEngine engine)
+    {
+        tableOf(engine).houseResult(result, engine);
+    }
+
+    /**
+     * Stops showing a table, to be called once its engine raises no more events.
+     *
+     * @param engine - the engine of the closed table
+     */
+    public void forget(GameEngine engine)
+    {
+        tables.remove(engine);
+    }
+
+    /**
+     * Stops redrawing after drawing the final state once more.
+     */
+    @Override
+    public void close()
+    {
+        renderer.shutdown();
+        try
+        {
+            renderer.awaitTermination(1, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException exception)
+        {
+            Thread.currentThread().interrupt();
+        }
+        render();
+    }
+
+    /**
+     * Utility method to find the view of a table, creating it when an engine is first seen.
+     */
+    private TableView tableOf(GameEngine engine)
+    {
+        events.incrementAndGet();
+        return tables.computeIfAbsent(engine, ignored -> new TableView(tableCount.incrementAndGet()));
+    }
+
+    /**
+     * Utility method run on the renderer thread to draw a frame if anything changed since the last one.
+     */
+    private synchronized void render()
+    {
+        long total = events.get();
+
+        if (total == renderedEvents)
+            return;
+
+        long now = System.nanoTime();
+        double rate = (total - renderedEvents) / ((now - lastFrame) / 1e9);
+        StringBuilder frame = new StringBuilder(clearScreen ? CLEAR_SCREEN : "");
+
+        frame.append(String.format("== %d tables | %d events (%.0f/s) | frame %d ==%n",
+                tables.size(), total, rate, ++frames));
+
+        List<TableView> views = new ArrayList<>(tables.values());
+        views.sort((one, two) -> Integer.compare(one.number, two.number));
+        for (TableView view : views.subList(0, Math.min(maxTables, views.size())))
+            view.appendTo(frame);
+
+        if (views.size() > maxTables)
+            frame.append(String.format("... %d more tables%n", views.size() - maxTables));
+
+        renderedEvents = total;
+        lastFrame = now;
+        out.print(frame);
+        out.flush();
+    }
+
+    /**
+     * In-memory state of a single table, updated by its dealing thread and read by the renderer.
+     */
+    private static class TableView
+    {
+        private final int number;
+        private final Map<String, Hand> hands = new LinkedHashMap<>();
+        private final Hand house = new Hand("House");
+        private long rounds;
+        private int lastHouseResult = -1;
+
+        private TableView(int number)
+        {
+            this.number = number;
+        }
+
+        private synchronized void card(Player player, PlayingCard card, boolean bust)
+        {
+            Hand hand = player == null ? house : handOf(player);
+
+            // the first card of a hand after a completed one starts a new hand
+            if (hand.result >= 0)
+                hand.reset();
+
+            hand.cards++;
+            hand.points += card.getScore();
+            hand.lastCard = card;
+            hand.bust = bust;
+        }
+
+        private synchronized void result(Player player, int result)
+        {
+            handOf(player).result = result;
+        }
+
+        private synchronized void houseResult(int result, GameEngine engine)
+        {
+            house.result = result;
+            lastHouseResult = result;
+            rounds++;
+
+            Set<String> seated = new HashSet<>();
+            for (Player player : engine.getAllPlayers())
+            {
+                handOf(player).balance = player.getPoints();
+                seated.add(player.getPlayerId());
+            }
+
+            // players who left during the round are still shown with their last result until now
+            hands.keySet().retainAll(seated);
+        }
+
+        private Hand handOf(Player player)
+        {
+            Hand hand = hands.computeIfAbsent(player.getPlayerId(), id -> new Hand(player.getPlayerName()));
+            hand.balance = player.getPoints();
+            return hand;
+        }
+
+        private synchronized void appendTo(StringBuilder frame)
+        {
+            frame.append(String.format("Table %-4d rounds=%-8d last house result=%s%n",
+                    number, rounds, lastHouseResult < 0 ? "-" : Integer.toString(lastHouseResult)));
+            house.appendTo(frame);
+            for (Hand hand : hands.values())
+                hand.appendTo(frame);
+        }
+    }
+
+    private static class Hand
+    {
+        private final String name;
+        private int cards;
+        private int points;
+        private PlayingCard lastCard;
+        private boolean bust;
+        private int result = -1;
+        private int balance = -1;
+
+        private Hand(String name)
+        {
+            this.name = name;
+        }
+
+        private void reset()
+        {
+            cards = 0;
+            points = 0;
+            lastCard = null;
+            bust = false;
+            result = -1;
+        }
+
+        private void appendTo(StringBuilder frame)
+        {
+            frame.append(String.format("  %-16.16s cards=%-2d total=%-3d last=%-14s %-6s result=%-3s%s%n",
+                    name, cards, points,
+                    lastCard == null ? "-" : lastCard.getValue() + " " + lastCard.getSuit().name().charAt(0),
+                    bust ? "BUST" : "", result < 0 ? "-" : Integer.toString(result),
+                    balance < 0 ? "" : " points=" + balance));
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package view;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.AtomicLong;
+
+import model.GameEvent;
+import model.interfaces.GameEngine;
+import model.interfaces.Player;
+import model.interfaces.PlayingCard;
+import view.interfaces.GameEngineCallback;
+
+/**
+ * <pre>Reactive Streams view of a GameEngine's events.
+ *
+ * Registered with the engine as an ordinary GameEngineCallback, every notification is turned into
+ * a {@link GameEvent} and offered to each subscriber's bounded buffer. Delivery happens on the
+ * supplied executor under the subscriber's own request(n) demand, so a slow consumer never
+ * blocks the dealing thread. No event is built while there are no subscribers.
+ *
+ * When a subscriber's buffer is full the Overflow policy decides what happens to that subscriber:
+ * with DROP_CARDS a card event is dropped and counted in {@link #getDroppedCount()}, with FAIL it
+ * is not. A RESULT or HOUSE_RESULT is never dropped silently, since a consumer missing a settlement
+ * would go on with wrong balances. Whenever an event is lost other than under DROP_CARDS the
+ * subscriber is cancelled and receives onError, after the events it was sent before the loss.</pre>
+ *
+ * @see CallbackSubscriber
+ */
+public class GameEventPublisher implements GameEngineCallback, Flow.Publisher<GameEvent>, AutoCloseable
+{
+    public enum Overflow
+    {
+        /**
+         * Drop card events a subscriber has no room for, fail it only when a result is lost
+         */
+        DROP_CARDS,
+
+        /**
+         * Fail a subscriber as soon as any event is lost
+         */
+        FAIL
+    }
+
+    private final SubmissionPublisher<GameEvent> publisher;
+    private final Overflow overflow;
+    private final List<Guarded> subscribers = new CopyOnWriteArrayList<>();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    public GameEventPublisher()
+    {
+        this(ForkJoinPool.commonPool(), Flow.defaultBufferSize(), Overflow.DROP_CARDS);
+    }
+
+    /**
+     * @param executor - runs the delivery of events to subscribers
+     * @param bufferCapacity - the maximum number of undelivered events held per subscriber
+     */
+    public GameEventPublisher(Executor executor, int bufferCapacity)
+    {
+        this(executor, bufferCapacity, Overflow.DROP_CARDS);
+    }
+
+    /**
+     * @param executor - runs the delivery of events to subscribers
+     * @param bufferCapacity - the maximum number of undelivered events held per subscriber
+     * @param overflow - what happens to a subscriber whose buffer is full
+     */
+    public GameEventPublisher(Executor executor, int bufferCapacity, Overflow overflow)
+    {
+        if (overflow == null)
+            throw new IllegalArgumentException();
+
+        publisher = new SubmissionPublisher<>(executor, bufferCapacity);
+        this.overflow = overflow;
+    }
+
+    @Override
+    public synchronized void subscribe(Flow.Subscriber<? super GameEvent> subscriber)
+    {
+        Guarded guarded = new Guarded(subscriber);
+        subscribers.add(guarded);
+        publisher.subscribe(guarded);
+    }
+
+    @Override
+    public void nextCard(Player player, PlayingCard card, GameEngine engine)
+    {
+        if (publisher.hasSubscribers())
+            offer(GameEvent.nextCard(player, card, engine));
+    }
+
+    @Override
+    public void bustCard(Player player, PlayingCard card, GameEngine engine)
+    {
+        if (publisher.hasSubscribers())
+            offer(GameEvent.bustCard(player, card, engine));
+    }
+
+    @Override
+    public void result(Player player, int result, GameEngine engine)
+    {
+        if (publisher.hasSubscribers())
+            offer(GameEvent.result(player, result, engine));
+    }
+
+    @Override
+    public void nextHouseCard(PlayingCard card, GameEngine engine)
+    {
+        if (publisher.hasSubscribers())
+            offer(GameEvent.nextHouseCard(card, engine));
+    }
+
+    @Override
+    public void houseBustCard(PlayingCard card, GameEngine engine)
+    {
+        if (publisher.hasSubscribers())
+            offer(GameEvent.houseBustCard(card, engine));
+    }
+
+    @Override
+    public void houseResult(int result, GameEngine engine)
+    {
+        if (publisher.hasSubscribers())
+            offer(GameEvent.houseResult(result, engine));
+    }
+
+    /**
+     * @return the number of card events dropped under DROP_CARDS because a subscriber's buffer was full
+     */
+    public long getDroppedCount()
+    {
+        return dropped.get();
+    }
+
+    /**
+     * @return the number of subscribers failed with onError because an event was lost
+     */
+    public long getFailedCount()
+    {
+        return failed.get();
+    }
+
+    /**
+     * @return the number of current subscribers
+     */
+    public int getSubscriberCount()
+    {
+        return publisher.getNumberOfSubscribers();
+    }
+
+    /**
+     * Completes every subscriber once their buffered events have been delivered.
+     */
+    @Override
+    public void close()
+    {
+        publisher.close();
+    }
+
+    /**
+     * Utility method to hand an event to every subscriber without ever blocking the caller.
+     *
+     * @param event - the event to publish
+     */
+    private synchronized void offer(GameEvent event)
+    {
+        boolean settlement = event.getType() == GameEvent.Type.RESULT
+                || event.getType() == GameEvent.Type.HOUSE_RESULT;
+
+        // counted up front for every subscriber and taken back for those the event is dropped for
+        for (Guarded subscriber : subscribers)
+            subscriber.accepted++;
+
+        publisher.offer(event, (subscriber, unsent) ->
+        {
+            Guarded guarded = (Guarded) subscriber;
+            guarded.accepted--;
+
+            // a subscriber already failing is cancelled once it reaches the lost event
+            if (guarded.isFailing())
+                return false;
+
+            if (overflow == Overflow.DROP_CARDS && !settlement)
+                dropped.incrementAndGet();
+            else
+                guarded.lost(event.getType());
+
+            // never retry, the dealing thread must not wait for a slow subscriber
+            return false;
+        });
+    }
+
+    /**
+     * Subscriber wrapper that turns a lost event into onError, in order with the events delivered before it.
+     */
+    private class Guarded implements Flow.Subscriber<GameEvent>
+    {
+        private final Flow.Subscriber<? super GameEvent> delegate;
+        private Flow.Subscription subscription;
+
+        // the events buffered for the subscriber, only used while holding the publisher's lock
+        private long accepted;
+
+        // guarded by this
+        private long delivered;
+        private long failAfter = -1;
+        private Throwable failure;
+        private boolean done;
+
+        private Guarded(Flow.Subscriber<? super GameEvent> delegate)
+        {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription)
+        {
+            this.subscription = subscription;
+            delegate.onSubscribe(new Flow.Subscription()
+            {
+                @Override
+                public void request(long n)
+                {
+                    subscription.request(n);
+                }
+
+                @Override
+                public void cancel()
+                {
+                    subscribers.remove(Guarded.this);
+                    subscription.cancel();
+                }
+            });
+        }
+
+        @Override
+        public void onNext(GameEvent event)
+        {
+            synchronized (this)
+            {
+                if (done)
+                    return;
+            }
+            delegate.onNext(event);
+
+            boolean fail;
+            synchronized (this)
+            {
+                delivered++;
+                fail = failAfter >= 0 && delivered >= failAfter && !done;
+                done |= fail;
+            }
+            if (fail)
+                signalFailure();
+        }
+
+        @Override
+        public void onError(Throwable throwable)
+        {
+            if (finish())
+                delegate.onError(throwable);
+        }
+
+        @Override
+        public void onComplete()
+        {
+            if (finish())
+                delegate.onComplete();
+        }
+
+        /**
+         * Utility method called on the dealing thread when an event could not be buffered for the subscriber.
+         */
+        private void lost(GameEvent.Type type)
+        {
+            boolean fail;
+            synchronized (this)
+            {
+                if (done || failAfter >= 0)
+                    return;
+
+                failure = new IllegalStateException("Subscriber fell behind, a " + type + " event was lost");
+                failAfter = accepted;
+                fail = delivered >= failAfter;
+                done |= fail;
+            }
+            if (fail)
+                signalFailure();
+        }
+
+        private synchronized boolean isFailing()
+        {
+            return failAfter >= 0 || done;
+        }
+
+        private void signalFailure()
+        {
+            failed.incrementAndGet();
+            subscribers.remove(this);
+            subscription.cancel();
+            delegate.onError(failure);
+        }
+
+        private synchronized boolean finish()
+        {
+            subscribers.remove(this);
+
+            if (done)
+                return false;
+            done = true;
+            return true;
+        }
+    }
+}